@@ -1,26 +1,32 @@
 package com.rylinaux.plugman;
 
 import com.rylinaux.plugman.pojo.UpdateResult;
-import com.rylinaux.plugman.util.GeyserMCUtil;
+import com.rylinaux.plugman.update.Release;
+import com.rylinaux.plugman.update.UpdateSources;
+import com.rylinaux.plugman.util.DownloadUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 public class AutoUpdateChecker extends BukkitRunnable {
 
     private final PlugMan plugman;
     private final FileConfiguration config;
-    private final List<String> updatedPlugins = new ArrayList<>();
+    private final List<String> updatedPlugins = Collections.synchronizedList(new ArrayList<>());
+    private HotSwapper hotSwapper = null;
 
     public AutoUpdateChecker(PlugMan plugman) {
         this.plugman = plugman;
@@ -40,28 +46,63 @@ public class AutoUpdateChecker extends BukkitRunnable {
         List<String> pluginsToCheck = config.getStringList("auto-update.plugins");
         
         plugman.getLogger().info("[AutoUpdate] Checking " + pluginsToCheck.size() + " plugins for updates...");
-        
-        for (String pluginName : pluginsToCheck) {
-            checkAndUpdatePlugin(pluginName);
+        long cycleStart = System.nanoTime();
+
+        // Plugins are checked and downloaded side by side, so a slow mirror only delays its own plugin
+        int concurrency = Math.max(1, Math.min(config.getInt("auto-update.concurrency", 4), pluginsToCheck.size()));
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "PlugManX Auto Update #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (String pluginName : pluginsToCheck) {
+                futures.add(CompletableFuture.supplyAsync(() -> checkAndUpdatePlugin(pluginName), executor).exceptionally(throwable -> {
+                    plugman.getLogger().log(Level.WARNING, "[AutoUpdate] Could not update " + pluginName, throwable);
+                    return false;
+                }));
+            }
+
+            // Every plugin has to be done before deciding on a restart
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).join()) {
+                    updatedPlugins.add(pluginsToCheck.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
         }
         
-        // If any plugins were updated and auto-restart is enabled, schedule restart
-        if (!updatedPlugins.isEmpty() && config.getBoolean("auto-update.auto-restart", true)) {
-            scheduleRestart();
+        List<String> updated = new ArrayList<>(updatedPlugins);
+
+        // Swap the updated plugins in place if possible, the swapper falls back to a restart on its own
+        if (!updated.isEmpty() && hotSwapper != null) {
+            hotSwapper.schedule(updated);
+        } else if (!updated.isEmpty()) {
+            restart(updated);
         }
         
-        plugman.getLogger().info("[AutoUpdate] Check cycle completed");
+        plugman.getLogger().info("[AutoUpdate] Check cycle completed in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cycleStart) + "ms");
     }
 
-    private void checkAndUpdatePlugin(String pluginName) {
+    private boolean checkAndUpdatePlugin(String pluginName) {
         Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
         if (plugin == null) {
             plugman.getLogger().warning("[AutoUpdate] Plugin " + pluginName + " not found, skipping");
-            return;
+            return false;
         }
 
         plugman.getLogger().info("[AutoUpdate] Checking " + pluginName + "...");
-        UpdateResult result = GeyserMCUtil.checkUpToDate(pluginName);
+        long start = System.nanoTime();
+        UpdateSources sources = plugman.getUpdateSources();
+        Release release = sources.find(pluginName);
+        UpdateResult result = release == null ? null : sources.check(pluginName, release);
+        long checkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long downloadMillis = 0;
+        boolean updated = false;
         
         // Check if update is available by examining the result type
         if (result != null && result.getType() == UpdateResult.ResultType.OUT_OF_DATE) {
@@ -75,15 +116,18 @@ public class AutoUpdateChecker extends BukkitRunnable {
             }
 
             if (config.getBoolean("auto-update.auto-install", true)) {
-                if (downloadAndInstall(pluginName)) {
-                    updatedPlugins.add(pluginName);
-                }
+                long downloadStart = System.nanoTime();
+                updated = downloadAndInstall(pluginName, release);
+                downloadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - downloadStart);
             }
         } else if (result != null && result.getType() == UpdateResult.ResultType.UP_TO_DATE) {
             plugman.getLogger().info("[AutoUpdate] " + pluginName + " is up to date (" + result.getCurrentVersion() + ")");
         } else {
-            plugman.getLogger().warning("[AutoUpdate] Could not check " + pluginName + " (API may be down)");
+            plugman.getLogger().warning("[AutoUpdate] Could not check " + pluginName + " (no update source knows it or the API may be down)");
         }
+
+        plugman.getLogger().info("[AutoUpdate] " + pluginName + " took " + (checkMillis + downloadMillis) + "ms (check: " + checkMillis + "ms, download: " + downloadMillis + "ms)");
+        return updated;
     }
 
     private void notifyAdmins(String pluginName, UpdateResult result, boolean downloaded) {
@@ -102,87 +146,60 @@ public class AutoUpdateChecker extends BukkitRunnable {
         });
     }
 
-    private boolean downloadAndInstall(String pluginName) {
-        plugman.getLogger().info("Downloading update for " + pluginName + "...");
-        
-        // Map plugin name to project name
-        String projectName;
-        if (pluginName.equalsIgnoreCase("Geyser-Spigot") || pluginName.equalsIgnoreCase("Geyser")) {
-            projectName = "geyser";
-        } else if (pluginName.equalsIgnoreCase("floodgate")) {
-            projectName = "floodgate";
-        } else {
-            plugman.getLogger().warning("Unknown plugin for auto-update: " + pluginName);
+    private boolean downloadAndInstall(String pluginName, Release release) {
+        plugman.getLogger().info("Downloading update for " + pluginName + " from " + release.getSource().getName() + "...");
+
+        String downloadURL = release.getDownloadUrl();
+        String sha256 = release.getSha256();
+
+        if (downloadURL == null) {
+            plugman.getLogger().warning(release.getSource().getName() + " does not offer a download for " + pluginName + ", update it manually");
             return false;
         }
 
-        String downloadURL = GeyserMCUtil.getDownloadURL(projectName);
-        
+        if (sha256 == null)
+            plugman.getLogger().warning("No checksum published for " + pluginName + ", the download cannot be verified");
+
+        File pluginsFolder = plugman.getDataFolder().getParentFile();
+
+        // Find old file, fall back to the plugin name
+        File oldFile = null;
+        Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
+        if (plugin != null) oldFile = getPluginFile(plugin);
+        if (oldFile == null || !oldFile.exists()) oldFile = findPluginJar(pluginsFolder, pluginName);
+
+        if (oldFile == null || !oldFile.exists()) {
+            plugman.getLogger().warning("Could not find the jar of " + pluginName + ", skipping update");
+            return false;
+        }
+
+        // A partial download of an earlier cycle is resumed if the file on the server did not change
+        File tempFile = new File(pluginsFolder, pluginName + "-UPDATE.jar.tmp");
+
         try {
-            // Download the file
-            File pluginsFolder = plugman.getDataFolder().getParentFile();
-            File tempFile = new File(pluginsFolder, pluginName + "-UPDATE.jar.tmp");
-            
-            if (downloadFile(downloadURL, tempFile)) {
-                // Find old file
-                Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
-                if (plugin != null) {
-                    File oldFile = getPluginFile(plugin);
-                    if (oldFile != null && oldFile.exists()) {
-                        // Create backup
-                        File oldBackup = new File(pluginsFolder, oldFile.getName() + ".old");
-                        if (oldBackup.exists()) {
-                            oldBackup.delete();
-                        }
-                        
-                        // Delete old file and rename new file
-                        String originalName = oldFile.getName();
-                        oldFile.renameTo(oldBackup);
-                        
-                        File newFile = new File(pluginsFolder, originalName);
-                        tempFile.renameTo(newFile);
-                        
-                        plugman.getLogger().info("Successfully downloaded update for " + pluginName);
-                        plugman.getLogger().info("Old version backed up as: " + oldBackup.getName());
-                        
-                        if (config.getBoolean("auto-update.notify-admins", true)) {
-                            notifyAdmins(pluginName, null, true);
-                        }
-                        
-                        return true;
-                    }
-                }
-                
-                // Fallback: just use plugin name
-                File oldFile = findPluginJar(pluginsFolder, pluginName);
-                if (oldFile != null && oldFile.exists()) {
-                    File oldBackup = new File(pluginsFolder, oldFile.getName() + ".old");
-                    if (oldBackup.exists()) {
-                        oldBackup.delete();
-                    }
-                    
-                    String originalName = oldFile.getName();
-                    oldFile.renameTo(oldBackup);
-                    
-                    File newFile = new File(pluginsFolder, originalName);
-                    tempFile.renameTo(newFile);
-                    
-                    plugman.getLogger().info("Successfully downloaded update for " + pluginName);
-                    return true;
-                }
-            }
-            
-            // Clean up temp file if failed
-            if (tempFile.exists()) {
-                tempFile.delete();
-            }
-            
+            long size = DownloadUtil.download(downloadURL, tempFile, sha256, config.getInt("auto-update.download-attempts", 3));
+            plugman.getLogger().info("Downloaded " + (size / 1024) + " KB successfully" + (sha256 != null ? ", checksum verified" : ""));
         } catch (IOException e) {
             plugman.getLogger().severe("Failed to download update for " + pluginName + ": " + e.getMessage());
-            e.printStackTrace();
+            return false;
         }
-        
-        return false;
+
+        try {
+            File oldBackup = DownloadUtil.install(tempFile, oldFile, plugin != null ? plugin.getName() : pluginName);
+
+            plugman.getLogger().info("Successfully downloaded update for " + pluginName);
+            plugman.getLogger().info("Old version backed up as: " + oldBackup.getName());
+        } catch (IOException e) {
+            plugman.getLogger().severe("Failed to install update for " + pluginName + ", kept the installed version: " + e.getMessage());
+            tempFile.delete();
+            return false;
+        }
+
+        if (config.getBoolean("auto-update.notify-admins", true)) {
+            notifyAdmins(pluginName, null, true);
+        }
+
+        return true;
     }
 
     private File findPluginJar(File pluginsFolder, String pluginName) {
@@ -213,41 +230,6 @@ public class AutoUpdateChecker extends BukkitRunnable {
         return null;
     }
 
-    private boolean downloadFile(String urlString, File outputFile) throws IOException {
-        URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestProperty("User-Agent", "PlugManX");
-        connection.setInstanceFollowRedirects(true);
-        connection.setConnectTimeout(30000);
-        connection.setReadTimeout(30000);
-        
-        int responseCode = connection.getResponseCode();
-        if (responseCode != 200) {
-            plugman.getLogger().severe("Failed to download file. HTTP " + responseCode);
-            return false;
-        }
-        
-        long fileSize = connection.getContentLengthLong();
-        plugman.getLogger().info("Downloading " + (fileSize / 1024) + " KB...");
-        
-        try (InputStream in = connection.getInputStream();
-             FileOutputStream out = new FileOutputStream(outputFile)) {
-            
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalRead = 0;
-            
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-                totalRead += bytesRead;
-            }
-            
-            plugman.getLogger().info("Downloaded " + (totalRead / 1024) + " KB successfully");
-        }
-        
-        return true;
-    }
-
     private File getPluginFile(Plugin plugin) {
         try {
             java.lang.reflect.Method method = plugin.getClass().getMethod("getFile");
@@ -263,14 +245,23 @@ public class AutoUpdateChecker extends BukkitRunnable {
         }
     }
 
-    private void scheduleRestart() {
+    private void restart(List<String> updated) {
+        // If auto-restart is enabled, schedule restart
+        if (config.getBoolean("auto-update.auto-restart", true)) {
+            scheduleRestart(updated);
+        } else {
+            plugman.getLogger().warning("[AutoUpdate] Restart the server to apply the updates of " + String.join(", ", updated));
+        }
+    }
+
+    private void scheduleRestart(List<String> updated) {
         int delaySeconds = config.getInt("auto-update.restart-delay", 60);
         
         plugman.getLogger().warning("Updates downloaded. Server will restart in " + delaySeconds + " seconds...");
         
         Bukkit.getScheduler().runTask(plugman, () -> {
             Bukkit.broadcastMessage("§c§l[PlugManX] Server restarting in " + delaySeconds + " seconds to apply updates!");
-            Bukkit.broadcastMessage("§e§lUpdated plugins: §f" + String.join(", ", updatedPlugins));
+            Bukkit.broadcastMessage("§e§lUpdated plugins: §f" + String.join(", ", updated));
         });
         
         // Warning at 30 seconds
@@ -317,14 +308,29 @@ public class AutoUpdateChecker extends BukkitRunnable {
         
         // Run first check after 5 minutes, then repeat
         this.runTaskTimerAsynchronously(plugman, 5 * 60 * 20L, intervalTicks);
+
+        if (config.getString("auto-update.apply-mode", "restart").equalsIgnoreCase("hot-swap")) {
+            hotSwapper = new HotSwapper(plugman, this::restart);
+            hotSwapper.start();
+            plugman.getLogger().info("Hot-swap is ENABLED - updated plugins are reloaded once the server is quiet");
+        }
         
         plugman.getLogger().info("Auto-update checker scheduled successfully");
         
         List<String> plugins = config.getStringList("auto-update.plugins");
         plugman.getLogger().info("Monitoring plugins: " + String.join(", ", plugins));
         
-        if (config.getBoolean("auto-update.auto-restart", true)) {
+        if (hotSwapper == null && config.getBoolean("auto-update.auto-restart", true)) {
             plugman.getLogger().info("Auto-restart is ENABLED - server will restart automatically after updates");
         }
     }
+
+    @Override
+    public synchronized void cancel() throws IllegalStateException {
+        if (hotSwapper != null) {
+            hotSwapper.cancel();
+            hotSwapper = null;
+        }
+        super.cancel();
+    }
 }
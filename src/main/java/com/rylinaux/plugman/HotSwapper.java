@@ -0,0 +1,173 @@
+package com.rylinaux.plugman;
+
+import com.rylinaux.plugman.pluginmanager.PluginManager;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Applies downloaded updates by unloading and loading the plugins instead of restarting the server.
+ * <p>
+ * Runs every second on the main thread and measures the TPS itself, so it works on servers without a TPS API. Updates
+ * are applied once the TPS and the player count are within the configured limits, or after waiting too long. Plugins
+ * that cannot be swapped safely, or fail to come back, are handed to the restart fallback.
+ */
+public class HotSwapper extends BukkitRunnable {
+
+    /**
+     * How many ticks pass between two runs.
+     */
+    private static final long PERIOD_TICKS = 20L;
+
+    private final PlugMan plugman;
+    private final Consumer<List<String>> restart;
+
+    /**
+     * The updated plugins that still have to be swapped.
+     */
+    private final Set<String> pending = new LinkedHashSet<>();
+
+    private final int maxPlayers;
+    private final double minTps;
+    private final long maxWaitNanos;
+    private final List<String> restartOnly;
+
+    private long lastRun = 0;
+    private double tps = 20.0;
+    private long waitingSince = 0;
+
+    /**
+     * Construct the swapper.
+     *
+     * @param plugman the plugin
+     * @param restart schedules a restart for the given plugins, called on the main thread
+     */
+    public HotSwapper(PlugMan plugman, Consumer<List<String>> restart) {
+        this.plugman = plugman;
+        this.restart = restart;
+
+        FileConfiguration config = plugman.getConfig();
+        this.maxPlayers = config.getInt("auto-update.hot-swap.max-players", 5);
+        this.minTps = config.getDouble("auto-update.hot-swap.min-tps", 18.0);
+        this.maxWaitNanos = TimeUnit.MINUTES.toNanos(config.getLong("auto-update.hot-swap.max-wait-minutes", 120));
+        this.restartOnly = config.getStringList("auto-update.restart-only");
+    }
+
+    /**
+     * Starts measuring the TPS.
+     */
+    public void start() {
+        this.runTaskTimer(plugman, PERIOD_TICKS, PERIOD_TICKS);
+    }
+
+    /**
+     * Queues updated plugins, their jars must already be replaced. Safe to call from any thread.
+     *
+     * @param pluginNames the names of the updated plugins
+     */
+    public synchronized void schedule(List<String> pluginNames) {
+        if (pending.isEmpty()) waitingSince = System.nanoTime();
+        pending.addAll(pluginNames);
+
+        plugman.getLogger().info("[AutoUpdate] Hot-swapping " + String.join(", ", pluginNames) + " once the server is quiet (at most " + maxPlayers + " players, at least " + minTps + " TPS)");
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        if (lastRun != 0) {
+            double seconds = (now - lastRun) / 1_000_000_000.0;
+            // Smoothed over roughly the last 10 seconds, so a single lag spike does not hide a quiet server
+            tps = tps * 0.9 + Math.min(20.0, PERIOD_TICKS / seconds) * 0.1;
+        }
+        lastRun = now;
+
+        List<String> plugins;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+
+            boolean quiet = tps >= minTps && Bukkit.getOnlinePlayers().size() <= maxPlayers;
+            boolean waitedTooLong = now - waitingSince >= maxWaitNanos;
+            if (!quiet && !waitedTooLong) return;
+
+            if (!quiet)
+                plugman.getLogger().warning("[AutoUpdate] Server did not get quiet in time, hot-swapping anyway");
+
+            plugins = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        List<String> failed = new ArrayList<>();
+        for (String pluginName : plugins) {
+            if (!canHotSwap(pluginName)) {
+                plugman.getLogger().info("[AutoUpdate] " + pluginName + " cannot be hot-swapped, a restart is needed");
+                failed.add(pluginName);
+            } else if (!hotSwap(pluginName)) {
+                failed.add(pluginName);
+            }
+        }
+
+        if (!failed.isEmpty()) restart.accept(failed);
+    }
+
+    /**
+     * Whether a plugin may be unloaded and loaded again.
+     *
+     * @param pluginName the plugin name
+     * @return false if the plugin is restart-only, ignored, a Paper plugin, PlugMan itself or a dependency of another
+     * enabled plugin
+     */
+    private boolean canHotSwap(String pluginName) {
+        for (String name : restartOnly)
+            if (name.equalsIgnoreCase(pluginName)) return false;
+
+        PluginManager pluginUtil = plugman.getPluginUtil();
+        Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
+        if (plugin == null) return true;
+        if (plugin == plugman || pluginUtil.isIgnored(plugin) || pluginUtil.isPaperPlugin(plugin)) return false;
+
+        for (Plugin other : Bukkit.getPluginManager().getPlugins())
+            if (other != plugin && other.isEnabled() && other.getDescription().getDepend().contains(plugin.getName()))
+                return false;
+
+        return true;
+    }
+
+    private boolean hotSwap(String pluginName) {
+        PluginManager pluginUtil = plugman.getPluginUtil();
+        long start = System.nanoTime();
+
+        try {
+            Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
+            if (plugin != null) {
+                pluginUtil.unload(plugin);
+                if (Bukkit.getPluginManager().getPlugin(pluginName) != null) {
+                    plugman.getLogger().warning("[AutoUpdate] Could not unload " + pluginName + " for hot-swapping");
+                    return false;
+                }
+            }
+
+            pluginUtil.load(pluginName);
+        } catch (RuntimeException | LinkageError e) {
+            plugman.getLogger().severe("[AutoUpdate] Hot-swapping " + pluginName + " failed: " + e);
+            return false;
+        }
+
+        Plugin loaded = Bukkit.getPluginManager().getPlugin(pluginName);
+        if (loaded == null || !loaded.isEnabled()) {
+            plugman.getLogger().warning("[AutoUpdate] " + pluginName + " did not come back after hot-swapping");
+            return false;
+        }
+
+        plugman.getLogger().info("[AutoUpdate] Hot-swapped " + pluginName + " to " + loaded.getDescription().getVersion() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        return true;
+    }
+}
@@ -26,21 +26,29 @@ package com.rylinaux.plugman;
  * #L%
  */
 
-import com.google.common.hash.Hashing;
-import com.google.common.io.Files;
+import com.rylinaux.plugman.catalog.CatalogEntry;
+import com.rylinaux.plugman.catalog.JarFingerprint;
+import com.rylinaux.plugman.catalog.JarWatcher;
+import com.rylinaux.plugman.catalog.PluginCatalog;
+import com.rylinaux.plugman.leak.LeakTracker;
 import com.rylinaux.plugman.messaging.MessageFormatter;
 import com.rylinaux.plugman.pluginmanager.BukkitPluginManager;
 import com.rylinaux.plugman.pluginmanager.ModernPaperPluginManager;
 import com.rylinaux.plugman.pluginmanager.PaperPluginManager;
 import com.rylinaux.plugman.pluginmanager.PluginManager;
+import com.rylinaux.plugman.pluginmanager.ServerInternals;
+import com.rylinaux.plugman.update.UpdateSources;
 import com.rylinaux.plugman.util.BukkitCommandWrap;
 import com.rylinaux.plugman.util.BukkitCommandWrapUseless;
+import com.rylinaux.plugman.util.ClassLoaderRelease;
+import com.rylinaux.plugman.util.HttpUtil;
+import com.rylinaux.plugman.util.LearnedMappings;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.plugin.InvalidDescriptionException;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.*;
@@ -48,9 +56,9 @@ import java.lang.reflect.Field;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.*;
-import java.util.jar.JarFile;
-import java.util.stream.Collectors;
-import java.util.zip.ZipException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 /**
  * Plugin manager for Bukkit servers.
@@ -63,18 +71,51 @@ public class PlugMan extends JavaPlugin {
      */
     private static PlugMan instance = null;
 
+    /**
+     * The maximum number of threads used to index the plugins folder, jars are mostly I/O bound
+     */
+    private static final int MAX_INDEX_THREADS = 4;
+
     /**
      * HashMap that contains all mappings from resourcemaps.yml
      */
     private final HashMap<String, Map.Entry<Long, Boolean>> resourceMap = new HashMap<>();
     /**
-     * Stores all file names + hashes for auto (re/un)load
+     * Resource IDs found by searching, see learnedmappings.yml
      */
-    private final HashMap<String, String> fileHashMap = new HashMap<>();
+    private LearnedMappings learnedMappings = null;
+    /**
+     * The sources plugin updates are looked up in
+     */
+    private UpdateSources updateSources = null;
+    /**
+     * Stores all file names + fingerprints for auto (re/un)load, persisted in fingerprints.yml
+     */
+    private final Map<String, JarFingerprint> fileHashMap = new ConcurrentHashMap<>();
     /**
      * Stores all file names + plugin names for auto unload
      */
-    private final HashMap<String, String> filePluginMap = new HashMap<>();
+    private final Map<String, String> filePluginMap = new ConcurrentHashMap<>();
+    /**
+     * Index of all jars in the plugins folder and their plugin.yml
+     */
+    private PluginCatalog pluginCatalog = null;
+    /**
+     * Watches the plugins folder for auto (re/un)load
+     */
+    private JarWatcher jarWatcher = null;
+    /**
+     * Releases the class loaders of unloaded plugins
+     */
+    private ClassLoaderRelease classLoaderRelease = null;
+    /**
+     * Reports class loaders of unloaded plugins that are not collected
+     */
+    private LeakTracker leakTracker = null;
+    /**
+     * Bounded pool the plugins folder is indexed on
+     */
+    private ExecutorService indexExecutor = null;
     private PluginManager pluginManager;
     private boolean notifyOnBrokenCommandRemoval;
     private Field lookupNamesField = null;
@@ -189,6 +230,9 @@ public class PlugMan extends JavaPlugin {
 
         PlugMan.instance = this;
 
+        // Resolve the server internals now, so an incompatible server is reported at startup and not on the first unload.
+        ServerInternals.get().logReport(this.getLogger());
+
         File messagesFile = new File(this.getDataFolder(), "messages.yml");
         if (!messagesFile.exists())
             this.saveResource("messages.yml", true);
@@ -218,6 +262,15 @@ public class PlugMan extends JavaPlugin {
 
         this.initConfig();
 
+        this.updateSources = new UpdateSources(this.getConfig().getConfigurationSection("update-sources"));
+
+        ClassLoaderRelease.Strategy strategy = ClassLoaderRelease.Strategy.parse(this.getConfig().getString("unload.release-strategy"), ClassLoaderRelease.Strategy.DEFERRED);
+        this.classLoaderRelease = new ClassLoaderRelease(this.getLogger(), strategy, this.getConfig().getLong("unload.release-delay-millis", 2000));
+
+        if (this.getConfig().getBoolean("leak-detection.enabled", true))
+            this.leakTracker = new LeakTracker(this.getLogger(), this.getConfig().getInt("leak-detection.gc-threshold", 3),
+                                               this.getConfig().getLong("leak-detection.report-after-minutes", 60), this.getConfig().getLong("leak-detection.check-every-seconds", 30));
+
         try {
             Class.forName("com.mojang.brigadier.CommandDispatcher");
             this.bukkitCommandWrap = new BukkitCommandWrap();
@@ -225,142 +278,53 @@ public class PlugMan extends JavaPlugin {
             this.bukkitCommandWrap = new BukkitCommandWrapUseless();
         }
 
-        for (File file : new File("plugins").listFiles()) {
-            if (file.isDirectory()) continue;
-            if (!file.getName().toLowerCase(Locale.ROOT).endsWith(".jar")) continue;
-            String hash = null;
-            try {
-                hash = Files.asByteSource(file).hash(Hashing.md5()).toString();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            this.fileHashMap.put(file.getName(), hash);
-
-            JarFile jarFile = null;
-            try {
-                jarFile = new JarFile(file);
-            } catch (IOException e) {
-                if (e instanceof ZipException) {
-                    System.out.println("Possible broken plugin detected: " + file.getName());
-                    continue;
-                }
-                e.printStackTrace();
-                continue;
-            }
-
-            if (jarFile.getEntry("plugin.yml") == null) continue;
-
-            InputStream stream;
-            try {
-                stream = jarFile.getInputStream(jarFile.getEntry("plugin.yml"));
-            } catch (IOException e) {
-                e.printStackTrace();
-                continue;
-            }
-
-            if (stream == null) continue;
-
-            PluginDescriptionFile descriptionFile = null;
-            try {
-                descriptionFile = new PluginDescriptionFile(stream);
-            } catch (InvalidDescriptionException e) {
-                e.printStackTrace();
-                continue;
-            }
-
-            this.filePluginMap.put(file.getName(), descriptionFile.getName());
-        }
-
         this.notifyOnBrokenCommandRemoval = this.getConfig().getBoolean("notify-on-broken-command-removal", true);
 
-        boolean alerted = false;
+        boolean autoLoad = this.getConfig().getBoolean("auto-load.enabled", false);
+        boolean autoUnload = this.getConfig().getBoolean("auto-unload.enabled", false);
+        boolean autoReload = this.getConfig().getBoolean("auto-reload.enabled", false);
+
+        long pollSeconds = Long.MAX_VALUE;
 
-        if (this.getConfig().getBoolean("auto-load.enabled", false)) {
+        if (autoLoad || autoUnload || autoReload) {
             this.getLogger().warning("!!! The auto (re/un)load feature can break plugins, use with caution !!!");
             this.getLogger().warning("If anything breaks, a restart will probably fix it!");
-            alerted = true;
-            Bukkit.getScheduler().scheduleAsyncRepeatingTask(this, () -> {
-                if (!new File("plugins").isDirectory()) return;
-                for (File file : Arrays.stream(new File("plugins").listFiles()).filter(File::isFile).filter(file -> file.getName().toLowerCase(Locale.ROOT).endsWith(".jar")).collect(Collectors.toList()))
-                    if (!this.fileHashMap.containsKey(file.getName())) {
-                        Bukkit.getScheduler().runTask(this, () -> {
-                            Bukkit.getConsoleSender().sendMessage(PlugMan.getInstance().getPluginUtil().load(file.getName().replace(".jar", "")));
-                        });
-                        String hash = null;
-                        try {
-                            hash = Files.asByteSource(file).hash(Hashing.md5()).toString();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        this.fileHashMap.put(file.getName(), hash);
-                    }
-            }, this.getConfig().getLong("auto-load.check-every-seconds") * 20, this.getConfig().getLong("auto-load.check-every-seconds") * 20);
-        }
 
-        if (this.getConfig().getBoolean("auto-unload.enabled", false)) {
-            if (!alerted) {
-                this.getLogger().warning("!!! The auto (re/un)load feature can break plugins, use with caution !!!");
-                this.getLogger().warning("If anything breaks, a restart will probably fix it!");
-                alerted = true;
-            }
-            Bukkit.getScheduler().scheduleAsyncRepeatingTask(this, () -> {
-                if (!new File("plugins").isDirectory()) return;
-                for (String fileName : this.fileHashMap.keySet())
-                    if (!new File("plugins", fileName).exists()) {
-                        Plugin plugin = Bukkit.getPluginManager().getPlugin(this.filePluginMap.get(fileName));
-                        if (plugin == null) {
-                            this.fileHashMap.remove(fileName);
-                            this.filePluginMap.remove(fileName);
-                            continue;
-                        }
-                        if (PlugMan.getInstance().getPluginUtil().isIgnored(plugin)) continue;
-                        this.fileHashMap.remove(fileName);
-                        Bukkit.getScheduler().runTask(this, () -> {
-                            Bukkit.getConsoleSender().sendMessage(PlugMan.getInstance().getPluginUtil().unload(plugin));
-                        });
-                    }
-            }, this.getConfig().getLong("auto-unload.check-every-seconds") * 20, this.getConfig().getLong("auto-unload.check-every-seconds") * 20);
+            // Only used if the file system does not report changes, poll as often as the most eager feature wants to.
+            if (autoLoad) pollSeconds = Math.min(pollSeconds, this.getConfig().getLong("auto-load.check-every-seconds", 10));
+            if (autoUnload) pollSeconds = Math.min(pollSeconds, this.getConfig().getLong("auto-unload.check-every-seconds", 10));
+            if (autoReload) pollSeconds = Math.min(pollSeconds, this.getConfig().getLong("auto-reload.check-every-seconds", 10));
+            pollSeconds = Math.max(1, pollSeconds);
         }
 
-        if (this.getConfig().getBoolean("auto-reload.enabled", false)) {
-            if (!alerted) {
-                this.getLogger().warning("!!! The auto (re/un)load feature can break plugins, use with caution !!!");
-                this.getLogger().warning("If anything breaks, a restart will probably fix it!");
-            }
-            Bukkit.getScheduler().scheduleAsyncRepeatingTask(this, () -> {
-                if (!new File("plugins").isDirectory()) return;
-                for (File file : Arrays.stream(new File("plugins").listFiles()).filter(File::isFile).filter(file -> file.getName().toLowerCase(Locale.ROOT).endsWith(".jar")).collect(Collectors.toList())) {
-                    if (!this.fileHashMap.containsKey(file.getName())) continue;
-                    String hash = null;
-                    try {
-                        hash = Files.asByteSource(file).hash(Hashing.md5()).toString();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                        continue;
-                    }
+        PluginCatalog catalog = new PluginCatalog(new File("plugins"), this.getLogger());
+        this.pluginCatalog = catalog;
+        this.indexExecutor = PlugMan.createIndexExecutor();
 
-                    if (!hash.equalsIgnoreCase(this.fileHashMap.get(file.getName()))) {
-                        Plugin plugin = Bukkit.getPluginManager().getPlugin(this.filePluginMap.get(file.getName()));
-                        if (plugin == null) {
-                            this.fileHashMap.remove(file.getName());
-                            this.filePluginMap.remove(file.getName());
-                            continue;
-                        }
+        // Jars that did not change since the last run keep their persisted fingerprint and are not hashed again.
+        Map<String, JarFingerprint> persisted = this.loadFingerprints();
+        long indexStart = System.currentTimeMillis();
 
-                        if (PlugMan.getInstance().getPluginUtil().isIgnored(plugin)) continue;
+        // The index is built off the main thread, commands that need it before it is done either look up the single jar
+        // they need or report that indexing is still in progress.
+        long finalPollSeconds = pollSeconds;
+        ExecutorService executor = this.indexExecutor;
+        catalog.index(executor).thenCompose(ignored -> {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (CatalogEntry entry : catalog.getEntries())
+                futures.add(CompletableFuture.runAsync(() -> this.indexEntry(entry, persisted.get(entry.getFile().getName())), executor));
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        }).whenComplete((ignored, throwable) -> {
+            if (!this.isEnabled()) return;
 
-                        this.fileHashMap.remove(file.getName());
-                        this.fileHashMap.put(file.getName(), hash);
+            if (throwable != null) this.getLogger().log(Level.SEVERE, "Could not fingerprint the plugins folder", throwable);
+
+            this.saveFingerprints();
+            this.getLogger().info("Indexed " + catalog.getEntries().size() + " jars in " + (System.currentTimeMillis() - indexStart) + "ms");
+
+            if (autoLoad || autoUnload || autoReload) this.startJarWatcher(autoLoad, autoUnload, autoReload, finalPollSeconds);
+        });
 
-                        Bukkit.getScheduler().runTask(this, () -> {
-                            Bukkit.getConsoleSender().sendMessage(PlugMan.getInstance().getPluginUtil().unload(plugin));
-                            Bukkit.getConsoleSender().sendMessage(PlugMan.getInstance().getPluginUtil().load(plugin.getName()));
-                        });
-                    }
-                }
-            }, this.getConfig().getLong("auto-reload.check-every-seconds") * 20, this.getConfig().getLong("auto-reload.check-every-seconds") * 20);
-        }
-        
         // Start automatic update checker
         if (this.getConfig().getBoolean("auto-update.enabled", true)) {
             this.autoUpdateChecker = new AutoUpdateChecker(this);
@@ -372,6 +336,15 @@ public class PlugMan extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (this.jarWatcher != null) {
+            this.jarWatcher.stop();
+            this.saveFingerprints();
+        }
+
+        if (this.indexExecutor != null) this.indexExecutor.shutdownNow();
+        if (this.classLoaderRelease != null) this.classLoaderRelease.shutdown();
+        if (this.leakTracker != null) this.leakTracker.shutdown();
+
         // Cancel auto-update checker if running
         if (this.autoUpdateChecker != null) {
             try {
@@ -382,9 +355,220 @@ public class PlugMan extends JavaPlugin {
         }
         
         PlugMan.instance = null;
+        ServerInternals.reset();
+        HttpUtil.shutdown(this.getLogger());
         this.messageFormatter = null;
         this.ignoredPlugins = null;
         this.autoUpdateChecker = null;
+        this.pluginCatalog = null;
+        this.jarWatcher = null;
+        this.indexExecutor = null;
+        this.classLoaderRelease = null;
+        this.leakTracker = null;
+    }
+
+    /**
+     * Starts watching the plugins folder for auto (re/un)load.
+     *
+     * @param autoLoad    whether auto-load is enabled
+     * @param autoUnload  whether auto-unload is enabled
+     * @param autoReload  whether auto-reload is enabled
+     * @param pollSeconds the polling interval if the file system does not report changes
+     */
+    private synchronized void startJarWatcher(boolean autoLoad, boolean autoUnload, boolean autoReload, long pollSeconds) {
+        this.jarWatcher = new JarWatcher(this.pluginCatalog, new JarWatcher.Handler() {
+            @Override
+            public boolean isKnown(String fileName) {
+                return PlugMan.this.fileHashMap.containsKey(fileName);
+            }
+
+            @Override
+            public void onChange(JarWatcher.ChangeType type, File file) {
+                PlugMan.this.handleJarChange(type, file, autoLoad, autoUnload, autoReload);
+            }
+        }, this.getLogger(), this.getConfig().getLong("file-watcher.debounce-millis", 1000), pollSeconds * 1000, this.getConfig().getBoolean("file-watcher.force-polling", false));
+        this.jarWatcher.start();
+
+        if (this.jarWatcher.isPolling())
+            this.getLogger().info("Polling the plugins folder every " + pollSeconds + " seconds");
+    }
+
+    /**
+     * Fingerprints an indexed jar and remembers which plugin it contains.
+     *
+     * @param entry    the indexed jar
+     * @param previous the fingerprint of the last run, may be null
+     */
+    private void indexEntry(CatalogEntry entry, JarFingerprint previous) {
+        File file = entry.getFile();
+        JarFingerprint fingerprint = this.fingerprint(file, previous);
+        if (fingerprint != null) this.fileHashMap.put(file.getName(), fingerprint);
+
+        if (entry.getName() != null) this.filePluginMap.put(file.getName(), entry.getName());
+    }
+
+    /**
+     * Creates the bounded pool the plugins folder is indexed on. Idle threads time out, so it costs nothing after startup.
+     *
+     * @return the executor
+     */
+    private static ExecutorService createIndexExecutor() {
+        int threads = Math.max(1, Math.min(PlugMan.MAX_INDEX_THREADS, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "PlugManX Indexer #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Acts on a settled change in the plugins folder.
+     *
+     * @param type       the kind of change
+     * @param file       the changed jar
+     * @param autoLoad   whether auto-load is enabled
+     * @param autoUnload whether auto-unload is enabled
+     * @param autoReload whether auto-reload is enabled
+     */
+    private void handleJarChange(JarWatcher.ChangeType type, File file, boolean autoLoad, boolean autoUnload, boolean autoReload) {
+        String fileName = file.getName();
+
+        switch (type) {
+            case LOAD: {
+                if (!autoLoad) return;
+
+                JarFingerprint fingerprint = this.fingerprint(file, null);
+                if (fingerprint != null) this.fileHashMap.put(fileName, fingerprint);
+                this.saveFingerprints();
+
+                Bukkit.getScheduler().runTask(this, () -> {
+                    Bukkit.getConsoleSender().sendMessage(this.getPluginUtil().load(fileName.replace(".jar", "")));
+                });
+                break;
+            }
+            case UNLOAD: {
+                if (!autoUnload) return;
+
+                Plugin plugin = this.getLoadedPlugin(fileName);
+                if (plugin == null) {
+                    this.fileHashMap.remove(fileName);
+                    this.filePluginMap.remove(fileName);
+                    return;
+                }
+
+                if (this.getPluginUtil().isIgnored(plugin)) return;
+
+                this.fileHashMap.remove(fileName);
+                this.saveFingerprints();
+
+                Bukkit.getScheduler().runTask(this, () -> {
+                    Bukkit.getConsoleSender().sendMessage(this.getPluginUtil().unload(plugin));
+                });
+                break;
+            }
+            case RELOAD: {
+                if (!autoReload) return;
+
+                // Only hashes the jar if size, modification time or file key changed.
+                JarFingerprint previous = this.fileHashMap.get(fileName);
+                JarFingerprint fingerprint = this.fingerprint(file, previous);
+                if (fingerprint == null) return;
+
+                if (fingerprint.hasSameContent(previous)) {
+                    this.fileHashMap.put(fileName, fingerprint);
+                    return;
+                }
+
+                Plugin plugin = this.getLoadedPlugin(fileName);
+                if (plugin == null) {
+                    this.fileHashMap.remove(fileName);
+                    this.filePluginMap.remove(fileName);
+                    return;
+                }
+
+                if (this.getPluginUtil().isIgnored(plugin)) return;
+
+                this.fileHashMap.put(fileName, fingerprint);
+                this.saveFingerprints();
+
+                Bukkit.getScheduler().runTask(this, () -> {
+                    Bukkit.getConsoleSender().sendMessage(this.getPluginUtil().unload(plugin));
+                    Bukkit.getConsoleSender().sendMessage(this.getPluginUtil().load(plugin.getName()));
+                });
+                break;
+            }
+        }
+    }
+
+    private Plugin getLoadedPlugin(String fileName) {
+        String pluginName = this.filePluginMap.get(fileName);
+        return pluginName == null ? null : Bukkit.getPluginManager().getPlugin(pluginName);
+    }
+
+    private JarFingerprint fingerprint(File file, JarFingerprint previous) {
+        try {
+            return JarFingerprint.read(file, previous);
+        } catch (IOException e) {
+            this.getLogger().warning("Could not fingerprint " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the fingerprints of the last run from fingerprints.yml.
+     *
+     * @return the fingerprints by file name
+     */
+    private Map<String, JarFingerprint> loadFingerprints() {
+        Map<String, JarFingerprint> fingerprints = new HashMap<>();
+
+        File file = new File(this.getDataFolder(), "fingerprints.yml");
+        if (!file.exists()) return fingerprints;
+
+        YamlConfiguration cfg = new YamlConfiguration();
+        // File names contain dots
+        cfg.options().pathSeparator('/');
+        try {
+            cfg.load(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            this.getLogger().warning("Could not read fingerprints.yml, all jars will be hashed again: " + e.getMessage());
+            return fingerprints;
+        }
+
+        for (String fileName : cfg.getKeys(false)) {
+            ConfigurationSection section = cfg.getConfigurationSection(fileName);
+            if (section == null) continue;
+
+            fingerprints.put(fileName, new JarFingerprint(section.getLong("size"), section.getLong("last-modified"), section.getString("file-key", ""), section.getLong("checksum")));
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Writes the current fingerprints to fingerprints.yml.
+     */
+    private synchronized void saveFingerprints() {
+        YamlConfiguration cfg = new YamlConfiguration();
+        cfg.options().pathSeparator('/');
+
+        for (Map.Entry<String, JarFingerprint> entry : this.fileHashMap.entrySet()) {
+            ConfigurationSection section = cfg.createSection(entry.getKey());
+            section.set("size", entry.getValue().getSize());
+            section.set("last-modified", entry.getValue().getLastModified());
+            section.set("file-key", entry.getValue().getFileKey());
+            section.set("checksum", entry.getValue().getChecksum());
+        }
+
+        try {
+            cfg.save(new File(this.getDataFolder(), "fingerprints.yml"));
+        } catch (IOException e) {
+            this.getLogger().warning("Could not save fingerprints.yml: " + e.getMessage());
+        }
     }
 
     /**
@@ -492,6 +676,8 @@ public class PlugMan extends JavaPlugin {
                 return true;
             }
         });
+
+        this.learnedMappings = new LearnedMappings(new File(this.getDataFolder(), "learnedmappings.yml"));
     }
 
     /**
@@ -525,7 +711,61 @@ public class PlugMan extends JavaPlugin {
         return this.resourceMap;
     }
 
-    public HashMap<String, String> getFilePluginMap() {
+    /**
+     * Returns the resource IDs found by searching.
+     *
+     * @return the learned mappings
+     */
+    public LearnedMappings getLearnedMappings() {
+        return this.learnedMappings;
+    }
+
+    /**
+     * Returns the registry of update sources, other plugins may register their own.
+     *
+     * @return the update sources
+     */
+    public UpdateSources getUpdateSources() {
+        return this.updateSources;
+    }
+
+    /**
+     * Returns the bounded pool jars are read on.
+     *
+     * @return the executor
+     */
+    public ExecutorService getIndexExecutor() {
+        return this.indexExecutor;
+    }
+
+    /**
+     * Returns what releases the class loaders of unloaded plugins.
+     *
+     * @return the class loader release
+     */
+    public ClassLoaderRelease getClassLoaderRelease() {
+        return this.classLoaderRelease;
+    }
+
+    /**
+     * Returns the tracker of the class loaders of unloaded plugins.
+     *
+     * @return the leak tracker, or null if leak detection is disabled
+     */
+    public LeakTracker getLeakTracker() {
+        return this.leakTracker;
+    }
+
+    public Map<String, String> getFilePluginMap() {
         return this.filePluginMap;
     }
+
+    /**
+     * Returns the index of the jars in the plugins folder.
+     *
+     * @return the plugin catalog
+     */
+    public PluginCatalog getPluginCatalog() {
+        return this.pluginCatalog;
+    }
 }
@@ -89,6 +89,18 @@ public class PlugManCommandHandler implements CommandExecutor {
             case "check":
                 cmd = new CheckCommand(sender);
                 break;
+            case "mappings":
+                cmd = new MappingsCommand(sender);
+                break;
+            case "cancel":
+                cmd = new CancelCommand(sender);
+                break;
+            case "leaks":
+                cmd = new LeaksCommand(sender);
+                break;
+            case "stats":
+                cmd = new StatsCommand(sender);
+                break;
         }
 
         cmd.execute(sender, command, label, args);
@@ -26,23 +26,20 @@ package com.rylinaux.plugman;
  * #L%
  */
 
+import com.rylinaux.plugman.catalog.CatalogEntry;
+import com.rylinaux.plugman.catalog.PluginCatalog;
+import com.rylinaux.plugman.util.LearnedMappings;
+import com.rylinaux.plugman.util.ThreadUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
-import org.bukkit.plugin.InvalidDescriptionException;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.util.StringUtil;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 
 /**
@@ -55,7 +52,7 @@ public class PlugManTabCompleter implements TabCompleter {
     /**
      * Valid command names.
      */
-    private static final String[] COMMANDS = {"check", "disable", "dump", "enable", "help", "info", "list", "load", "lookup", "reload", "restart", "unload", "usage"};
+    private static final String[] COMMANDS = {"cancel", "check", "disable", "dump", "enable", "help", "info", "leaks", "list", "load", "lookup", "mappings", "reload", "restart", "stats", "unload", "usage"};
 
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
@@ -74,54 +71,22 @@ public class PlugManTabCompleter implements TabCompleter {
                 List<String> files = new ArrayList<>();
                 String partialPlugin = args[1];
 
-                for (File pluginFile : new File("plugins").listFiles())
-                    try {
-                        if (pluginFile.isDirectory())
-                            continue;
-
-                        if (!pluginFile.getName().toLowerCase().endsWith(".jar"))
-                            if (!new File("plugins", pluginFile.getName() + ".jar").exists())
-                                continue;
-
-                        JarFile jarFile = null;
-                        try {
-                            jarFile = new JarFile(pluginFile);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                            continue;
-                        }
-
-                        if (jarFile.getEntry("plugin.yml") == null)
-                            continue;
-
-                        InputStream stream;
-                        try {
-                            stream = jarFile.getInputStream(jarFile.getEntry("plugin.yml"));
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                            continue;
-                        }
-
-                        if (stream == null)
-                            continue;
-
-                        PluginDescriptionFile descriptionFile = null;
-                        try {
-                            descriptionFile = new PluginDescriptionFile(stream);
-                        } catch (InvalidDescriptionException e) {
-                            e.printStackTrace();
-                            continue;
-                        }
-
-                        files.add(pluginFile.getName().substring(0, pluginFile.getName().length() - ".jar".length()));
-
-                        for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-                            if (plugin.getName().equalsIgnoreCase(descriptionFile.getName()))
-                                files.remove(pluginFile.getName().substring(0, pluginFile.getName().length() - ".jar".length()));
-                    } catch (Exception ignored) {
-                    }
+                PluginCatalog catalog = PlugMan.getInstance().getPluginCatalog();
+
+                // Serve the current index and let it catch up with the plugins folder in the background.
+                for (CatalogEntry entry : catalog.getEntries()) {
+                    if (entry.getName() == null || Bukkit.getPluginManager().getPlugin(entry.getName()) != null)
+                        continue;
+
+                    String fileName = entry.getFile().getName();
+                    files.add(fileName.substring(0, fileName.length() - ".jar".length()));
+                }
+
+                catalog.refreshAsync(ThreadUtil::async);
 
                 StringUtil.copyPartialMatches(partialPlugin, files, completions);
+            } else if (args[0].equalsIgnoreCase("mappings")) {
+                StringUtil.copyPartialMatches(args[1], Arrays.asList("list", "promote", "forget"), completions);
             } else if (args[0].equalsIgnoreCase("lookup")) {
                 String partialCommand = args[1];
                 List<String> commands = PlugMan.getInstance().getPluginUtil().getKnownCommands().keySet().stream().filter(s -> !s.toLowerCase().contains(":")).collect(Collectors.toList());
@@ -141,6 +106,14 @@ public class PlugManTabCompleter implements TabCompleter {
                 StringUtil.copyPartialMatches(partialPlugin, plugins, completions);
             }
 
+            if (args.length == 3 && args[0].equalsIgnoreCase("mappings") && !args[1].equalsIgnoreCase("list")) {
+                List<String> names = new ArrayList<>();
+                for (LearnedMappings.Mapping mapping : PlugMan.getInstance().getLearnedMappings().getAll())
+                    names.add(mapping.getName());
+                if (args[1].equalsIgnoreCase("promote")) names.add("all");
+                StringUtil.copyPartialMatches(args[2], names, completions);
+            }
+
             Collections.sort(completions);
 
             return completions;
@@ -0,0 +1,48 @@
+package com.rylinaux.plugman.api;
+
+import com.rylinaux.plugman.stats.OperationTiming;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called after PlugMan loaded, unloaded, enabled, disabled or reloaded a plugin, with how long every phase took.
+ * The event is asynchronous if the operation did not run on the main thread.
+ */
+public class PluginOperationEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * The timing of the operation.
+     */
+    private final OperationTiming timing;
+
+    /**
+     * Construct the event.
+     *
+     * @param timing the timing of the operation
+     * @param async  whether the event is called off the main thread
+     */
+    public PluginOperationEvent(OperationTiming timing, boolean async) {
+        super(async);
+        this.timing = timing;
+    }
+
+    /**
+     * Get the timing of the operation.
+     *
+     * @return the timing, with the operation, the plugin name and the phases
+     */
+    public OperationTiming getTiming() {
+        return this.timing;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return PluginOperationEvent.HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return PluginOperationEvent.HANDLERS;
+    }
+}
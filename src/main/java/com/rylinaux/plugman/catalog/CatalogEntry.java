@@ -0,0 +1,100 @@
+package com.rylinaux.plugman.catalog;
+
+import org.bukkit.plugin.PluginDescriptionFile;
+
+import java.io.File;
+
+/**
+ * A single jar in the plugins folder together with the description parsed from it.
+ */
+public class CatalogEntry {
+
+    /**
+     * The jar file.
+     */
+    private final File file;
+
+    /**
+     * The size of the jar when it was indexed.
+     */
+    private final long size;
+
+    /**
+     * The modification time of the jar when it was indexed.
+     */
+    private final long lastModified;
+
+    /**
+     * The parsed plugin.yml, or null if the jar does not contain a valid one.
+     */
+    private final PluginDescriptionFile description;
+
+    /**
+     * Construct the object.
+     *
+     * @param file         the jar file
+     * @param size         the size of the jar
+     * @param lastModified the modification time of the jar
+     * @param description  the parsed description, may be null
+     */
+    public CatalogEntry(File file, long size, long lastModified, PluginDescriptionFile description) {
+        this.file = file;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.description = description;
+    }
+
+    /**
+     * Get the jar file.
+     *
+     * @return the jar file
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Get the size of the jar when it was indexed.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the modification time of the jar when it was indexed.
+     *
+     * @return the modification time
+     */
+    public long getLastModified() {
+        return this.lastModified;
+    }
+
+    /**
+     * Get the parsed plugin.yml.
+     *
+     * @return the description, or null if the jar is not a plugin
+     */
+    public PluginDescriptionFile getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Get the name of the plugin inside the jar.
+     *
+     * @return the plugin name, or null if the jar is not a plugin
+     */
+    public String getName() {
+        return this.description == null ? null : this.description.getName();
+    }
+
+    /**
+     * Checks whether the jar still has the size and modification time it was indexed with.
+     *
+     * @return whether the entry is still up-to-date
+     */
+    public boolean isCurrent() {
+        return this.file.isFile() && this.file.length() == this.size && this.file.lastModified() == this.lastModified;
+    }
+}
@@ -0,0 +1,147 @@
+package com.rylinaux.plugman.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Identifies the content of a jar without keeping the jar open.
+ * <p>
+ * Change detection is staged: size, modification time and file key are compared first and the content is only
+ * checksummed if one of them differs.
+ */
+public class JarFingerprint {
+
+    /**
+     * Mapped files cannot be deleted or replaced on Windows until the mapping is garbage collected.
+     */
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long size;
+    private final long lastModified;
+    private final String fileKey;
+    private final long checksum;
+
+    /**
+     * Construct the object.
+     *
+     * @param size         the size of the jar
+     * @param lastModified the modification time of the jar
+     * @param fileKey      the file key of the jar, empty if the file system has none
+     * @param checksum     the CRC32 of the content
+     */
+    public JarFingerprint(long size, long lastModified, String fileKey, long checksum) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.fileKey = fileKey;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Reads the fingerprint of a jar, reusing the previous one if the file attributes did not change.
+     *
+     * @param file     the jar
+     * @param previous the previous fingerprint, may be null
+     * @return the current fingerprint
+     * @throws IOException if the jar cannot be read
+     */
+    public static JarFingerprint read(File file, JarFingerprint previous) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String fileKey = attributes.fileKey() == null ? "" : attributes.fileKey().toString();
+
+        if (previous != null && previous.size == size && previous.lastModified == lastModified && previous.fileKey.equals(fileKey))
+            return previous;
+
+        return new JarFingerprint(size, lastModified, fileKey, JarFingerprint.checksum(file));
+    }
+
+    /**
+     * Computes the CRC32 of a file.
+     *
+     * @param file the file
+     * @return the checksum
+     * @throws IOException if the file cannot be read
+     */
+    public static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (JarFingerprint.MAP_FILES) {
+                long size = channel.size();
+                for (long position = 0; position < size; ) {
+                    long length = Math.min(Integer.MAX_VALUE, size - position);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    crc.update(buffer);
+                    position += length;
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(JarFingerprint.BUFFER_SIZE);
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    crc.update(buffer);
+                    buffer.clear();
+                }
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * Checks whether another fingerprint describes the same content.
+     *
+     * @param other the other fingerprint, may be null
+     * @return whether the content is the same
+     */
+    public boolean hasSameContent(JarFingerprint other) {
+        return other != null && this.size == other.size && this.checksum == other.checksum;
+    }
+
+    /**
+     * Get the size of the jar.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the modification time of the jar.
+     *
+     * @return the modification time
+     */
+    public long getLastModified() {
+        return this.lastModified;
+    }
+
+    /**
+     * Get the file key of the jar.
+     *
+     * @return the file key, empty if the file system has none
+     */
+    public String getFileKey() {
+        return this.fileKey;
+    }
+
+    /**
+     * Get the CRC32 of the content.
+     *
+     * @return the checksum
+     */
+    public long getChecksum() {
+        return this.checksum;
+    }
+}
@@ -0,0 +1,283 @@
+package com.rylinaux.plugman.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the plugins folder for added, changed and removed jars.
+ * <p>
+ * Changes are taken from a {@link WatchService}. If the file system does not deliver events, the folder is polled
+ * instead. Either way a jar has to stay unchanged for the debounce time and has to be readable before an event is
+ * emitted, so files that are still being copied are not picked up halfway.
+ */
+public class JarWatcher implements Runnable {
+
+    /**
+     * How often pending changes are checked, in milliseconds.
+     */
+    private static final long TICK_MILLIS = 250;
+
+    /**
+     * How many times an unreadable jar is retried before it is dropped.
+     */
+    private static final int MAX_ATTEMPTS = 20;
+
+    /**
+     * The kind of change to a jar.
+     */
+    public enum ChangeType {
+        LOAD, UNLOAD, RELOAD
+    }
+
+    /**
+     * Receives the changes detected by the watcher.
+     */
+    public interface Handler {
+
+        /**
+         * Whether a jar is already known, i.e. was present and handled before.
+         *
+         * @param fileName the file name of the jar
+         * @return whether the jar is known
+         */
+        boolean isKnown(String fileName);
+
+        /**
+         * Called from the watcher thread once a change has settled.
+         *
+         * @param type the kind of change
+         * @param file the jar
+         */
+        void onChange(ChangeType type, File file);
+    }
+
+    private final File directory;
+    private final PluginCatalog catalog;
+    private final Handler handler;
+    private final Logger logger;
+    private final long debounceMillis;
+    private final long pollMillis;
+    private final boolean forcePolling;
+
+    /**
+     * The last seen size and modification time of every jar, used for polling.
+     */
+    private final Map<String, long[]> snapshot = new HashMap<>();
+
+    /**
+     * Changes that have not settled yet, by file name.
+     */
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    private volatile boolean running = false;
+    private volatile WatchService watchService = null;
+    private Thread thread = null;
+
+    /**
+     * Construct the object.
+     *
+     * @param catalog        the catalog of the folder to watch
+     * @param handler        the receiver of the changes
+     * @param logger         the logger
+     * @param debounceMillis how long a jar has to stay unchanged before an event is emitted
+     * @param pollMillis     the polling interval if no events are delivered
+     * @param forcePolling   whether to poll even if events are available
+     */
+    public JarWatcher(PluginCatalog catalog, Handler handler, Logger logger, long debounceMillis, long pollMillis, boolean forcePolling) {
+        this.directory = catalog.getDirectory();
+        this.catalog = catalog;
+        this.handler = handler;
+        this.logger = logger;
+        this.debounceMillis = debounceMillis;
+        this.pollMillis = pollMillis;
+        this.forcePolling = forcePolling;
+    }
+
+    /**
+     * Starts watching on a new daemon thread.
+     */
+    public void start() {
+        for (CatalogEntry entry : this.catalog.getEntries())
+            this.snapshot.put(entry.getFile().getName(), new long[]{entry.getSize(), entry.getLastModified()});
+
+        if (!this.forcePolling) try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            this.directory.toPath().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            this.logger.warning("File system events are unavailable, polling the plugins folder instead: " + e.getMessage());
+            this.closeWatchService();
+        }
+
+        this.running = true;
+        this.thread = new Thread(this, "PlugManX File Watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void stop() {
+        this.running = false;
+        this.closeWatchService();
+        if (this.thread != null) this.thread.interrupt();
+    }
+
+    /**
+     * Whether the watcher polls instead of receiving file system events.
+     *
+     * @return whether the watcher is polling
+     */
+    public boolean isPolling() {
+        return this.watchService == null;
+    }
+
+    @Override
+    public void run() {
+        long nextPoll = System.currentTimeMillis() + this.pollMillis;
+
+        while (this.running) try {
+            WatchService service = this.watchService;
+
+            if (service != null) {
+                WatchKey key = service.poll(JarWatcher.TICK_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            this.scan();
+                            continue;
+                        }
+
+                        String fileName = event.context().toString();
+                        if (fileName.toLowerCase(Locale.ROOT).endsWith(".jar")) this.mark(fileName);
+                    }
+
+                    if (!key.reset()) {
+                        this.logger.warning("The plugins folder can no longer be watched, falling back to polling");
+                        this.closeWatchService();
+                    }
+                }
+            } else {
+                Thread.sleep(JarWatcher.TICK_MILLIS);
+
+                if (System.currentTimeMillis() >= nextPoll) {
+                    this.scan();
+                    nextPoll = System.currentTimeMillis() + this.pollMillis;
+                }
+            }
+
+            this.flush();
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            if (!this.running) return;
+        } catch (Exception e) {
+            this.logger.log(Level.SEVERE, "Error while watching the plugins folder", e);
+        }
+    }
+
+    /**
+     * Compares the folder against the last snapshot and marks every difference as pending.
+     */
+    private void scan() {
+        File[] files = this.directory.listFiles();
+        if (files == null) return;
+
+        Set<String> present = new HashSet<>();
+
+        for (File file : files) {
+            if (!PluginCatalog.isJar(file)) continue;
+            present.add(file.getName());
+
+            long[] previous = this.snapshot.get(file.getName());
+            if (previous == null || previous[0] != file.length() || previous[1] != file.lastModified())
+                this.mark(file.getName());
+        }
+
+        for (String fileName : this.snapshot.keySet())
+            if (!present.contains(fileName)) this.mark(fileName);
+    }
+
+    private void mark(String fileName) {
+        File file = new File(this.directory, fileName);
+        this.pending.put(fileName, new Pending(System.currentTimeMillis(), file.isFile() ? file.length() : -1));
+    }
+
+    /**
+     * Emits every pending change that has settled.
+     */
+    private void flush() {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<Map.Entry<String, Pending>> it = this.pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Pending> entry = it.next();
+            Pending change = entry.getValue();
+
+            if (now - change.lastEvent < this.debounceMillis) continue;
+
+            File file = new File(this.directory, entry.getKey());
+
+            if (!file.isFile()) {
+                it.remove();
+                this.snapshot.remove(entry.getKey());
+                this.catalog.refresh(file);
+
+                if (this.handler.isKnown(entry.getKey())) this.handler.onChange(ChangeType.UNLOAD, file);
+                continue;
+            }
+
+            // Still being written, wait for another debounce period.
+            if (file.length() != change.size || !JarWatcher.isReadable(file)) {
+                if (++change.attempts >= JarWatcher.MAX_ATTEMPTS) {
+                    this.logger.warning("Ignoring " + file.getName() + ", it never became a readable jar");
+                    it.remove();
+                    continue;
+                }
+                change.lastEvent = now;
+                change.size = file.length();
+                continue;
+            }
+
+            it.remove();
+            this.snapshot.put(entry.getKey(), new long[]{file.length(), file.lastModified()});
+            this.catalog.refresh(file);
+
+            this.handler.onChange(this.handler.isKnown(entry.getKey()) ? ChangeType.RELOAD : ChangeType.LOAD, file);
+        }
+    }
+
+    private void closeWatchService() {
+        if (this.watchService == null) return;
+        try {
+            this.watchService.close();
+        } catch (IOException ignored) {
+        }
+        this.watchService = null;
+    }
+
+    private static boolean isReadable(File file) {
+        try (JarFile ignored = new JarFile(file)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A change that has not settled yet.
+     */
+    private static class Pending {
+        private long lastEvent;
+        private long size;
+        private int attempts = 0;
+
+        private Pending(long lastEvent, long size) {
+            this.lastEvent = lastEvent;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.rylinaux.plugman.catalog;
+
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipException;
+
+/**
+ * Index of the jars in the plugins folder.
+ * <p>
+ * Every jar is opened at most once per change: entries are keyed by file name and only re-parsed
+ * when the size or modification time of the jar differs from the indexed one.
+ */
+public class PluginCatalog {
+
+    /**
+     * The folder that is indexed.
+     */
+    private final File directory;
+
+    /**
+     * The logger to report broken jars to.
+     */
+    private final Logger logger;
+
+    /**
+     * Entries by jar file name.
+     */
+    private final Map<String, CatalogEntry> byFile = new ConcurrentHashMap<>();
+
+    /**
+     * Entries by lower-cased plugin name.
+     */
+    private final Map<String, CatalogEntry> byName = new ConcurrentHashMap<>();
+
+    /**
+     * Whether an asynchronous refresh is currently queued or running.
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    /**
+     * Completed once the initial index has been built.
+     */
+    private final CompletableFuture<Void> indexed = new CompletableFuture<>();
+
+    /**
+     * Construct the object.
+     *
+     * @param directory the folder to index
+     * @param logger    the logger to report broken jars to
+     */
+    public PluginCatalog(File directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+    }
+
+    /**
+     * Get the folder that is indexed.
+     *
+     * @return the folder
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Builds the initial index, parsing the jars in parallel.
+     *
+     * @param executor the bounded executor to parse the jars on
+     * @return a future that completes once every jar has been indexed
+     */
+    public CompletableFuture<Void> index(Executor executor) {
+        File[] files = this.directory.listFiles();
+        if (files == null) files = new File[0];
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (File file : files)
+            if (PluginCatalog.isJar(file)) futures.add(CompletableFuture.runAsync(() -> this.refresh(file), executor));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((result, throwable) -> {
+            if (throwable != null) this.logger.log(Level.SEVERE, "Could not index the plugins folder", throwable);
+            this.indexed.complete(null);
+        });
+
+        return this.indexed;
+    }
+
+    /**
+     * Whether the initial index has been built.
+     *
+     * @return whether all jars have been indexed
+     */
+    public boolean isIndexed() {
+        return this.indexed.isDone();
+    }
+
+    /**
+     * Brings the whole catalog up-to-date.
+     * Only jars that were added or changed since the last refresh are opened.
+     */
+    public void refresh() {
+        File[] files = this.directory.listFiles();
+        if (files == null) return;
+
+        Set<String> present = new HashSet<>();
+
+        for (File file : files) {
+            if (!PluginCatalog.isJar(file)) continue;
+            present.add(file.getName());
+            this.refresh(file);
+        }
+
+        synchronized (this) {
+            for (String fileName : new ArrayList<>(this.byFile.keySet()))
+                if (!present.contains(fileName)) this.remove(fileName);
+        }
+    }
+
+    /**
+     * Brings the catalog up-to-date in the background, unless a refresh is already in progress.
+     *
+     * @param executor the executor to run the refresh on
+     */
+    public void refreshAsync(Executor executor) {
+        if (!this.refreshing.compareAndSet(false, true)) return;
+
+        executor.execute(() -> {
+            try {
+                this.refresh();
+            } finally {
+                this.refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Brings a single jar up-to-date.
+     *
+     * @param file the jar
+     * @return the entry of the jar, or null if the file is gone
+     */
+    public CatalogEntry refresh(File file) {
+        if (!file.isFile()) {
+            synchronized (this) {
+                this.remove(file.getName());
+            }
+            return null;
+        }
+
+        CatalogEntry entry = this.byFile.get(file.getName());
+        if (entry != null && entry.isCurrent()) return entry;
+
+        // Parse outside of the lock so jars can be indexed in parallel.
+        entry = new CatalogEntry(file, file.length(), file.lastModified(), this.readDescription(file));
+        synchronized (this) {
+            this.put(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Get the entry of a jar.
+     *
+     * @param fileName the file name, including ".jar"
+     * @return the entry, or null if the jar is not indexed
+     */
+    public CatalogEntry getByFile(String fileName) {
+        return this.byFile.get(fileName);
+    }
+
+    /**
+     * Get the entry of a plugin.
+     *
+     * @param name the plugin name, case-insensitive
+     * @return the entry, or null if no indexed jar contains that plugin
+     */
+    public CatalogEntry getByName(String name) {
+        return this.byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Get all indexed jars.
+     *
+     * @return an unmodifiable view of the entries
+     */
+    public Collection<CatalogEntry> getEntries() {
+        return Collections.unmodifiableCollection(this.byFile.values());
+    }
+
+    /**
+     * Finds the jar for a plugin, first by file name and then by the name in its plugin.yml.
+     * The folder is only rescanned if the name is not indexed yet. While the initial index is still being built,
+     * only the jar matching the file name is looked at; callers should check {@link #isIndexed()} on a miss.
+     *
+     * @param name the file name without ".jar" or the plugin name
+     * @return the jar, or null if it cannot be found
+     */
+    public File findPluginFile(String name) {
+        File direct = new File(this.directory, name + ".jar");
+        if (direct.isFile()) {
+            this.refresh(direct);
+            return direct;
+        }
+
+        CatalogEntry entry = this.getByName(name);
+        if (entry != null && entry.isCurrent()) return entry.getFile();
+
+        if (!this.isIndexed()) return null;
+
+        this.refresh();
+
+        entry = this.getByName(name);
+        return entry == null ? null : entry.getFile();
+    }
+
+    private void put(CatalogEntry entry) {
+        CatalogEntry previous = this.byFile.put(entry.getFile().getName(), entry);
+        if (previous != null && previous.getName() != null)
+            this.byName.remove(previous.getName().toLowerCase(Locale.ROOT), previous);
+
+        if (entry.getName() != null) this.byName.put(entry.getName().toLowerCase(Locale.ROOT), entry);
+    }
+
+    private void remove(String fileName) {
+        CatalogEntry previous = this.byFile.remove(fileName);
+        if (previous != null && previous.getName() != null)
+            this.byName.remove(previous.getName().toLowerCase(Locale.ROOT), previous);
+    }
+
+    private PluginDescriptionFile readDescription(File file) {
+        try (JarFile jar = new JarFile(file)) {
+            JarEntry entry = jar.getJarEntry("plugin.yml");
+            if (entry == null) return null;
+
+            try (InputStream stream = jar.getInputStream(entry)) {
+                return new PluginDescriptionFile(stream);
+            }
+        } catch (ZipException e) {
+            this.logger.warning("Possible broken plugin detected: " + file.getName());
+        } catch (IOException | InvalidDescriptionException | YAMLException e) {
+            this.logger.log(Level.WARNING, "Could not read plugin.yml of " + file.getName(), e);
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a file looks like a plugin jar.
+     *
+     * @param file the file
+     * @return whether the file is a jar
+     */
+    public static boolean isJar(File file) {
+        return file.isFile() && file.getName().toLowerCase(Locale.ROOT).endsWith(".jar");
+    }
+}
@@ -0,0 +1,70 @@
+package com.rylinaux.plugman.command;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.util.SlicedTask;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Command that stops the running bulk operation, e.g. a reload of all plugins.
+ */
+public class CancelCommand extends AbstractCommand {
+
+    /**
+     * The name of the command.
+     */
+    public static final String NAME = "Cancel";
+
+    /**
+     * The description of the command.
+     */
+    public static final String DESCRIPTION = "Cancel the running bulk operation.";
+
+    /**
+     * The main permission of the command.
+     */
+    public static final String PERMISSION = "plugman.cancel";
+
+    /**
+     * The proper usage of the command.
+     */
+    public static final String USAGE = "/plugman cancel";
+
+    /**
+     * The sub permissions of the command.
+     */
+    public static final String[] SUB_PERMISSIONS = {""};
+
+    /**
+     * Construct out object.
+     *
+     * @param sender the command sender
+     */
+    public CancelCommand(CommandSender sender) {
+        super(sender, NAME, DESCRIPTION, PERMISSION, SUB_PERMISSIONS, USAGE);
+    }
+
+    /**
+     * Execute the command.
+     *
+     * @param sender  the sender of the command
+     * @param command the command being done
+     * @param label   the name of the command
+     * @param args    the arguments supplied
+     */
+    @Override
+    public void execute(CommandSender sender, Command command, String label, String[] args) {
+        if (!this.hasPermission()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
+            return;
+        }
+
+        SlicedTask task = SlicedTask.getCurrent();
+        if (task == null) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("bulk.none"));
+            return;
+        }
+
+        task.abort(sender);
+    }
+}
@@ -31,15 +31,21 @@ import com.rylinaux.plugman.pojo.UpdateResult;
 import com.rylinaux.plugman.util.FlagUtil;
 import com.rylinaux.plugman.util.StringUtil;
 import com.rylinaux.plugman.util.ThreadUtil;
+import com.rylinaux.plugman.util.UpdateChecker;
 import com.rylinaux.plugman.util.UpdateUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 /**
  * Command that checks if a plugin is up-to-date.
@@ -120,16 +126,29 @@ public class CheckCommand extends AbstractCommand {
 
             sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.header"));
 
-            ThreadUtil.async(() -> {
-                Map<String, UpdateResult> results = UpdateUtil.checkUpToDate();
+            List<String> pluginNames = new ArrayList<>();
+            for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
+                pluginNames.add(plugin.getName());
 
+            int total = pluginNames.size();
+            AtomicInteger checked = new AtomicInteger();
+
+            // Results are sent as soon as they come in, the summary follows once every plugin was checked.
+            UpdateChecker.fromConfig().checkAll(pluginNames, (name, result) -> {
+                int count = checked.incrementAndGet();
+                if (toFile) return;
+
+                String message = this.formatResult(count, total, name, result);
+                ThreadUtil.sync(() -> sender.sendMessage(message));
+            }).thenAccept(results -> {
                 final StringBuilder upToDate = new StringBuilder(), outOfDate = new StringBuilder(), unknown = new StringBuilder();
 
                 for (Map.Entry<String, UpdateResult> entry : results.entrySet()) {
 
                     UpdateResult.ResultType result = entry.getValue().getType();
 
-                    String currentVersion = Bukkit.getPluginManager().getPlugin(entry.getKey()).getDescription().getVersion();
+                    // The plugin may have been unloaded while it was checked.
+                    String currentVersion = PlugMan.getInstance().getPluginUtil().getPluginVersion(entry.getKey());
 
                     if (result == UpdateResult.ResultType.UP_TO_DATE)
                         upToDate.append(entry.getKey()).append("(").append(currentVersion).append(") ");
@@ -170,6 +189,10 @@ public class CheckCommand extends AbstractCommand {
                 }
 
                 sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.file-done", outFile.getPath()));
+            }).exceptionally(throwable -> {
+                PlugMan.getInstance().getLogger().log(Level.WARNING, "Checking all plugins for updates failed", throwable);
+                ThreadUtil.sync(() -> sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.failed", String.valueOf(throwable.getMessage()))));
+                return null;
             });
 
             return;
@@ -202,4 +225,26 @@ public class CheckCommand extends AbstractCommand {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Formats a single result of checking all plugins.
+     *
+     * @param count  how many plugins were checked so far
+     * @param total  how many plugins are checked
+     * @param name   the name of the plugin
+     * @param result the result
+     * @return the message
+     */
+    private String formatResult(int count, int total, String name, UpdateResult result) {
+        String currentVersion = PlugMan.getInstance().getPluginUtil().getPluginVersion(name);
+
+        switch (result.getType()) {
+            case UP_TO_DATE:
+                return PlugMan.getInstance().getMessageFormatter().format("check.result-up-to-date", count, total, name, currentVersion);
+            case OUT_OF_DATE:
+                return PlugMan.getInstance().getMessageFormatter().format("check.result-out-of-date", count, total, name, currentVersion, result.getLatestVersion());
+            default:
+                return PlugMan.getInstance().getMessageFormatter().format("check.result-unknown", count, total, name, currentVersion);
+        }
+    }
+
+}
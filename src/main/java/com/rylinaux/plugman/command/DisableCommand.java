@@ -27,10 +27,14 @@ package com.rylinaux.plugman.command;
  */
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pluginmanager.PluginManager;
+import com.rylinaux.plugman.util.SlicedTask;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
+import java.util.List;
+
 /**
  * Command that disables plugin(s).
  *
@@ -95,8 +99,18 @@ public class DisableCommand extends AbstractCommand {
 
         if (args[1].equalsIgnoreCase("all") || args[1].equalsIgnoreCase("*")) {
             if (this.hasPermission("all")) {
-                PlugMan.getInstance().getPluginUtil().disableAll();
-                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("disable.all"));
+                PluginManager pluginUtil = PlugMan.getInstance().getPluginUtil();
+                SlicedTask task = new SlicedTask("/plugman disable all", sender, () -> sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("disable.all")));
+
+                // Dependents are disabled before their dependencies.
+                List<List<Plugin>> groups = pluginUtil.getBulkTargets();
+                for (int i = groups.size() - 1; i >= 0; i--)
+                    for (int j = groups.get(i).size() - 1; j >= 0; j--) {
+                        Plugin plugin = groups.get(i).get(j);
+                        task.add(plugin.getName(), () -> pluginUtil.disable(plugin));
+                    }
+
+                task.start();
             } else sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
             return;
         }
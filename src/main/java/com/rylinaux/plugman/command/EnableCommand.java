@@ -27,10 +27,14 @@ package com.rylinaux.plugman.command;
  */
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pluginmanager.PluginManager;
+import com.rylinaux.plugman.util.SlicedTask;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
+import java.util.List;
+
 /**
  * Command that enables plugin(s).
  *
@@ -99,8 +103,14 @@ public class EnableCommand extends AbstractCommand {
                 return;
             }
 
-            PlugMan.getInstance().getPluginUtil().enableAll();
-            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("enable.all"));
+            PluginManager pluginUtil = PlugMan.getInstance().getPluginUtil();
+            SlicedTask task = new SlicedTask("/plugman enable all", sender, () -> sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("enable.all")));
+
+            for (List<Plugin> group : pluginUtil.getBulkTargets())
+                for (Plugin plugin : group)
+                    task.add(plugin.getName(), () -> pluginUtil.enable(plugin));
+
+            task.start();
             return;
         }
 
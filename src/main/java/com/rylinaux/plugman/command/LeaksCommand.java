@@ -0,0 +1,108 @@
+package com.rylinaux.plugman.command;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.leak.LeakAnalyzer;
+import com.rylinaux.plugman.leak.LeakTracker;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command that lists unloaded plugins whose class loader was not collected and shows what still references it.
+ */
+public class LeaksCommand extends AbstractCommand {
+
+    /**
+     * The name of the command.
+     */
+    public static final String NAME = "Leaks";
+
+    /**
+     * The description of the command.
+     */
+    public static final String DESCRIPTION = "List unloaded plugins that were not collected.";
+
+    /**
+     * The main permission of the command.
+     */
+    public static final String PERMISSION = "plugman.leaks";
+
+    /**
+     * The proper usage of the command.
+     */
+    public static final String USAGE = "/plugman leaks [plugin]";
+
+    /**
+     * The sub permissions of the command.
+     */
+    public static final String[] SUB_PERMISSIONS = {""};
+
+    /**
+     * Construct out object.
+     *
+     * @param sender the command sender
+     */
+    public LeaksCommand(CommandSender sender) {
+        super(sender, NAME, DESCRIPTION, PERMISSION, SUB_PERMISSIONS, USAGE);
+    }
+
+    /**
+     * Execute the command.
+     *
+     * @param sender  the sender of the command
+     * @param command the command being done
+     * @param label   the name of the command
+     * @param args    the arguments supplied
+     */
+    @Override
+    public void execute(CommandSender sender, Command command, String label, String[] args) {
+        if (!this.hasPermission()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
+            return;
+        }
+
+        LeakTracker tracker = PlugMan.getInstance().getLeakTracker();
+        if (tracker == null) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.disabled"));
+            return;
+        }
+
+        if (args.length < 2) {
+            List<LeakTracker.Tracked> alive = tracker.getAlive();
+            if (alive.isEmpty()) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.none"));
+                return;
+            }
+
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.header", alive.size()));
+            for (LeakTracker.Tracked entry : alive)
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.entry", entry.getPluginName(),
+                        TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - entry.getUnloadedAt()), entry.getSurvivedCollections()));
+            return;
+        }
+
+        List<LeakTracker.Tracked> alive = tracker.getAlive(args[1]);
+        if (alive.isEmpty()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.not-tracked", args[1]));
+            return;
+        }
+
+        for (LeakTracker.Tracked entry : alive) {
+            ClassLoader classLoader = entry.getClassLoader();
+            if (classLoader == null) continue;
+
+            List<String> roots = new LeakAnalyzer(classLoader).analyze();
+
+            if (roots.isEmpty()) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.no-roots", entry.getPluginName()));
+                continue;
+            }
+
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.roots", entry.getPluginName(), entry.getSurvivedCollections()));
+            for (String root : roots)
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("leaks.root", root));
+        }
+    }
+}
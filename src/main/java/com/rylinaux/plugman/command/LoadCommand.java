@@ -28,10 +28,15 @@ package com.rylinaux.plugman.command;
 
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.util.StringUtil;
+import com.rylinaux.plugman.util.ThreadUtil;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+
 /**
  * Command that loads plugin(s).
  *
@@ -47,7 +52,7 @@ public class LoadCommand extends AbstractCommand {
     /**
      * The description of the command.
      */
-    public static final String DESCRIPTION = "Load a plugin.";
+    public static final String DESCRIPTION = "Load one or more plugins.";
 
     /**
      * The main permission of the command.
@@ -57,7 +62,7 @@ public class LoadCommand extends AbstractCommand {
     /**
      * The proper usage of the command.
      */
-    public static final String USAGE = "/plugman load <plugin>";
+    public static final String USAGE = "/plugman load <plugin|pattern> [plugin...]";
 
     /**
      * The sub permissions of the command.
@@ -97,6 +102,22 @@ public class LoadCommand extends AbstractCommand {
         for (int i = 1; i < args.length; i++)
             args[i] = args[i].replaceAll("[/\\\\]", "");
 
+        String name = StringUtil.consolidateStrings(args, 1);
+
+        // Several names or a pattern load a batch, unless the whole text is the name of a plugin with spaces.
+        if (name.indexOf('*') >= 0 || name.indexOf('?') >= 0 || args.length > 2 && PlugMan.getInstance().getPluginCatalog().findPluginFile(name) == null) {
+            PlugMan.getInstance().getPluginUtil().loadAll(Arrays.asList(args).subList(1, args.length)).thenAccept(messages -> {
+                for (String message : messages)
+                    sender.sendMessage(message);
+            }).exceptionally(throwable -> {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                PlugMan.getInstance().getLogger().log(Level.WARNING, "Could not load " + name, cause);
+                ThreadUtil.sync(() -> sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("load.failed", name, String.valueOf(cause.getMessage()))));
+                return null;
+            });
+            return;
+        }
+
         Plugin potential = PlugMan.getInstance().getPluginUtil().getPluginByName(args, 1);
 
         if (potential != null) {
@@ -104,8 +125,6 @@ public class LoadCommand extends AbstractCommand {
             return;
         }
 
-        String name = StringUtil.consolidateStrings(args, 1);
-
         if (PlugMan.getInstance().getPluginUtil().isIgnored(name)) {
             sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.ignored"));
             return;
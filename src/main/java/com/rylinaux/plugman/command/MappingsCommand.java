@@ -0,0 +1,118 @@
+package com.rylinaux.plugman.command;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.util.LearnedMappings;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Command that lists the learned resource mappings and moves them to resourcemaps.yml.
+ */
+public class MappingsCommand extends AbstractCommand {
+
+    /**
+     * The name of the command.
+     */
+    public static final String NAME = "Mappings";
+
+    /**
+     * The description of the command.
+     */
+    public static final String DESCRIPTION = "Review the resource IDs that were found by searching.";
+
+    /**
+     * The main permission of the command.
+     */
+    public static final String PERMISSION = "plugman.mappings";
+
+    /**
+     * The proper usage of the command.
+     */
+    public static final String USAGE = "/plugman mappings [list|promote <plugin|all>|forget <plugin>]";
+
+    /**
+     * The sub permissions of the command.
+     */
+    public static final String[] SUB_PERMISSIONS = {""};
+
+    /**
+     * Construct out object.
+     *
+     * @param sender the command sender
+     */
+    public MappingsCommand(CommandSender sender) {
+        super(sender, NAME, DESCRIPTION, PERMISSION, SUB_PERMISSIONS, USAGE);
+    }
+
+    /**
+     * Execute the command.
+     *
+     * @param sender  the sender of the command
+     * @param command the command being done
+     * @param label   the name of the command
+     * @param args    the arguments supplied
+     */
+    @Override
+    public void execute(CommandSender sender, Command command, String label, String[] args) {
+        if (!this.hasPermission()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
+            return;
+        }
+
+        LearnedMappings mappings = PlugMan.getInstance().getLearnedMappings();
+        String action = args.length < 2 ? "list" : args[1].toLowerCase();
+
+        if (action.equals("list")) {
+            List<LearnedMappings.Mapping> all = mappings.getAll();
+            if (all.isEmpty()) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("mappings.none"));
+                return;
+            }
+
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("mappings.header", all.size()));
+            for (LearnedMappings.Mapping mapping : all)
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format(false, "mappings.entry", mapping.getName(),
+                                                                                      mapping.isSpigotMc() ? "SpigotMC" : "CurseForge",
+                                                                                      String.valueOf(mapping.getId()),
+                                                                                      format.format(new Date(mapping.getLearned()))));
+            return;
+        }
+
+        if (!action.equals("promote") && !action.equals("forget") || args.length < 3) {
+            this.sendUsage();
+            return;
+        }
+
+        String name = args[2];
+
+        if (action.equals("forget")) {
+            if (mappings.forget(name))
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("mappings.forgotten", name));
+            else
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("mappings.not-found", name));
+            return;
+        }
+
+        List<String> names = new ArrayList<>();
+        if (name.equalsIgnoreCase("all") || name.equals("*"))
+            for (LearnedMappings.Mapping mapping : mappings.getAll())
+                names.add(mapping.getName());
+        else
+            names = Collections.singletonList(name);
+
+        List<LearnedMappings.Mapping> promoted = mappings.promote(names);
+        if (promoted.isEmpty()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("mappings.not-found", name));
+            return;
+        }
+
+        sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("mappings.promoted", promoted.size()));
+    }
+}
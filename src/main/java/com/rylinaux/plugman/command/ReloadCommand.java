@@ -27,10 +27,15 @@ package com.rylinaux.plugman.command;
  */
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pluginmanager.PluginManager;
+import com.rylinaux.plugman.util.SlicedTask;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
+import java.util.List;
+
 /**
  * Command that reloads plugin(s).
  *
@@ -99,8 +104,29 @@ public class ReloadCommand extends AbstractCommand {
                 return;
             }
 
-            PlugMan.getInstance().getPluginUtil().reloadAll();
-            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("reload.all"));
+            PluginManager pluginUtil = PlugMan.getInstance().getPluginUtil();
+            SlicedTask task = new SlicedTask("/plugman reload all", sender, () -> sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("reload.all")));
+
+            // Like reloadAll, one group at a time: dependents are unloaded first and loaded last.
+            // Cancelling skips the remaining unloads, but still loads every plugin that was already unloaded.
+            for (List<Plugin> group : pluginUtil.getBulkTargets()) {
+                for (int i = group.size() - 1; i >= 0; i--) {
+                    Plugin plugin = group.get(i);
+                    task.add(plugin.getName(), () -> {
+                        if (Bukkit.getPluginManager().getPlugin(plugin.getName()) == plugin) pluginUtil.unload(plugin);
+                    });
+                }
+
+                for (Plugin plugin : group) {
+                    String name = plugin.getName();
+                    task.addRestoring(name, () -> {
+                        // Skipped if the plugin refused to unload, or was not unloaded because the reload was cancelled
+                        if (Bukkit.getPluginManager().getPlugin(name) == null) pluginUtil.load(name);
+                    });
+                }
+            }
+
+            task.start();
             return;
         }
 
@@ -27,10 +27,14 @@ package com.rylinaux.plugman.command;
  */
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pluginmanager.PluginManager;
+import com.rylinaux.plugman.util.SlicedTask;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 
+import java.util.List;
+
 /**
  * Command that restarts plugin(s).
  *
@@ -99,9 +103,25 @@ public class RestartCommand extends AbstractCommand {
                 return;
             }
 
-            PlugMan.getInstance().getPluginUtil().disableAll();
-            PlugMan.getInstance().getPluginUtil().enableAll();
-            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("restart.all"));
+            PluginManager pluginUtil = PlugMan.getInstance().getPluginUtil();
+            SlicedTask task = new SlicedTask("/plugman restart all", sender, () -> sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("restart.all")));
+
+            // Dependents are disabled before and enabled after their dependencies.
+            // Cancelling skips the remaining disables, but still enables every plugin that was already disabled.
+            List<List<Plugin>> groups = pluginUtil.getBulkTargets();
+            for (int i = groups.size() - 1; i >= 0; i--)
+                for (int j = groups.get(i).size() - 1; j >= 0; j--) {
+                    Plugin plugin = groups.get(i).get(j);
+                    task.add(plugin.getName(), () -> pluginUtil.disable(plugin));
+                }
+
+            for (List<Plugin> group : groups)
+                for (Plugin plugin : group)
+                    task.addRestoring(plugin.getName(), () -> {
+                        if (!plugin.isEnabled()) pluginUtil.enable(plugin);
+                    });
+
+            task.start();
             return;
         }
 
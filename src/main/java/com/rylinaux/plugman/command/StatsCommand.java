@@ -0,0 +1,92 @@
+package com.rylinaux.plugman.command;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.stats.OperationStats;
+import com.rylinaux.plugman.stats.OperationTiming;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Command that shows how long the last plugin operations took, phase by phase.
+ */
+public class StatsCommand extends AbstractCommand {
+
+    /**
+     * The name of the command.
+     */
+    public static final String NAME = "Stats";
+
+    /**
+     * The description of the command.
+     */
+    public static final String DESCRIPTION = "Show how long the last plugin operations took.";
+
+    /**
+     * The main permission of the command.
+     */
+    public static final String PERMISSION = "plugman.stats";
+
+    /**
+     * The proper usage of the command.
+     */
+    public static final String USAGE = "/plugman stats [plugin]";
+
+    /**
+     * The sub permissions of the command.
+     */
+    public static final String[] SUB_PERMISSIONS = {""};
+
+    /**
+     * How many operations are shown.
+     */
+    private static final int SHOWN = 10;
+
+    /**
+     * Construct out object.
+     *
+     * @param sender the command sender
+     */
+    public StatsCommand(CommandSender sender) {
+        super(sender, NAME, DESCRIPTION, PERMISSION, SUB_PERMISSIONS, USAGE);
+    }
+
+    /**
+     * Execute the command.
+     *
+     * @param sender  the sender of the command
+     * @param command the command being done
+     * @param label   the name of the command
+     * @param args    the arguments supplied
+     */
+    @Override
+    public void execute(CommandSender sender, Command command, String label, String[] args) {
+        if (!this.hasPermission()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
+            return;
+        }
+
+        String plugin = args.length > 1 ? args[1] : null;
+
+        List<OperationTiming> timings = OperationStats.get().getRecent();
+        if (plugin != null) timings.removeIf(timing -> !timing.getPlugin().equalsIgnoreCase(plugin));
+
+        if (timings.isEmpty()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("stats.none"));
+            return;
+        }
+
+        sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("stats.header", Math.min(StatsCommand.SHOWN, timings.size())));
+
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss");
+        for (OperationTiming timing : timings.subList(0, Math.min(StatsCommand.SHOWN, timings.size()))) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("stats.entry", format.format(new Date(timing.getTimestamp())),
+                    timing.getOperation(), timing.getPlugin(), OperationTiming.toMillis(timing.getTotalNanos())));
+            if (!timing.getPhases().isEmpty())
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("stats.phases", timing.formatPhases()));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.rylinaux.plugman.leak;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Looks for the usual suspects that keep the class loader of an unloaded plugin alive.
+ * <p>
+ * This is no heap walk, which would stop the server for as long as a heap dump takes. Instead the GC roots plugins
+ * leak through most often are checked: threads, thread locals, services, scheduler tasks and the fields of the other
+ * plugins, including the collections they hold. Must be called on the main thread.
+ */
+public class LeakAnalyzer {
+
+    /**
+     * How many elements of a collection, map or array are checked.
+     */
+    private static final int MAX_ELEMENTS = 1000;
+
+    private static final String THREAD_LOCALS_HIDDEN = "Thread locals could not be checked, start the server with --add-opens java.base/java.lang=ALL-UNNAMED to check them";
+
+    private final ClassLoader classLoader;
+    private final List<String> roots = new ArrayList<>();
+
+    /**
+     * Construct the analyzer.
+     *
+     * @param classLoader the class loader of the unloaded plugin
+     */
+    public LeakAnalyzer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Checks all suspects.
+     *
+     * @return the likely GC roots, empty if none was found
+     */
+    public List<String> analyze() {
+        this.roots.clear();
+
+        this.checkThreads();
+        this.checkServices();
+        this.checkTasks();
+        this.checkPlugins();
+
+        return new ArrayList<>(this.roots);
+    }
+
+    private void checkThreads() {
+        Field threadLocals = LeakAnalyzer.findField(Thread.class, "threadLocals");
+        Field inheritableThreadLocals = LeakAnalyzer.findField(Thread.class, "inheritableThreadLocals");
+        boolean threadLocalsReadable = threadLocals != null;
+        if (!threadLocalsReadable) this.roots.add(LeakAnalyzer.THREAD_LOCALS_HIDDEN);
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getClass().getClassLoader() == this.classLoader)
+                this.roots.add("Thread '" + thread.getName() + "' is still running, its class " + thread.getClass().getName() + " was loaded by the plugin");
+            else if (thread.getContextClassLoader() == this.classLoader)
+                this.roots.add("Thread '" + thread.getName() + "' has the plugin's class loader as context class loader");
+
+            for (Field field : new Field[]{threadLocals, inheritableThreadLocals}) {
+                if (field == null || !threadLocalsReadable) continue;
+
+                try {
+                    this.checkThreadLocals(thread, field.get(thread));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    // e.g. java.lang is not opened to reflection on newer Java versions
+                    threadLocalsReadable = false;
+                    this.roots.add(LeakAnalyzer.THREAD_LOCALS_HIDDEN);
+                }
+            }
+        }
+    }
+
+    private void checkThreadLocals(Thread thread, Object map) throws IllegalAccessException {
+        if (map == null) return;
+
+        Field tableField = LeakAnalyzer.findField(map.getClass(), "table");
+        if (tableField == null) return;
+
+        Object table = tableField.get(map);
+        if (table == null) return;
+
+        for (int i = 0; i < Array.getLength(table); i++) {
+            Object entry = Array.get(table, i);
+            if (entry == null) continue;
+
+            Object key = ((Reference<?>) entry).get();
+            Field valueField = LeakAnalyzer.findField(entry.getClass(), "value");
+            Object value = valueField == null ? null : valueField.get(entry);
+
+            if (this.isLoadedByPlugin(key) || this.refersToPlugin(value))
+                this.roots.add("Thread '" + thread.getName() + "' has a ThreadLocal holding "
+                               + (value == null ? "null" : value.getClass().getName()) + " from the plugin");
+        }
+    }
+
+    private void checkServices() {
+        for (Class<?> service : Bukkit.getServicesManager().getKnownServices())
+            for (RegisteredServiceProvider<?> registration : Bukkit.getServicesManager().getRegistrations(service)) {
+                Object provider = registration.getProvider();
+                if (service.getClassLoader() == this.classLoader || this.isLoadedByPlugin(provider) || this.isLoadedByPlugin(registration.getPlugin()))
+                    this.roots.add("Service " + service.getName() + " is still registered with provider " + provider.getClass().getName()
+                                   + " (registered by " + registration.getPlugin().getName() + ")");
+            }
+    }
+
+    private void checkTasks() {
+        for (BukkitTask task : Bukkit.getScheduler().getPendingTasks()) {
+            if (this.isLoadedByPlugin(task.getOwner())) {
+                this.roots.add("Scheduler task #" + task.getTaskId() + " of the plugin was not cancelled");
+                continue;
+            }
+
+            // Tasks of other plugins that run code of the unloaded plugin
+            for (Class<?> type = task.getClass(); type != null && type != Object.class; type = type.getSuperclass())
+                for (Field field : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) continue;
+
+                    Object value = LeakAnalyzer.read(field, task);
+                    if (value != task.getOwner() && this.isLoadedByPlugin(value))
+                        this.roots.add("Scheduler task #" + task.getTaskId() + " of " + task.getOwner().getName() + " runs " + value.getClass().getName());
+                }
+        }
+    }
+
+    private void checkPlugins() {
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+            if (plugin.getClass().getClassLoader() == this.classLoader) {
+                this.roots.add("The plugin is still registered with the server as " + plugin.getName());
+                continue;
+            }
+
+            for (Class<?> type = plugin.getClass(); type != null && type.getClassLoader() == plugin.getClass().getClassLoader(); type = type.getSuperclass())
+                for (Field field : type.getDeclaredFields()) {
+                    if (field.getType().isPrimitive()) continue;
+
+                    boolean isStatic = Modifier.isStatic(field.getModifiers());
+                    Object value = LeakAnalyzer.read(field, isStatic ? null : plugin);
+                    if (this.refersToPlugin(value))
+                        this.roots.add((isStatic ? "Static field " : "Field ") + type.getName() + "." + field.getName() + " of "
+                                       + plugin.getName() + " holds " + value.getClass().getName() + " referencing the plugin");
+                }
+        }
+    }
+
+    /**
+     * Whether an object, or one of the first elements of a collection, map or array, was loaded by the plugin.
+     */
+    private boolean refersToPlugin(Object value) {
+        if (value == null) return false;
+        if (this.isLoadedByPlugin(value)) return true;
+
+        try {
+            Iterator<?> elements = null;
+            if (value instanceof Map) elements = ((Map<?, ?>) value).entrySet().iterator();
+            else if (value instanceof Iterable) elements = ((Iterable<?>) value).iterator();
+
+            if (elements != null) {
+                for (int i = 0; i < LeakAnalyzer.MAX_ELEMENTS && elements.hasNext(); i++) {
+                    Object element = elements.next();
+                    if (element instanceof Map.Entry) {
+                        if (this.isLoadedByPlugin(((Map.Entry<?, ?>) element).getKey()) || this.isLoadedByPlugin(((Map.Entry<?, ?>) element).getValue()))
+                            return true;
+                    } else if (this.isLoadedByPlugin(element)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            if (value.getClass().isArray() && !value.getClass().getComponentType().isPrimitive())
+                for (int i = 0; i < Math.min(LeakAnalyzer.MAX_ELEMENTS, Array.getLength(value)); i++)
+                    if (this.isLoadedByPlugin(Array.get(value, i))) return true;
+        } catch (RuntimeException ignored) {
+            // Modified concurrently, or a collection that cannot be iterated
+        }
+
+        return false;
+    }
+
+    private boolean isLoadedByPlugin(Object value) {
+        if (value == null) return false;
+        if (value == this.classLoader) return true;
+        if (value instanceof Class) return ((Class<?>) value).getClassLoader() == this.classLoader;
+        return value.getClass().getClassLoader() == this.classLoader;
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (; type != null; type = type.getSuperclass())
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException ignored) {
+            } catch (RuntimeException e) {
+                // Not opened to reflection
+                return null;
+            }
+        return null;
+    }
+}
@@ -0,0 +1,215 @@
+package com.rylinaux.plugman.leak;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of the class loaders of unloaded plugins until they are collected.
+ * <p>
+ * Each class loader gets a phantom reference, which is only enqueued once the class loader is really gone. Class
+ * loaders can only be collected by old generation collections, so a class loader that is still there after a number of
+ * them is reported as a leak, with a hint to {@code /plugman leaks} which looks for what holds on to it. Not every JVM
+ * reports the collections that unload classes, e.g. G1 before Java 20 only reports full collections and not its
+ * concurrent cycles, so a class loader that is still there a while after the unload is reported as well.
+ */
+public class LeakTracker {
+
+    /**
+     * Parts of the names of collectors that only collect the young generation, or count pauses rather than cycles.
+     * G1 reports its mixed collections as young ones, they do not unload classes. Its concurrent cycles, which do, are
+     * reported as "G1 Concurrent GC" since Java 20 and counted.
+     */
+    private static final String[] YOUNG_COLLECTORS = {"Young", "Scavenge", "ParNew", "Copy", "Minor", "Pauses"};
+
+    private final Logger logger;
+
+    /**
+     * How many old generation collections a class loader may survive before it is reported.
+     */
+    private final int gcThreshold;
+
+    /**
+     * How long a class loader may stay after the unload before it is reported regardless of the collections, in
+     * milliseconds, 0 to only count collections.
+     */
+    private final long maxAgeMillis;
+
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+
+    /**
+     * The class loaders that were not collected yet, by their phantom reference.
+     */
+    private final Map<Reference<? extends ClassLoader>, Tracked> tracked = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Construct the tracker and start checking.
+     *
+     * @param logger        the logger leaks are reported to
+     * @param gcThreshold   how many old generation collections a class loader may survive before it is reported
+     * @param maxAgeMinutes how long a class loader may stay after the unload before it is reported regardless of the
+     *                      collections, in minutes, 0 to only count collections
+     * @param periodSeconds how often the class loaders are checked, in seconds
+     */
+    public LeakTracker(Logger logger, int gcThreshold, long maxAgeMinutes, long periodSeconds) {
+        this.logger = logger;
+        this.gcThreshold = Math.max(1, gcThreshold);
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(Math.max(0, maxAgeMinutes));
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PlugManX Leak Tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long period = Math.max(1, periodSeconds);
+        this.executor.scheduleWithFixedDelay(this::check, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Counts the old generation collections since the JVM started.
+     *
+     * @return the number of collections, or -1 if no collector reports them
+     */
+    public static long countOldCollections() {
+        long count = -1;
+
+        outer:
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            for (String young : LeakTracker.YOUNG_COLLECTORS)
+                if (bean.getName().contains(young)) continue outer;
+
+            if (bean.getCollectionCount() >= 0) count = Math.max(0, count) + bean.getCollectionCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Starts tracking the class loader of a plugin that was just unloaded.
+     *
+     * @param pluginName  the name of the plugin
+     * @param classLoader the closed class loader
+     */
+    public void track(String pluginName, ClassLoader classLoader) {
+        PhantomReference<ClassLoader> phantom = new PhantomReference<>(classLoader, this.queue);
+        this.tracked.put(phantom, new Tracked(pluginName, new WeakReference<>(classLoader), LeakTracker.countOldCollections()));
+    }
+
+    /**
+     * Get the class loaders that were not collected yet.
+     *
+     * @return the class loaders, oldest unload first
+     */
+    public List<Tracked> getAlive() {
+        this.drain();
+
+        List<Tracked> alive = new ArrayList<>(this.tracked.values());
+        alive.sort((first, second) -> Long.compare(first.unloadedAt, second.unloadedAt));
+        return alive;
+    }
+
+    /**
+     * Get the class loaders of a plugin that were not collected yet, one per unload.
+     *
+     * @param pluginName the name of the plugin, case is ignored
+     * @return the class loaders, oldest unload first
+     */
+    public List<Tracked> getAlive(String pluginName) {
+        List<Tracked> alive = this.getAlive();
+        alive.removeIf(entry -> !entry.pluginName.equalsIgnoreCase(pluginName));
+        return alive;
+    }
+
+    /**
+     * Stops checking, the class loaders are no longer tracked.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        this.tracked.clear();
+    }
+
+    private void drain() {
+        Reference<? extends ClassLoader> reference;
+        while ((reference = this.queue.poll()) != null) {
+            Tracked entry = this.tracked.remove(reference);
+            if (entry != null && entry.reported)
+                this.logger.info("The class loader of " + entry.pluginName + " was collected after all");
+        }
+    }
+
+    private void check() {
+        this.drain();
+
+        for (Tracked entry : this.tracked.values()) {
+            if (entry.reported) continue;
+
+            long survived = entry.getSurvivedCollections();
+            long age = System.currentTimeMillis() - entry.unloadedAt;
+            if (survived < this.gcThreshold && (this.maxAgeMillis == 0 || age < this.maxAgeMillis)) continue;
+
+            entry.reported = true;
+            this.logger.warning("The class loader of " + entry.pluginName + " is still there " + TimeUnit.MILLISECONDS.toMinutes(age)
+                                + " minutes and " + survived + " counted old generation collections after it was unloaded, it is probably leaking. "
+                                + "Use /plugman leaks " + entry.pluginName + " to see what still references it");
+        }
+    }
+
+    /**
+     * The class loader of an unloaded plugin.
+     */
+    public static final class Tracked {
+        private final String pluginName;
+
+        /**
+         * Only used to find the class loader while it is still there, the phantom reference decides when it is gone.
+         */
+        private final WeakReference<ClassLoader> classLoader;
+
+        private final long unloadedAt = System.currentTimeMillis();
+        private final long collectionsAtUnload;
+        private volatile boolean reported = false;
+
+        private Tracked(String pluginName, WeakReference<ClassLoader> classLoader, long collectionsAtUnload) {
+            this.pluginName = pluginName;
+            this.classLoader = classLoader;
+            this.collectionsAtUnload = collectionsAtUnload;
+        }
+
+        public String getPluginName() {
+            return this.pluginName;
+        }
+
+        /**
+         * Get the class loader.
+         *
+         * @return the class loader, or null if it was collected in the meantime
+         */
+        public ClassLoader getClassLoader() {
+            return this.classLoader.get();
+        }
+
+        public long getUnloadedAt() {
+            return this.unloadedAt;
+        }
+
+        /**
+         * Get how many old generation collections the class loader survived.
+         *
+         * @return the number of collections since the unload, 0 if the collectors do not report them
+         */
+        public long getSurvivedCollections() {
+            long count = LeakTracker.countOldCollections();
+            return count < 0 || this.collectionsAtUnload < 0 ? 0 : count - this.collectionsAtUnload;
+        }
+    }
+}
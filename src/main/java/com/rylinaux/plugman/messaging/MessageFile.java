@@ -30,7 +30,10 @@ import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Class that allows reading from a YAML file embedded in the JAR.
@@ -60,6 +63,13 @@ public class MessageFile {
      */
     public MessageFile(File file) {
         this.config = YamlConfiguration.loadConfiguration(file);
+
+        // Messages added by updates are missing from files created by older versions, read them from the JAR instead.
+        try (InputStream defaults = this.getClass().getClassLoader().getResourceAsStream(file.getName())) {
+            if (defaults != null)
+                this.config.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaults, StandardCharsets.UTF_8)));
+        } catch (IOException ignored) {
+        }
     }
 
     /**
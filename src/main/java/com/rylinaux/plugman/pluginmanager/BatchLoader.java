@@ -0,0 +1,160 @@
+package com.rylinaux.plugman.pluginmanager;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.catalog.CatalogEntry;
+import com.rylinaux.plugman.catalog.PluginCatalog;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * Loads several plugins at once.
+ * <p>
+ * Finding the jars, parsing their plugin.yml and checking that they are readable jars happens in parallel off the main
+ * thread. Creating the class loaders, onLoad and enabling stay on the main thread, as the server requires, and run in
+ * dependency order.
+ */
+final class BatchLoader {
+
+    /**
+     * The manager each plugin is loaded with.
+     */
+    private final PluginManager pluginManager;
+
+    /**
+     * Construct the loader.
+     *
+     * @param pluginManager the manager each plugin is loaded with
+     */
+    BatchLoader(PluginManager pluginManager) {
+        this.pluginManager = pluginManager;
+    }
+
+    /**
+     * Loads and enables plugins.
+     *
+     * @param names the file or plugin names, {@code *} and {@code ?} match any characters
+     * @return the status messages, completed on the main thread
+     */
+    CompletableFuture<List<String>> load(Collection<String> names) {
+        PluginCatalog catalog = PlugMan.getInstance().getPluginCatalog();
+        Executor executor = PlugMan.getInstance().getIndexExecutor();
+        Executor mainThread = runnable -> Bukkit.getScheduler().runTask(PlugMan.getInstance(), runnable);
+
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+        return CompletableFuture.supplyAsync(() -> this.expand(catalog, names, messages), executor).thenCompose(targets -> {
+            List<CompletableFuture<CatalogEntry>> futures = new ArrayList<>();
+            for (String name : targets)
+                futures.add(CompletableFuture.supplyAsync(() -> this.prepare(catalog, name, messages), executor));
+
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                Map<String, CatalogEntry> entries = new LinkedHashMap<>();
+                for (CompletableFuture<CatalogEntry> future : futures) {
+                    CatalogEntry entry = future.join();
+                    if (entry != null) entries.putIfAbsent(entry.getName(), entry);
+                }
+                return entries.values();
+            });
+        }).thenApplyAsync(entries -> {
+            for (CatalogEntry entry : DependencyGraph.of(entries, CatalogEntry::getDescription).getLoadOrder()) {
+                String name = entry.getName();
+
+                if (Bukkit.getPluginManager().getPlugin(name) != null) {
+                    messages.add(PlugMan.getInstance().getMessageFormatter().format("load.already-loaded", name));
+                    continue;
+                }
+
+                if (this.pluginManager.isIgnored(name)) {
+                    messages.add(PlugMan.getInstance().getMessageFormatter().format("error.ignored"));
+                    continue;
+                }
+
+                try {
+                    messages.add(this.pluginManager.load(name));
+                } catch (RuntimeException e) {
+                    // e.g. a missing dependency, the rest of the batch is still loaded
+                    PlugMan.getInstance().getLogger().warning("Could not load " + name + ": " + e);
+                    messages.add(PlugMan.getInstance().getMessageFormatter().format("load.failed", name, String.valueOf(e.getMessage())));
+                }
+            }
+            return messages;
+        }, mainThread);
+    }
+
+    /**
+     * Replaces patterns by the names of the matching jars.
+     */
+    private List<String> expand(PluginCatalog catalog, Collection<String> names, List<String> messages) {
+        List<String> targets = new ArrayList<>();
+        for (String name : names) {
+            if (name.indexOf('*') < 0 && name.indexOf('?') < 0) {
+                targets.add(name);
+                continue;
+            }
+
+            if (catalog.isIndexed()) catalog.refresh();
+
+            Pattern pattern = BatchLoader.toPattern(name);
+            boolean matched = false;
+            for (CatalogEntry entry : catalog.getEntries()) {
+                String fileName = entry.getFile().getName();
+                if (entry.getName() != null && (pattern.matcher(entry.getName()).matches() || pattern.matcher(fileName.substring(0, fileName.length() - 4)).matches())) {
+                    targets.add(entry.getName());
+                    matched = true;
+                }
+            }
+
+            if (!matched)
+                messages.add(PlugMan.getInstance().getMessageFormatter().format(catalog.isIndexed() ? "load.cannot-find" : "load.indexing"));
+        }
+        return targets;
+    }
+
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : glob.split("((?<=[*?])|(?=[*?]))"))
+            if (part.equals("*")) regex.append(".*");
+            else if (part.equals("?")) regex.append('.');
+            else if (!part.isEmpty()) regex.append(Pattern.quote(part));
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Finds and parses the jar of a plugin and checks that it can be opened.
+     *
+     * @return the entry, or null if the jar cannot be found or is not a plugin
+     */
+    private CatalogEntry prepare(PluginCatalog catalog, String name, List<String> messages) {
+        File file = catalog.findPluginFile(name);
+        if (file == null) {
+            messages.add(PlugMan.getInstance().getMessageFormatter().format(catalog.isIndexed() ? "load.cannot-find" : "load.indexing"));
+            return null;
+        }
+
+        CatalogEntry entry = catalog.refresh(file);
+        if (entry == null || entry.getDescription() == null) {
+            messages.add(PlugMan.getInstance().getMessageFormatter().format("load.invalid-description"));
+            return null;
+        }
+
+        // Opening the jar reads its central directory, so a truncated or corrupt jar fails here rather than on the main
+        // thread. The entries themselves are left to the class loader.
+        try (JarFile jar = new JarFile(file)) {
+            if (jar.getJarEntry("plugin.yml") == null && jar.getJarEntry("paper-plugin.yml") == null)
+                throw new IOException("no plugin.yml");
+        } catch (IOException e) {
+            messages.add(PlugMan.getInstance().getMessageFormatter().format("load.invalid-plugin"));
+            PlugMan.getInstance().getLogger().warning("Could not read " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+
+        return entry;
+    }
+}
@@ -29,24 +29,23 @@ package com.rylinaux.plugman.pluginmanager;
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.api.GentleUnload;
 import com.rylinaux.plugman.api.PlugManAPI;
-import com.rylinaux.plugman.util.BukkitCommandWrap;
+import com.rylinaux.plugman.catalog.PluginCatalog;
+import com.rylinaux.plugman.stats.OperationTimer;
 import com.rylinaux.plugman.util.BukkitCommandWrapUseless;
 import com.rylinaux.plugman.util.StringUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
-import org.bukkit.command.PluginCommand;
 import org.bukkit.command.SimpleCommandMap;
-import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.*;
-import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -59,22 +58,8 @@ import java.util.stream.Collectors;
 public class BukkitPluginManager implements PluginManager {
     //TODO: Clean this class up, I don't like how it currently looks
 
-    private final Class<?> pluginClassLoader;
-    private final Field pluginClassLoaderPlugin;
-    private Field commandMapField;
-    private Field knownCommandsField;
     private final String nmsVersion = null;
 
-    public BukkitPluginManager() {
-        try {
-            this.pluginClassLoader = Class.forName("org.bukkit.plugin.java.PluginClassLoader");
-            this.pluginClassLoaderPlugin = this.pluginClassLoader.getDeclaredField("plugin");
-            this.pluginClassLoaderPlugin.setAccessible(true);
-        } catch (ClassNotFoundException | NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     /**
      * Enable a plugin.
      *
@@ -82,7 +67,11 @@ public class BukkitPluginManager implements PluginManager {
      */
     @Override
     public void enable(Plugin plugin) {
-        if (plugin != null && !plugin.isEnabled()) Bukkit.getPluginManager().enablePlugin(plugin);
+        if (plugin != null && !plugin.isEnabled()) {
+            OperationTimer timer = OperationTimer.start("enable", plugin.getName());
+            Bukkit.getPluginManager().enablePlugin(plugin);
+            timer.phase("enable").finish();
+        }
     }
 
     /**
@@ -90,9 +79,31 @@ public class BukkitPluginManager implements PluginManager {
      */
     @Override
     public void enableAll() {
+        for (Plugin plugin : this.getBulkGraph().getLoadOrder())
+            this.enable(plugin);
+    }
+
+    /**
+     * Get the plugins bulk operations act on, grouped by dependencies.
+     *
+     * @return groups of plugins that do not depend on each other, each in dependency order
+     */
+    @Override
+    public List<List<Plugin>> getBulkTargets() {
+        return this.getBulkGraph().getComponents();
+    }
+
+    /**
+     * Get the dependency graph of the plugins bulk operations act on.
+     *
+     * @return the graph of the plugins that are neither ignored nor Paper plugins
+     */
+    private DependencyGraph<Plugin> getBulkGraph() {
+        List<Plugin> targets = new ArrayList<>();
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
             if (!this.isIgnored(plugin) && !this.isPaperPlugin(plugin))
-                this.enable(plugin);
+                targets.add(plugin);
+        return DependencyGraph.of(targets, Plugin::getDescription);
     }
 
     /**
@@ -102,7 +113,11 @@ public class BukkitPluginManager implements PluginManager {
      */
     @Override
     public void disable(Plugin plugin) {
-        if (plugin != null && plugin.isEnabled()) Bukkit.getPluginManager().disablePlugin(plugin);
+        if (plugin != null && plugin.isEnabled()) {
+            OperationTimer timer = OperationTimer.start("disable", plugin.getName());
+            Bukkit.getPluginManager().disablePlugin(plugin);
+            timer.phase("disable").finish();
+        }
     }
 
     /**
@@ -110,9 +125,8 @@ public class BukkitPluginManager implements PluginManager {
      */
     @Override
     public void disableAll() {
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            if (!this.isIgnored(plugin) && !this.isPaperPlugin(plugin))
-                this.disable(plugin);
+        for (Plugin plugin : this.getBulkGraph().getUnloadOrder())
+            this.disable(plugin);
     }
 
     /**
@@ -245,19 +259,14 @@ public class BukkitPluginManager implements PluginManager {
 
     private List<Map.Entry<String, Command>> getCommandsFromPlugin(Plugin plugin) {
         Map<String, Command> knownCommands = this.getKnownCommands();
-        return knownCommands.entrySet().stream()
-                            .filter(s -> {
-                                                 if (s.getKey().contains(":")) return s.getKey().split(":")[0].equalsIgnoreCase(plugin.getName());
-                                                 else {
-                                                     ClassLoader cl = s.getValue().getClass().getClassLoader();
-                                                     try {
-                                                         return cl.getClass() == this.pluginClassLoader && this.pluginClassLoaderPlugin.get(cl) == plugin;
-                                                     } catch (IllegalAccessException e) {
-                                                         return false;
-                                                     }
-                                                 }
-                                             })
-                            .collect(Collectors.toList());
+        List<Map.Entry<String, Command>> commands = new ArrayList<>();
+
+        for (String alias : CommandIndex.get().getAliases(knownCommands, plugin)) {
+            Command command = knownCommands.get(alias);
+            if (command != null) commands.add(new AbstractMap.SimpleImmutableEntry<>(alias, command));
+        }
+
+        return commands;
     }
 
     /**
@@ -270,37 +279,10 @@ public class BukkitPluginManager implements PluginManager {
     public List<String> findByCommand(String command) {
         List<String> plugins = new ArrayList<>();
 
-        for (Map.Entry<String, Command> s : this.getKnownCommands().entrySet()) {
-            ClassLoader cl = s.getValue().getClass().getClassLoader();
-            if (cl.getClass() != this.pluginClassLoader) {
-                String[] parts = s.getKey().split(":");
-
-                if (parts.length == 2 && parts[1].equalsIgnoreCase(command)) {
-                    Plugin plugin = Arrays.stream(Bukkit.getPluginManager().getPlugins()).
-                            filter(pl -> pl.getName().equalsIgnoreCase(parts[0])).
-                            findFirst().orElse(null);
-
-                    if (plugin != null)
-                        plugins.add(plugin.getName());
-                }
-                continue;
-            }
-
-            try {
-                String[] parts = s.getKey().split(":");
-                String cmd = parts[parts.length - 1];
-
-                if (!cmd.equalsIgnoreCase(command))
-                    continue;
-
-                JavaPlugin plugin = (JavaPlugin) this.pluginClassLoaderPlugin.get(cl);
-
-                if (plugins.contains(plugin.getName()))
-                    continue;
-
+        for (String owner : CommandIndex.get().getOwners(this.getKnownCommands(), command)) {
+            Plugin plugin = this.getPluginByName(owner);
+            if (plugin != null && !plugins.contains(plugin.getName()))
                 plugins.add(plugin.getName());
-            } catch (IllegalAccessException ignored) {
-            }
         }
 
         return plugins;
@@ -355,18 +337,13 @@ public class BukkitPluginManager implements PluginManager {
         if (!pluginDir.isDirectory())
             return PlugMan.getInstance().getMessageFormatter().format("load.plugin-directory");
 
-        File pluginFile = new File(pluginDir, name + ".jar");
+        PluginCatalog catalog = PlugMan.getInstance().getPluginCatalog();
+        File pluginFile = catalog.findPluginFile(name);
 
-        if (!pluginFile.isFile()) for (File f : pluginDir.listFiles())
-            if (f.getName().endsWith(".jar")) try {
-                PluginDescriptionFile desc = PlugMan.getInstance().getPluginLoader().getPluginDescription(f);
-                if (desc.getName().equalsIgnoreCase(name)) {
-                    pluginFile = f;
-                    break;
-                }
-            } catch (InvalidDescriptionException e) {
-                return PlugMan.getInstance().getMessageFormatter().format("load.cannot-find");
-            }
+        if (pluginFile == null)
+            return PlugMan.getInstance().getMessageFormatter().format(catalog.isIndexed() ? "load.cannot-find" : "load.indexing");
+
+        OperationTimer timer = OperationTimer.start("load", name);
 
         try {
             target = Bukkit.getPluginManager().loadPlugin(pluginFile);
@@ -378,8 +355,15 @@ public class BukkitPluginManager implements PluginManager {
             return PlugMan.getInstance().getMessageFormatter().format("load.invalid-plugin");
         }
 
+        timer.phase("classloader");
+
         target.onLoad();
+        timer.phase("onload");
+
         Bukkit.getPluginManager().enablePlugin(target);
+        timer.phase("enable");
+
+        CommandIndex.get().added(this.getKnownCommands(), target);
 
         if (!(PlugMan.getInstance().getBukkitCommandWrap() instanceof BukkitCommandWrapUseless)) {
             Plugin finalTarget = target;
@@ -390,82 +374,40 @@ public class BukkitPluginManager implements PluginManager {
             PlugMan.getInstance().getFilePluginMap().put(pluginFile.getName(), target.getName());
         }
 
+        timer.phase("commands").finish();
+
         return PlugMan.getInstance().getMessageFormatter().format("load.loaded", target.getName());
 
     }
 
+    /**
+     * Loads and enables several plugins in dependency order, the jars are read in parallel off the main thread.
+     *
+     * @param names the file or plugin names, {@code *} and {@code ?} match any characters
+     * @return the status messages, completed on the main thread
+     */
     @Override
-    public Map<String, Command> getKnownCommands() {
-        if (!this.fetchCommandMapField())
-            throw new RuntimeException("Cannot find command map");
-
-        SimpleCommandMap commandMap;
-        try {
-            commandMap = (SimpleCommandMap) this.commandMapField.get(Bukkit.getServer());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-
-        if (!this.fetchKnownCommandsField())
-            throw new RuntimeException("Unable to find known commands");
-
-        Map<String, Command> knownCommands;
-
-        try {
-            knownCommands = (Map<String, Command>) this.knownCommandsField.get(commandMap);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-            return null;
-        }
-
-        return knownCommands;
-    }
-
-    private boolean fetchCommandMapField() {
-        if (this.commandMapField != null) return true;
-        try {
-            this.commandMapField = Class.forName(BukkitCommandWrap.getCraftBukkitPrefix("CraftServer")).getDeclaredField("commandMap");
-            this.commandMapField.setAccessible(true);
-            return true;
-        } catch (NoSuchFieldException | ClassNotFoundException e) {
-            e.printStackTrace();
-            return false;
-        }
+    public CompletableFuture<List<String>> loadAll(Collection<String> names) {
+        return new BatchLoader(this).load(names);
     }
 
-    private boolean fetchKnownCommandsField() {
-        if (this.knownCommandsField != null) return true;
-
+    @Override
+    public Map<String, Command> getKnownCommands() {
         try {
-            this.knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
-            this.knownCommandsField.setAccessible(true);
-            return true;
-        } catch (NoSuchFieldException e) {
+            ServerInternals internals = ServerInternals.get();
+            return internals.getKnownCommands(internals.getServerCommandMap());
+        } catch (IllegalStateException e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
 
     @Override
     public void setKnownCommands(Map<String, Command> knownCommands) {
-        if (!this.fetchCommandMapField())
-            throw new RuntimeException("Cannot find command map");
-
-        SimpleCommandMap commandMap;
         try {
-            commandMap = (SimpleCommandMap) this.commandMapField.get(Bukkit.getServer());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-
-        if (!this.fetchKnownCommandsField())
-            throw new RuntimeException("Unable to find known commands");
-
-        try {
-            this.knownCommandsField.set(commandMap, knownCommands);
-        } catch (IllegalAccessException e) {
+            ServerInternals internals = ServerInternals.get();
+            internals.setKnownCommands(internals.getServerCommandMap(), knownCommands);
+        } catch (IllegalStateException e) {
             e.printStackTrace();
         }
     }
@@ -479,8 +421,11 @@ public class BukkitPluginManager implements PluginManager {
     @Override
     public void reload(Plugin plugin) {
         if (plugin != null) {
+            OperationTimer timer = OperationTimer.start("reload", plugin.getName());
             this.unload(plugin);
+            timer.phase("unload");
             this.load(plugin);
+            timer.phase("load").finish();
         }
     }
 
@@ -489,9 +434,13 @@ public class BukkitPluginManager implements PluginManager {
      */
     @Override
     public void reloadAll() {
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            if (!this.isIgnored(plugin) && !this.isPaperPlugin(plugin))
-                this.reload(plugin);
+        // Dependents are unloaded first and loaded last, so every plugin is reloaded once, against fresh dependencies.
+        for (List<Plugin> component : this.getBulkTargets()) {
+            for (int i = component.size() - 1; i >= 0; i--)
+                this.unload(component.get(i));
+            for (Plugin plugin : component)
+                this.load(plugin);
+        }
     }
 
     /**
@@ -503,14 +452,17 @@ public class BukkitPluginManager implements PluginManager {
     @Override
     public synchronized String unload(Plugin plugin) {
         String name = plugin.getName();
+        OperationTimer timer = OperationTimer.start("unload", name);
 
         if (PlugManAPI.getGentleUnloads().containsKey(plugin)) {
             GentleUnload gentleUnload = PlugManAPI.getGentleUnloads().get(plugin);
             if (!gentleUnload.askingForGentleUnload())
                 return name + "did not want to unload";
+            timer.phase("gentle-unload");
         } else {
             if (!(PlugMan.getInstance().getBukkitCommandWrap() instanceof BukkitCommandWrapUseless))
                 this.unloadCommands(plugin);
+            timer.phase("unwrap-commands");
 
             org.bukkit.plugin.PluginManager pluginManager = Bukkit.getPluginManager();
 
@@ -520,102 +472,55 @@ public class BukkitPluginManager implements PluginManager {
 
             Map<String, Plugin> names = null;
             Map<String, Command> commands = null;
-            Map<Event, SortedSet<RegisteredListener>> listeners = null;
-
-            boolean reloadlisteners = true;
 
             if (pluginManager != null) {
 
                 pluginManager.disablePlugin(plugin);
+                timer.phase("disable");
 
                 try {
+                    ServerInternals internals = ServerInternals.get();
 
-                    Field pluginsField = Bukkit.getPluginManager().getClass().getDeclaredField("plugins");
-                    pluginsField.setAccessible(true);
-                    plugins = (List<Plugin>) pluginsField.get(pluginManager);
+                    plugins = internals.getPlugins(pluginManager);
+                    names = internals.getLookupNames(pluginManager);
 
-                    Field lookupNamesField = Bukkit.getPluginManager().getClass().getDeclaredField("lookupNames");
-                    lookupNamesField.setAccessible(true);
-                    names = (Map<String, Plugin>) lookupNamesField.get(pluginManager);
-
-                    try {
-                        Field listenersField = Bukkit.getPluginManager().getClass().getDeclaredField("listeners");
-                        listenersField.setAccessible(true);
-                        listeners = (Map<Event, SortedSet<RegisteredListener>>) listenersField.get(pluginManager);
-                    } catch (Exception e) {
-                        reloadlisteners = false;
-                    }
-
-                    Field commandMapField = Bukkit.getPluginManager().getClass().getDeclaredField("commandMap");
-                    commandMapField.setAccessible(true);
-                    commandMap = (SimpleCommandMap) commandMapField.get(pluginManager);
-
-                    Field knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
-                    knownCommandsField.setAccessible(true);
-                    commands = (Map<String, Command>) knownCommandsField.get(commandMap);
-
-                } catch (NoSuchFieldException | IllegalAccessException e) {
+                    commandMap = internals.getCommandMap(pluginManager);
+                    commands = internals.getKnownCommands(commandMap);
+                } catch (IllegalStateException e) {
                     e.printStackTrace();
+                    timer.phase("internals").finish();
                     return PlugMan.getInstance().getMessageFormatter().format("unload.failed", name);
                 }
+                timer.phase("internals");
 
             }
 
             pluginManager.disablePlugin(plugin);
+            timer.phase("disable");
 
-            if (listeners != null && reloadlisteners)
-                for (SortedSet<RegisteredListener> set : listeners.values())
-                    set.removeIf(value -> value.getPlugin() == plugin);
-
-            if (commandMap != null) {
-                Map<String, Command> modifiedKnownCommands = new HashMap<>(commands);
-
-                for (Map.Entry<String, Command> entry : new HashMap<>(commands).entrySet()) {
-                    if (entry.getValue() instanceof PluginCommand) {
-                        PluginCommand c = (PluginCommand) entry.getValue();
-                        if (c.getPlugin() == plugin) {
-                            c.unregister(commandMap);
-                            modifiedKnownCommands.remove(entry.getKey());
-                        }
-                        continue;
-                    }
-
-                    try {
-                        this.unregisterNonPluginCommands(plugin, commandMap, modifiedKnownCommands, entry);
-                    } catch (IllegalStateException e) {
-                        if (e.getMessage().equalsIgnoreCase("zip file closed")) {
-                            if (PlugMan.getInstance().isNotifyOnBrokenCommandRemoval())
-                                Logger.getLogger(BukkitPluginManager.class.getName()).info("Removing broken command '" + entry.getValue().getName() + "'!");
-                            entry.getValue().unregister(commandMap);
-                            modifiedKnownCommands.remove(entry.getKey());
-                        }
-                    }
-                }
+            timer.count("listeners", this.unregisterListeners(plugin));
+            timer.phase("listeners");
 
-                this.setKnownCommands(modifiedKnownCommands);
-            }
+            if (commandMap != null)
+                this.unregisterCommands(plugin, commandMap, commands);
+            timer.phase("commands");
 
             if (plugins != null)
                 plugins.remove(plugin);
 
             if (names != null)
                 names.remove(name);
+            timer.phase("lookup");
         }
 
+        this.sweep(plugin, timer);
+
         // Attempt to close the classloader to unlock any handles on the plugin's jar file.
         ClassLoader cl = plugin.getClass().getClassLoader();
         if (cl instanceof URLClassLoader) {
             try {
-
-                Field pluginField = cl.getClass().getDeclaredField("plugin");
-                pluginField.setAccessible(true);
-                pluginField.set(cl, null);
-
-                Field pluginInitField = cl.getClass().getDeclaredField("pluginInit");
-                pluginInitField.setAccessible(true);
-                pluginInitField.set(cl, null);
-
-            } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException ex) {
+                ServerInternals.get().clearClassLoader(cl);
+            } catch (IllegalStateException ex) {
                 Logger.getLogger(BukkitPluginManager.class.getName()).log(Level.SEVERE, null, ex);
             }
 
@@ -627,34 +532,91 @@ public class BukkitPluginManager implements PluginManager {
             }
 
         }
+        timer.phase("classloader");
 
-        // Will not work on processes started with the -XX:+DisableExplicitGC flag, but lets try it anyway.
-        // This tries to get around the issue where Windows refuses to unlock jar files that were previously loaded into the JVM.
-        System.gc();
+        this.releaseClassLoader(name, cl);
+        timer.phase("release").finish();
 
         return PlugMan.getInstance().getMessageFormatter().format("unload.unloaded", name);
 
     }
 
-    protected void unregisterNonPluginCommands(Plugin plugin, CommandMap commandMap, Map<String, Command> commands,
-                                               Map.Entry<String, Command> entry) {
-        Field pluginField = Arrays.stream(((Map.Entry<String, ? extends Command>) entry).getValue().getClass().getDeclaredFields())
-                                  .filter(field -> Plugin.class.isAssignableFrom(field.getType()))
-                                  .findFirst()
-                                  .orElse(null);
-        if (pluginField == null) return;
+    /**
+     * Removes the commands of a plugin, and commands of already unloaded plugins, from the known commands.
+     *
+     * @param plugin     the plugin
+     * @param commandMap the command map
+     * @param commands   the known commands of the command map, modified in place
+     */
+    protected void unregisterCommands(Plugin plugin, SimpleCommandMap commandMap, Map<String, Command> commands) {
+        CommandIndex index = CommandIndex.get();
 
-        Plugin owningPlugin;
-        try {
-            pluginField.setAccessible(true);
-            owningPlugin = (Plugin) pluginField.get(((Map.Entry<String, ? extends Command>) entry).getValue());
-            if (owningPlugin.getName().equalsIgnoreCase(plugin.getName())) {
-                ((Map.Entry<String, ? extends Command>) entry).getValue().unregister(commandMap);
-                commands.remove(entry.getKey());
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+        for (String alias : index.getAliases(commands, plugin)) {
+            Command command = commands.remove(alias);
+            if (command != null) command.unregister(commandMap);
+            index.remove(alias);
+        }
+
+        for (String alias : index.getBroken(commands)) {
+            Command command = commands.remove(alias);
+            index.remove(alias);
+            if (command == null) continue;
+
+            if (PlugMan.getInstance().isNotifyOnBrokenCommandRemoval())
+                Logger.getLogger(BukkitPluginManager.class.getName()).info("Removing broken command '" + command.getName() + "'!");
+            command.unregister(commandMap);
+        }
+    }
+
+    /**
+     * Removes the listeners a plugin still has after it was disabled, e.g. because it registered new ones in onDisable
+     * or disabling failed. Only the handler lists the plugin is registered in are unregistered from, and re-baked.
+     *
+     * @param plugin the disabled plugin
+     * @return the number of listeners removed, recorded with the timing of the unload
+     */
+    protected int unregisterListeners(Plugin plugin) {
+        int removed = 0;
+
+        for (HandlerList handlerList : HandlerList.getHandlerLists()) {
+            int count = 0;
+            for (RegisteredListener listener : handlerList.getRegisteredListeners())
+                if (listener.getPlugin() == plugin) count++;
+
+            if (count == 0) continue;
+            handlerList.unregister(plugin);
+            removed += count;
         }
+
+        return removed;
+    }
+
+    /**
+     * Cancels the tasks, unregisters the services and channels and stops the threads a disabled plugin left behind.
+     *
+     * @param plugin the disabled plugin
+     * @param timer  the timer of the unload
+     */
+    protected void sweep(Plugin plugin, OperationTimer timer) {
+        PlugMan plugman = PlugMan.getInstance();
+        long threadWaitMillis = plugman == null ? 500 : plugman.getConfig().getLong("unload.thread-stop-millis", 500);
+        new ResourceSweeper(plugin).sweep(threadWaitMillis, timer);
+    }
+
+    /**
+     * Hands the class loader of an unloaded plugin to the configured release strategy, instead of a GC per unload,
+     * and to the leak tracker.
+     *
+     * @param name        the name of the plugin
+     * @param classLoader the closed class loader of the plugin
+     */
+    protected void releaseClassLoader(String name, ClassLoader classLoader) {
+        // PlugMan is gone if it just unloaded itself.
+        PlugMan plugman = PlugMan.getInstance();
+        if (plugman == null) return;
+
+        if (plugman.getLeakTracker() != null) plugman.getLeakTracker().track(name, classLoader);
+        if (plugman.getClassLoaderRelease() != null) plugman.getClassLoaderRelease().release(name, classLoader);
     }
 
     @Override
@@ -675,31 +637,17 @@ public class BukkitPluginManager implements PluginManager {
     }
 
     protected synchronized void unloadCommands(Plugin plugin) {
-        Map<String, Command> knownCommands = this.getKnownCommands();
-        List<Map.Entry<String, Command>> commands = this.getCommandsFromPlugin(plugin);
-
-        for (Map.Entry<String, Command> entry : commands) {
-            String alias = entry.getKey();
-            PlugMan.getInstance().getBukkitCommandWrap().unwrap(alias);
-        }
-
-        for (Map.Entry<String, Command> entry : knownCommands.entrySet().stream().filter(stringCommandEntry -> Plugin.class.isAssignableFrom(stringCommandEntry.getValue().getClass())).filter(stringCommandEntry -> {
-            Field pluginField = Arrays.stream(stringCommandEntry.getValue().getClass().getDeclaredFields()).filter(field -> Plugin.class.isAssignableFrom(field.getType())).findFirst().orElse(null);
-            if (pluginField != null) {
-                Plugin owningPlugin;
-                try {
-                    owningPlugin = (Plugin) pluginField.get(stringCommandEntry.getValue());
-                    return owningPlugin.getName().equalsIgnoreCase(plugin.getName());
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            }
+        this.unloadCommands(CommandIndex.get().getAliases(this.getKnownCommands(), plugin));
+    }
 
-            return false;
-        }).collect(Collectors.toList())) {
-            String alias = entry.getKey();
+    /**
+     * Removes commands from the brigadier tree.
+     *
+     * @param aliases the aliases of the commands
+     */
+    protected synchronized void unloadCommands(Collection<String> aliases) {
+        for (String alias : aliases)
             PlugMan.getInstance().getBukkitCommandWrap().unwrap(alias);
-        }
 
         PlugMan.getInstance().getBukkitCommandWrap().sync();
     }
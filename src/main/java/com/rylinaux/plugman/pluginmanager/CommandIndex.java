@@ -0,0 +1,292 @@
+package com.rylinaux.plugman.pluginmanager;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Index of the owning plugin of every known command.
+ * <p>
+ * The index is updated incrementally: the commands of a plugin are added after it was loaded and removed when it is
+ * unloaded, looking only at that plugin's aliases. All known commands are only compared again if their number changed,
+ * i.e. someone else registered or removed commands, or if an alias that was looked up turns out to have been replaced.
+ * Owner fields are looked up once per command class, in a {@link ClassValue} so the classes of unloaded plugins are
+ * not kept alive.
+ */
+final class CommandIndex {
+
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private static CommandIndex instance = null;
+
+    /**
+     * The commands the index was last synced with, by alias.
+     */
+    private final Map<String, Command> indexed = new HashMap<>();
+
+    /**
+     * The name of the owning plugin, by alias.
+     */
+    private final Map<String, String> owners = new HashMap<>();
+
+    /**
+     * The aliases of every plugin, by lower-cased plugin name.
+     */
+    private final Map<String, Set<String>> aliases = new HashMap<>();
+
+    /**
+     * The aliases, by lower-cased label without the plugin prefix.
+     */
+    private final Map<String, Set<String>> labels = new HashMap<>();
+
+    /**
+     * Aliases of commands whose plugin jar is already closed.
+     */
+    private final Set<String> broken = new HashSet<>();
+
+    /**
+     * The getter of the first {@link Plugin} field of every command class, empty if there is none.
+     */
+    private static final ClassValue<Optional<MethodHandle>> OWNER_FIELDS = new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+            return CommandIndex.findOwnerField(type);
+        }
+    };
+
+    private CommandIndex() {
+    }
+
+    /**
+     * Get the index.
+     *
+     * @return the index
+     */
+    static synchronized CommandIndex get() {
+        if (CommandIndex.instance == null) CommandIndex.instance = new CommandIndex();
+        return CommandIndex.instance;
+    }
+
+    /**
+     * Get the aliases a plugin has registered.
+     *
+     * @param knownCommands the known commands
+     * @param plugin        the plugin
+     * @return a copy of the aliases
+     */
+    synchronized List<String> getAliases(Map<String, Command> knownCommands, Plugin plugin) {
+        this.sync(knownCommands);
+
+        String key = plugin.getName().toLowerCase(Locale.ROOT);
+        if (!this.isCurrent(knownCommands, this.aliases.get(key))) this.resync(knownCommands);
+
+        Set<String> pluginAliases = this.aliases.get(key);
+        return pluginAliases == null ? new ArrayList<>() : new ArrayList<>(pluginAliases);
+    }
+
+    /**
+     * Get the names of the plugins that registered a command.
+     *
+     * @param knownCommands the known commands
+     * @param label         the command, without the plugin prefix
+     * @return the plugin names
+     */
+    synchronized List<String> getOwners(Map<String, Command> knownCommands, String label) {
+        this.sync(knownCommands);
+
+        List<String> result = new ArrayList<>();
+        String key = label.toLowerCase(Locale.ROOT);
+        if (!this.isCurrent(knownCommands, this.labels.get(key))) this.resync(knownCommands);
+
+        Set<String> labelAliases = this.labels.get(key);
+        if (labelAliases == null) return result;
+
+        for (String alias : labelAliases) {
+            String owner = this.owners.get(alias);
+            if (owner != null && !result.contains(owner)) result.add(owner);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the aliases of commands whose plugin jar is already closed.
+     *
+     * @param knownCommands the known commands
+     * @return a copy of the aliases
+     */
+    synchronized List<String> getBroken(Map<String, Command> knownCommands) {
+        this.sync(knownCommands);
+        if (!this.isCurrent(knownCommands, this.broken)) this.resync(knownCommands);
+        return new ArrayList<>(this.broken);
+    }
+
+    /**
+     * Indexes the commands a plugin declared in its plugin.yml, after it was loaded. Commands it registered in another
+     * way change the number of known commands and are picked up by the next lookup.
+     *
+     * @param knownCommands the known commands
+     * @param plugin        the loaded plugin
+     */
+    synchronized void added(Map<String, Command> knownCommands, Plugin plugin) {
+        Map<String, Map<String, Object>> commands = plugin.getDescription().getCommands();
+        if (commands == null) return;
+
+        String prefix = plugin.getName().toLowerCase(Locale.ROOT) + ":";
+        for (Map.Entry<String, Map<String, Object>> entry : commands.entrySet()) {
+            List<String> labels = new ArrayList<>();
+            labels.add(entry.getKey());
+
+            Object commandAliases = entry.getValue() == null ? null : entry.getValue().get("aliases");
+            if (commandAliases instanceof Collection)
+                for (Object alias : (Collection<?>) commandAliases) labels.add(String.valueOf(alias));
+            else if (commandAliases != null)
+                labels.add(String.valueOf(commandAliases));
+
+            for (String label : labels) {
+                label = label.toLowerCase(Locale.ROOT);
+                this.update(label, knownCommands.get(label));
+                this.update(prefix + label, knownCommands.get(prefix + label));
+            }
+        }
+    }
+
+    /**
+     * Removes an alias from the index after it was removed from the known commands.
+     *
+     * @param alias the alias
+     */
+    synchronized void remove(String alias) {
+        this.indexed.remove(alias);
+        this.broken.remove(alias);
+
+        String owner = this.owners.remove(alias);
+        if (owner != null) CommandIndex.removeFrom(this.aliases, owner.toLowerCase(Locale.ROOT), alias);
+
+        CommandIndex.removeFrom(this.labels, CommandIndex.getLabel(alias), alias);
+    }
+
+    /**
+     * Compares all known commands again if their number no longer matches the index.
+     *
+     * @param knownCommands the known commands
+     */
+    private void sync(Map<String, Command> knownCommands) {
+        if (knownCommands.size() != this.indexed.size()) this.resync(knownCommands);
+    }
+
+    /**
+     * Whether the given aliases still map to the indexed commands.
+     */
+    private boolean isCurrent(Map<String, Command> knownCommands, Collection<String> aliases) {
+        if (aliases == null) return true;
+
+        for (String alias : aliases)
+            if (knownCommands.get(alias) != this.indexed.get(alias)) return false;
+        return true;
+    }
+
+    /**
+     * Brings the index up-to-date by comparing its commands with all known commands by identity, so commands that were
+     * added, removed or replaced under the same alias are noticed, no matter who changed the known commands.
+     *
+     * @param knownCommands the known commands
+     */
+    private void resync(Map<String, Command> knownCommands) {
+        for (String alias : new ArrayList<>(this.indexed.keySet()))
+            if (!knownCommands.containsKey(alias)) this.remove(alias);
+
+        for (Map.Entry<String, Command> entry : knownCommands.entrySet())
+            this.update(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Brings a single alias up-to-date.
+     *
+     * @param alias   the alias
+     * @param command the command known under the alias, or null if there is none
+     */
+    private void update(String alias, Command command) {
+        Command previous = this.indexed.get(alias);
+        if (previous == command) return;
+        if (previous != null) this.remove(alias);
+        if (command != null) this.add(alias, command);
+    }
+
+    private void add(String alias, Command command) {
+        this.indexed.put(alias, command);
+        this.labels.computeIfAbsent(CommandIndex.getLabel(alias), label -> new HashSet<>()).add(alias);
+
+        String owner;
+        try {
+            owner = this.resolveOwner(command);
+        } catch (IllegalStateException e) {
+            if ("zip file closed".equalsIgnoreCase(e.getMessage())) this.broken.add(alias);
+            return;
+        }
+
+        if (owner == null) return;
+
+        this.owners.put(alias, owner);
+        this.aliases.computeIfAbsent(owner.toLowerCase(Locale.ROOT), name -> new HashSet<>()).add(alias);
+    }
+
+    /**
+     * Finds the plugin owning a command, from the command itself, a plugin field or its class loader. The prefix of the
+     * alias is not used, any plugin may register commands under any prefix.
+     *
+     * @param command the command
+     * @return the plugin name, or null if the command does not belong to a plugin
+     */
+    private String resolveOwner(Command command) {
+        if (command instanceof PluginCommand) return ((PluginCommand) command).getPlugin().getName();
+
+        MethodHandle ownerField = CommandIndex.OWNER_FIELDS.get(command.getClass()).orElse(null);
+        if (ownerField != null) try {
+            Plugin owner = (Plugin) (Object) ownerField.invokeExact((Object) command);
+            if (owner != null) return owner.getName();
+        } catch (Throwable ignored) {
+        }
+
+        try {
+            Plugin owner = ServerInternals.get().getClassLoaderPlugin(command.getClass().getClassLoader());
+            if (owner != null) return owner.getName();
+        } catch (IllegalStateException ignored) {
+        }
+
+        return null;
+    }
+
+    private static Optional<MethodHandle> findOwnerField(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (!Plugin.class.isAssignableFrom(field.getType()) || Modifier.isStatic(field.getModifiers())) continue;
+
+            try {
+                field.setAccessible(true);
+                return Optional.of(MethodHandles.lookup().unreflectGetter(field).asType(CommandIndex.GETTER));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String getLabel(String alias) {
+        return alias.substring(alias.indexOf(':') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String alias) {
+        Set<String> values = index.get(key);
+        if (values == null) return;
+
+        values.remove(alias);
+        if (values.isEmpty()) index.remove(key);
+    }
+}
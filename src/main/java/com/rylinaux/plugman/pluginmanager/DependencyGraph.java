@@ -0,0 +1,191 @@
+package com.rylinaux.plugman.pluginmanager;
+
+import org.bukkit.plugin.PluginDescriptionFile;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The load order of a set of plugins, built from their {@code depend}, {@code softdepend} and {@code loadbefore}.
+ * <p>
+ * A plugin comes after everything it depends on, plugins that do not depend on each other keep their original order.
+ * A dependency can also name a plugin by what it {@code provides}, like the server resolves it. Dependencies outside of
+ * the set are ignored. Plugins on a dependency cycle are placed in their original order after everything else they
+ * depend on, like the server does.
+ *
+ * @param <T> the type of the plugins, e.g. loaded plugins or jars
+ */
+final class DependencyGraph<T> {
+
+    /**
+     * The plugins in their original order.
+     */
+    private final List<T> plugins;
+
+    /**
+     * For every plugin, the indices of the plugins it has to come after.
+     */
+    private final List<Set<Integer>> dependencies;
+
+    private DependencyGraph(List<T> plugins, List<Set<Integer>> dependencies) {
+        this.plugins = plugins;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Builds the graph.
+     *
+     * @param plugins     the plugins, in the order ties are broken in
+     * @param description gets the description of a plugin
+     * @param <T>         the type of the plugins
+     * @return the graph
+     */
+    static <T> DependencyGraph<T> of(Collection<T> plugins, Function<T, PluginDescriptionFile> description) {
+        List<T> list = new ArrayList<>(plugins);
+        List<PluginDescriptionFile> descriptions = new ArrayList<>(list.size());
+        Map<String, Integer> indices = new HashMap<>();
+
+        for (int i = 0; i < list.size(); i++) {
+            PluginDescriptionFile file = description.apply(list.get(i));
+            descriptions.add(file);
+            indices.putIfAbsent(file.getName(), i);
+        }
+
+        // Real names win over provided ones.
+        for (int i = 0; i < list.size(); i++)
+            for (String provided : DependencyGraph.getProvides(descriptions.get(i)))
+                indices.putIfAbsent(provided, i);
+
+        List<Set<Integer>> dependencies = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) dependencies.add(new HashSet<>());
+
+        for (int i = 0; i < list.size(); i++) {
+            PluginDescriptionFile file = descriptions.get(i);
+            DependencyGraph.addEdges(dependencies.get(i), i, file.getDepend(), indices);
+            DependencyGraph.addEdges(dependencies.get(i), i, file.getSoftDepend(), indices);
+
+            // loadbefore is the other way around: the named plugins come after this one
+            for (String name : file.getLoadBefore()) {
+                Integer after = indices.get(name);
+                if (after != null && after != i) dependencies.get(after).add(i);
+            }
+        }
+
+        return new DependencyGraph<>(list, dependencies);
+    }
+
+    private static List<String> getProvides(PluginDescriptionFile file) {
+        try {
+            return file.getProvides();
+        } catch (NoSuchMethodError e) {
+            // Older servers do not know provides, so they cannot resolve dependencies by it either.
+            return Collections.emptyList();
+        }
+    }
+
+    private static void addEdges(Set<Integer> dependencies, int self, List<String> names, Map<String, Integer> indices) {
+        for (String name : names) {
+            Integer index = indices.get(name);
+            if (index != null && index != self) dependencies.add(index);
+        }
+    }
+
+    /**
+     * Get the order plugins have to be loaded or enabled in.
+     *
+     * @return the plugins, dependencies first
+     */
+    List<T> getLoadOrder() {
+        return this.order(this.allIndices());
+    }
+
+    /**
+     * Get the order plugins have to be unloaded or disabled in.
+     *
+     * @return the plugins, dependents first
+     */
+    List<T> getUnloadOrder() {
+        List<T> order = this.getLoadOrder();
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Splits the plugins into groups that do not depend on each other in any direction.
+     *
+     * @return the groups, each in load order, ordered by their first plugin
+     */
+    List<List<T>> getComponents() {
+        int[] parents = new int[this.plugins.size()];
+        for (int i = 0; i < parents.length; i++) parents[i] = i;
+
+        for (int i = 0; i < parents.length; i++)
+            for (int dependency : this.dependencies.get(i))
+                parents[DependencyGraph.find(parents, i)] = DependencyGraph.find(parents, dependency);
+
+        Map<Integer, SortedSet<Integer>> components = new LinkedHashMap<>();
+        for (int i = 0; i < parents.length; i++)
+            components.computeIfAbsent(DependencyGraph.find(parents, i), root -> new TreeSet<>()).add(i);
+
+        List<List<T>> result = new ArrayList<>(components.size());
+        for (SortedSet<Integer> component : components.values())
+            result.add(this.order(component));
+        return result;
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    private SortedSet<Integer> allIndices() {
+        SortedSet<Integer> indices = new TreeSet<>();
+        for (int i = 0; i < this.plugins.size(); i++) indices.add(i);
+        return indices;
+    }
+
+    /**
+     * Topologically sorts some of the plugins, always taking the first ready plugin in the original order.
+     */
+    private List<T> order(SortedSet<Integer> indices) {
+        Map<Integer, Integer> missing = new HashMap<>();
+        Map<Integer, List<Integer>> dependents = new HashMap<>();
+        for (int index : indices) {
+            int count = 0;
+            for (int dependency : this.dependencies.get(index)) {
+                if (!indices.contains(dependency)) continue;
+                count++;
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(index);
+            }
+            missing.put(index, count);
+        }
+
+        TreeSet<Integer> ready = new TreeSet<>();
+        for (int index : indices)
+            if (missing.get(index) == 0) ready.add(index);
+
+        List<T> order = new ArrayList<>(indices.size());
+        Set<Integer> placed = new HashSet<>();
+        while (placed.size() < indices.size()) {
+            Integer next = ready.pollFirst();
+
+            // Only cycles are left, break them at the first remaining plugin.
+            if (next == null)
+                for (int index : indices)
+                    if (!placed.contains(index)) {
+                        next = index;
+                        break;
+                    }
+
+            if (!placed.add(next)) continue;
+            order.add(this.plugins.get(next));
+
+            for (int dependent : dependents.getOrDefault(next, Collections.emptyList()))
+                if (missing.merge(dependent, -1, Integer::sum) == 0 && !placed.contains(dependent)) ready.add(dependent);
+        }
+        return order;
+    }
+}
@@ -3,19 +3,14 @@ package com.rylinaux.plugman.pluginmanager;
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.api.GentleUnload;
 import com.rylinaux.plugman.api.PlugManAPI;
+import com.rylinaux.plugman.stats.OperationTimer;
 import com.rylinaux.plugman.util.BukkitCommandWrapUseless;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
-import org.bukkit.command.PluginCommand;
 import org.bukkit.command.SimpleCommandMap;
-import org.bukkit.event.Event;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.plugin.RegisteredListener;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
-import java.util.logging.Logger;
 
 public class ModernPaperPluginManager extends PaperPluginManager {
 
@@ -26,111 +21,56 @@ public class ModernPaperPluginManager extends PaperPluginManager {
     @Override
     public String unload(Plugin plugin) {
         String name = plugin.getName();
+        List<String> aliases = null;
+        OperationTimer timer = OperationTimer.start("unload", name);
+
+        this.invalidatePaperPluginIndex();
 
         if (PlugManAPI.getGentleUnloads().containsKey(plugin)) {
             GentleUnload gentleUnload = PlugManAPI.getGentleUnloads().get(plugin);
             if (!gentleUnload.askingForGentleUnload())
                 return name + "did not want to unload";
+            timer.phase("gentle-unload");
         } else {
             org.bukkit.plugin.PluginManager pluginManager = Bukkit.getPluginManager();
             SimpleCommandMap commandMap;
             List<Plugin> plugins;
             Map<String, Plugin> names;
             Map<String, Command> commands;
-            Map<Event, SortedSet<RegisteredListener>> listeners = null;
             Map<String, Object> lookupNames;
             List<Plugin> pluginList;
-            boolean reloadlisteners = true;
-
-            pluginManager.disablePlugin(plugin);
-            try {
-                Class<?> paper = Class.forName("io.papermc.paper.plugin.manager.PaperPluginManagerImpl");
-                Object paperPluginManagerImpl = paper.getMethod("getInstance").invoke(null);
-
-                Field instanceManagerField = paperPluginManagerImpl.getClass().getDeclaredField("instanceManager");
-                instanceManagerField.setAccessible(true);
-                Object instanceManager = instanceManagerField.get(paperPluginManagerImpl);
-
-                Field lookupNamesField = instanceManager.getClass().getDeclaredField("lookupNames");
-                lookupNamesField.setAccessible(true);
-                lookupNames = (Map<String, Object>) lookupNamesField.get(instanceManager);
-
 
-                Field pluginsField = instanceManager.getClass().getDeclaredField("plugins");
-                pluginsField.setAccessible(true);
-                pluginList = (List<Plugin>) pluginsField.get(instanceManager);
 
-                pluginsField = Bukkit.getPluginManager().getClass().getDeclaredField("plugins");
-                pluginsField.setAccessible(true);
-                plugins = (List<Plugin>) pluginsField.get(pluginManager);
-
-                lookupNamesField = Bukkit.getPluginManager().getClass().getDeclaredField("lookupNames");
-                lookupNamesField.setAccessible(true);
-                names = (Map<String, Plugin>) lookupNamesField.get(pluginManager);
+            pluginManager.disablePlugin(plugin);
+            timer.phase("disable");
 
-                try {
-                    Field listenersField = Bukkit.getPluginManager().getClass().getDeclaredField("listeners");
-                    listenersField.setAccessible(true);
-                    listeners = (Map<Event, SortedSet<RegisteredListener>>) listenersField.get(pluginManager);
-                } catch (Exception e) {
-                    reloadlisteners = false;
-                }
+            try {
+                ServerInternals internals = ServerInternals.get();
+                Object instanceManager = internals.getPaperInstanceManager();
 
-                Field commandMapField = Bukkit.getPluginManager().getClass().getDeclaredField("commandMap");
-                commandMapField.setAccessible(true);
-                commandMap = (SimpleCommandMap) commandMapField.get(pluginManager);
+                lookupNames = internals.getPaperLookupNames(instanceManager);
+                pluginList = internals.getPaperPlugins(instanceManager);
 
-                Field knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
-                knownCommandsField.setAccessible(true);
-                commands = (Map<String, Command>) knownCommandsField.get(commandMap);
+                plugins = internals.getPlugins(pluginManager);
+                names = internals.getLookupNames(pluginManager);
 
-            } catch (ClassNotFoundException | NoSuchMethodException | NoSuchFieldException | IllegalAccessException | InvocationTargetException e) {
+                commandMap = internals.getCommandMap(pluginManager);
+                commands = internals.getKnownCommands(commandMap);
+            } catch (IllegalStateException e) {
                 e.printStackTrace();
+                timer.phase("internals").finish();
                 return PlugMan.getInstance().getMessageFormatter().format("unload.failed", name);
             }
+            timer.phase("internals");
 
-            if (listeners != null && reloadlisteners)
-                for (SortedSet<RegisteredListener> set : listeners.values())
-                    set.removeIf(value -> value.getPlugin() == plugin);
-
-            if (commandMap != null)
-                for (Map.Entry<String, Command> entry : new HashSet<>(commands.entrySet())) {
-                    if (entry.getValue() instanceof PluginCommand) {
-                        PluginCommand c = (PluginCommand) entry.getValue();
-                        if (c.getPlugin().equals(plugin)) {
-                            c.unregister(commandMap);
-                            commands.remove(entry.getKey());
-                        }
-                        continue;
-                    }
-
-                    try {
-                        Field pluginField = Arrays.stream(entry.getValue().getClass().getDeclaredFields())
-                                                  .filter(field -> Plugin.class.isAssignableFrom(field.getType()))
-                                                  .findFirst()
-                                                  .orElse(null);
-                        if (pluginField != null) {
-                            Plugin owningPlugin;
-                            try {
-                                pluginField.setAccessible(true);
-                                owningPlugin = (Plugin) pluginField.get(entry.getValue());
-                                if (owningPlugin.getName().equalsIgnoreCase(plugin.getName())) {
-                                    entry.getValue().unregister(commandMap);
-                                    commands.remove(entry.getKey());
-                                }
-                            } catch (IllegalAccessException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    } catch (IllegalStateException e) {
-                        if (e.getMessage().equalsIgnoreCase("zip file closed")) {
-                            if (PlugMan.getInstance().isNotifyOnBrokenCommandRemoval())
-                                Logger.getLogger(PaperPluginManager.class.getName()).info("Removing broken command '" + entry.getValue().getName() + "'!");
-                            entry.getValue().unregister(commandMap);
-                            commands.remove(entry.getKey());
-                        }
-                    }
-                }
+            timer.count("listeners", this.unregisterListeners(plugin));
+            timer.phase("listeners");
+
+            if (commandMap != null) {
+                aliases = CommandIndex.get().getAliases(commands, plugin);
+                this.unregisterCommands(plugin, commandMap, commands);
+            }
+            timer.phase("commands");
 
             // The plugin can only be removed from the lookup names and the plugin list AFTER the commands are unregistered, to avoid issues with commands created via Paper's Brigadier API
             lookupNames.remove(plugin.getName().toLowerCase());
@@ -140,17 +80,23 @@ public class ModernPaperPluginManager extends PaperPluginManager {
                 plugins.remove(plugin);
             if (names != null)
                 names.remove(name);
+            timer.phase("lookup");
+        }
+
+        if (!(PlugMan.getInstance().getBukkitCommandWrap() instanceof BukkitCommandWrapUseless)) {
+            if (aliases == null) this.unloadCommands(plugin);
+            else this.unloadCommands(aliases);
         }
+        timer.phase("unwrap-commands");
 
-        if (!(PlugMan.getInstance().getBukkitCommandWrap() instanceof BukkitCommandWrapUseless))
-            this.unloadCommands(plugin);
+        this.sweep(plugin, timer);
 
         // Attempt to close the classloader to unlock any handles on the plugin's jar file.
         this.closeClassLoader(plugin);
+        timer.phase("classloader");
 
-        // Will not work on processes started with the -XX:+DisableExplicitGC flag, but lets try it anyway.
-        // This tries to get around the issue where Windows refuses to unlock jar files that were previously loaded into the JVM.
-        System.gc();
+        this.releaseClassLoader(name, plugin.getClass().getClassLoader());
+        timer.phase("release").finish();
 
         return PlugMan.getInstance().getMessageFormatter().format("unload.unloaded", name);
 
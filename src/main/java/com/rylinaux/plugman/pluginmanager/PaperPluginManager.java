@@ -29,14 +29,14 @@ package com.rylinaux.plugman.pluginmanager;
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.api.GentleUnload;
 import com.rylinaux.plugman.api.PlugManAPI;
+import com.rylinaux.plugman.catalog.PluginCatalog;
+import com.rylinaux.plugman.stats.OperationTimer;
 import com.rylinaux.plugman.util.BukkitCommandWrapUseless;
 import com.rylinaux.plugman.util.StringUtil;
 import io.papermc.paper.plugin.configuration.PluginMeta;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
-import org.bukkit.command.PluginCommand;
 import org.bukkit.command.SimpleCommandMap;
-import org.bukkit.event.Event;
 import org.bukkit.plugin.*;
 import org.yaml.snakeyaml.error.YAMLException;
 
@@ -44,11 +44,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.net.URLClassLoader;
-import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -64,67 +62,57 @@ public class PaperPluginManager implements PluginManager {
 
     private final BukkitPluginManager _bukkitPluginManager;
 
+    /**
+     * Whether a registered provider is a paper-plugin, by lower-cased plugin name. Null until first used or after a
+     * plugin was (un)loaded.
+     */
+    private volatile Map<String, Boolean> paperPluginIndex = null;
+
     public PaperPluginManager(BukkitPluginManager bukkitPluginManager) {
         this._bukkitPluginManager = bukkitPluginManager;
-
-        try {
-            Class<?> pluginClassLoader = Class.forName("org.bukkit.plugin.java.PluginClassLoader");
-            Field pluginClassLoaderPlugin = pluginClassLoader.getDeclaredField("plugin");
-            pluginClassLoaderPlugin.setAccessible(true);
-        } catch (ClassNotFoundException | NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
     }
 
-    //TODO: Make it look better
     @Override
     public boolean isPaperPlugin(Plugin plugin) {
-        try {
-            Field instanceField = Class.forName("io.papermc.paper.plugin.entrypoint.LaunchEntryPointHandler").getField("INSTANCE");
-
-            instanceField.setAccessible(true);
-
-            Object instance = instanceField.get(null);
-
-            Method getMethod = Arrays.stream(instance.getClass().getDeclaredMethods())
-                    .filter(method -> method.getName().equals("get"))
-                    .findFirst()
-                    .orElse(null);
-
-            if (getMethod == null)
-                return false;
-
-            Field pluginField = Class.forName("io.papermc.paper.plugin.entrypoint.Entrypoint").getDeclaredField("PLUGIN");
-
-            Object providerStorage = getMethod.invoke(instance, pluginField.get(null));
-
-            if (providerStorage == null)
-                return false;
-
-            Method getRegisteredProvidersMethod = providerStorage.getClass().getMethod("getRegisteredProviders");
-
-
-            List providers = (List) getRegisteredProvidersMethod.invoke(providerStorage);
-
-            for (Object provider : providers)
-                try {
-                    Method getMetaMethod = provider.getClass().getMethod("getMeta");
+        Boolean paperPlugin = this.getPaperPluginIndex().get(plugin.getName().toLowerCase(Locale.ROOT));
+        return paperPlugin != null && paperPlugin;
+    }
 
-                    PluginMeta configuration = (PluginMeta) getMetaMethod.invoke(provider);
+    /**
+     * Get the index of all registered providers, building it if it was invalidated.
+     *
+     * @return whether a provider is a paper-plugin, by lower-cased plugin name
+     */
+    private Map<String, Boolean> getPaperPluginIndex() {
+        Map<String, Boolean> index = this.paperPluginIndex;
+        if (index != null) return index;
 
-                    if (!configuration.getName().equalsIgnoreCase(plugin.getName()))
-                        continue;
+        index = new HashMap<>();
 
-                    return Class.forName("io.papermc.paper.plugin.provider.type.paper.PaperPluginParent$PaperServerPluginProvider").isAssignableFrom(provider.getClass());
-                } catch (Throwable ignored) {
-                    return false;
-                }
+        try {
+            ServerInternals internals = ServerInternals.get();
+            Iterable<?> providers = internals.getPaperPluginProviders();
 
+            if (providers != null)
+                for (Object provider : providers)
+                    try {
+                        PluginMeta configuration = (PluginMeta) internals.getPaperProviderMeta(provider);
+                        index.putIfAbsent(configuration.getName().toLowerCase(Locale.ROOT), internals.isPaperServerPluginProvider(provider));
+                    } catch (Throwable ignored) {
+                    }
         } catch (Throwable throwable) {
             throwable.printStackTrace();
         }
 
-        return false;
+        this.paperPluginIndex = index;
+        return index;
+    }
+
+    /**
+     * Drops the paper-plugin index, it is rebuilt on next use.
+     */
+    protected void invalidatePaperPluginIndex() {
+        this.paperPluginIndex = null;
     }
 
     /**
@@ -144,9 +132,31 @@ public class PaperPluginManager implements PluginManager {
      */
     @Override
     public void enableAll() {
+        for (Plugin plugin : this.getBulkGraph().getLoadOrder())
+            this.enable(plugin);
+    }
+
+    /**
+     * Get the plugins bulk operations act on, grouped by dependencies.
+     *
+     * @return groups of plugins that do not depend on each other, each in dependency order
+     */
+    @Override
+    public List<List<Plugin>> getBulkTargets() {
+        return this.getBulkGraph().getComponents();
+    }
+
+    /**
+     * Get the dependency graph of the plugins bulk operations act on.
+     *
+     * @return the graph of the plugins that are neither ignored nor Paper plugins
+     */
+    private DependencyGraph<Plugin> getBulkGraph() {
+        List<Plugin> targets = new ArrayList<>();
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
             if (!this.isIgnored(plugin) && !this.isPaperPlugin(plugin))
-                this.enable(plugin);
+                targets.add(plugin);
+        return DependencyGraph.of(targets, Plugin::getDescription);
     }
 
     /**
@@ -166,9 +176,8 @@ public class PaperPluginManager implements PluginManager {
      */
     @Override
     public void disableAll() {
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            if (!this.isIgnored(plugin) && !this.isPaperPlugin(plugin))
-                this.disable(plugin);
+        for (Plugin plugin : this.getBulkGraph().getUnloadOrder())
+            this.disable(plugin);
     }
 
     /**
@@ -366,42 +375,30 @@ public class PaperPluginManager implements PluginManager {
         Plugin target = null;
         boolean paperLoaded = false;
 
+        this.invalidatePaperPluginIndex();
+
         File pluginDir = new File("plugins");
 
         if (!pluginDir.isDirectory())
             return PlugMan.getInstance().getMessageFormatter().format("load.plugin-directory");
 
-        File pluginFile = new File(pluginDir, name + ".jar");
+        PluginCatalog catalog = PlugMan.getInstance().getPluginCatalog();
+        File pluginFile = catalog.findPluginFile(name);
 
-        if (!pluginFile.isFile())
-            for (File f : pluginDir.listFiles())
-                if (f.getName().endsWith(".jar")) try {
-                    PluginDescriptionFile desc = this.getPluginDescription(f);
-                    if (desc.getName().equalsIgnoreCase(name)) {
-                        pluginFile = f;
-                        break;
-                    }
-                } catch (InvalidDescriptionException e) {
-                    return PlugMan.getInstance().getMessageFormatter().format("load.cannot-find");
-                }
-
-        try {
-            Class paper = Class.forName("io.papermc.paper.plugin.manager.PaperPluginManagerImpl");
-            Object paperPluginManagerImpl = paper.getMethod("getInstance").invoke(null);
+        if (pluginFile == null)
+            return PlugMan.getInstance().getMessageFormatter().format(catalog.isIndexed() ? "load.cannot-find" : "load.indexing");
 
-            Field instanceManagerF = paperPluginManagerImpl.getClass().getDeclaredField("instanceManager");
-            instanceManagerF.setAccessible(true);
-            Object instanceManager = instanceManagerF.get(paperPluginManagerImpl);
+        OperationTimer timer = OperationTimer.start("load", name);
 
-            Method loadMethod = instanceManager.getClass().getMethod("loadPlugin", Path.class);
-            loadMethod.setAccessible(true);
-            target = (Plugin) loadMethod.invoke(instanceManager, pluginFile.toPath());
+        try {
+            ServerInternals internals = ServerInternals.get();
+            Object instanceManager = internals.getPaperInstanceManager();
 
-            Method enableMethod = instanceManager.getClass().getMethod("enablePlugin", Plugin.class);
-            enableMethod.setAccessible(true);
-            enableMethod.invoke(instanceManager, target);
+            target = internals.paperLoadPlugin(instanceManager, pluginFile.toPath());
+            internals.paperEnablePlugin(instanceManager, target);
 
             paperLoaded = true;
+            timer.phase("paper-load");
         } catch (Exception ignore) {
         } // Paper most likely not loaded
 
@@ -416,10 +413,17 @@ public class PaperPluginManager implements PluginManager {
                 return PlugMan.getInstance().getMessageFormatter().format("load.invalid-plugin");
             }
 
+            timer.phase("classloader");
+
             target.onLoad();
+            timer.phase("onload");
+
             Bukkit.getPluginManager().enablePlugin(target);
+            timer.phase("enable");
         }
 
+        CommandIndex.get().added(this.getKnownCommands(), target);
+
         if (!(PlugMan.getInstance().getBukkitCommandWrap() instanceof BukkitCommandWrapUseless)) {
             Plugin finalTarget = target;
 
@@ -430,6 +434,8 @@ public class PaperPluginManager implements PluginManager {
             PlugMan.getInstance().getFilePluginMap().put(pluginFile.getName(), target.getName());
         }
 
+        timer.phase("commands").finish();
+
         return PlugMan.getInstance().getMessageFormatter().format("load.loaded", target.getName());
     }
 
@@ -441,6 +447,37 @@ public class PaperPluginManager implements PluginManager {
         this._bukkitPluginManager.unloadCommands(target);
     }
 
+    protected void unloadCommands(Collection<String> aliases) {
+        this._bukkitPluginManager.unloadCommands(aliases);
+    }
+
+    protected void unregisterCommands(Plugin plugin, SimpleCommandMap commandMap, Map<String, Command> commands) {
+        this._bukkitPluginManager.unregisterCommands(plugin, commandMap, commands);
+    }
+
+    protected int unregisterListeners(Plugin plugin) {
+        return this._bukkitPluginManager.unregisterListeners(plugin);
+    }
+
+    protected void sweep(Plugin plugin, OperationTimer timer) {
+        this._bukkitPluginManager.sweep(plugin, timer);
+    }
+
+    protected void releaseClassLoader(String name, ClassLoader classLoader) {
+        this._bukkitPluginManager.releaseClassLoader(name, classLoader);
+    }
+
+    /**
+     * Loads and enables several plugins in dependency order, the jars are read in parallel off the main thread.
+     *
+     * @param names the file or plugin names, {@code *} and {@code ?} match any characters
+     * @return the status messages, completed on the main thread
+     */
+    @Override
+    public CompletableFuture<List<String>> loadAll(Collection<String> names) {
+        return new BatchLoader(this).load(names);
+    }
+
     @Override
     public Map<String, Command> getKnownCommands() {
         return this._bukkitPluginManager.getKnownCommands();
@@ -459,8 +496,11 @@ public class PaperPluginManager implements PluginManager {
     @Override
     public void reload(Plugin plugin) {
         if (plugin != null) {
+            OperationTimer timer = OperationTimer.start("reload", plugin.getName());
             this.unload(plugin);
+            timer.phase("unload");
             this.load(plugin);
+            timer.phase("load").finish();
         }
     }
 
@@ -469,9 +509,13 @@ public class PaperPluginManager implements PluginManager {
      */
     @Override
     public void reloadAll() {
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            if (!this.isIgnored(plugin) && !this.isPaperPlugin(plugin))
-                this.reload(plugin);
+        // Dependents are unloaded first and loaded last, so every plugin is reloaded once, against fresh dependencies.
+        for (List<Plugin> component : this.getBulkTargets()) {
+            for (int i = component.size() - 1; i >= 0; i--)
+                this.unload(component.get(i));
+            for (Plugin plugin : component)
+                this.load(plugin);
+        }
     }
 
     /**
@@ -483,14 +527,19 @@ public class PaperPluginManager implements PluginManager {
     @Override
     public String unload(Plugin plugin) {
         String name = plugin.getName();
+        OperationTimer timer = OperationTimer.start("unload", name);
+
+        this.invalidatePaperPluginIndex();
 
         if (PlugManAPI.getGentleUnloads().containsKey(plugin)) {
             GentleUnload gentleUnload = PlugManAPI.getGentleUnloads().get(plugin);
             if (!gentleUnload.askingForGentleUnload())
                 return name + "did not want to unload";
+            timer.phase("gentle-unload");
         } else {
             if (!(PlugMan.getInstance().getBukkitCommandWrap() instanceof BukkitCommandWrapUseless))
                 this.unloadCommands(plugin);
+            timer.phase("unwrap-commands");
 
             org.bukkit.plugin.PluginManager pluginManager = Bukkit.getPluginManager();
 
@@ -500,118 +549,72 @@ public class PaperPluginManager implements PluginManager {
 
             Map<String, Plugin> names = null;
             Map<String, Command> commands = null;
-            Map<Event, SortedSet<RegisteredListener>> listeners = null;
-
-            boolean reloadlisteners = true;
 
             if (pluginManager != null) {
+
                 pluginManager.disablePlugin(plugin);
+                timer.phase("disable");
 
                 try {
-                    Field pluginsField = Bukkit.getPluginManager().getClass().getDeclaredField("plugins");
-                    pluginsField.setAccessible(true);
-                    plugins = (List<Plugin>) pluginsField.get(pluginManager);
-
-                    Field lookupNamesField = Bukkit.getPluginManager().getClass().getDeclaredField("lookupNames");
-                    lookupNamesField.setAccessible(true);
-                    names = (Map<String, Plugin>) lookupNamesField.get(pluginManager);
-
-                    try {
-                        Field listenersField = Bukkit.getPluginManager().getClass().getDeclaredField("listeners");
-                        listenersField.setAccessible(true);
-                        listeners = (Map<Event, SortedSet<RegisteredListener>>) listenersField.get(pluginManager);
-                    } catch (Exception e) {
-                        reloadlisteners = false;
-                    }
-
-                    Field commandMapField = Bukkit.getPluginManager().getClass().getDeclaredField("commandMap");
-                    commandMapField.setAccessible(true);
-                    commandMap = (SimpleCommandMap) commandMapField.get(pluginManager);
+                    ServerInternals internals = ServerInternals.get();
 
-                    Field knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
-                    knownCommandsField.setAccessible(true);
-                    commands = (Map<String, Command>) knownCommandsField.get(commandMap);
+                    plugins = internals.getPlugins(pluginManager);
+                    names = internals.getLookupNames(pluginManager);
 
-                } catch (NoSuchFieldException | IllegalAccessException e) {
+                    commandMap = internals.getCommandMap(pluginManager);
+                    commands = internals.getKnownCommands(commandMap);
+                } catch (IllegalStateException e) {
                     e.printStackTrace();
+                    timer.phase("internals").finish();
                     return PlugMan.getInstance().getMessageFormatter().format("unload.failed", name);
                 }
+                timer.phase("internals");
 
             }
 
             pluginManager.disablePlugin(plugin);
+            timer.phase("disable");
 
-            if (listeners != null && reloadlisteners)
-                for (SortedSet<RegisteredListener> set : listeners.values())
-                    set.removeIf(value -> value.getPlugin() == plugin);
-
-            if (commandMap != null) {
-                Map<String, Command> modifiedKnownCommands = new HashMap<>(commands);
-
-                for (Map.Entry<String, Command> entry : new HashMap<>(commands).entrySet()) {
-                    if (entry.getValue() instanceof PluginCommand) {
-                        PluginCommand c = (PluginCommand) entry.getValue();
-                        if (c.getPlugin() == plugin) {
-                            c.unregister(commandMap);
-                            modifiedKnownCommands.remove(entry.getKey());
-                        }
-                        continue;
-                    }
+            timer.count("listeners", this.unregisterListeners(plugin));
+            timer.phase("listeners");
 
-                    try {
-                        this._bukkitPluginManager.unregisterNonPluginCommands(plugin, commandMap, modifiedKnownCommands, entry);
-                    } catch (IllegalStateException e) {
-                        if (e.getMessage().equalsIgnoreCase("zip file closed")) {
-                            if (PlugMan.getInstance().isNotifyOnBrokenCommandRemoval())
-                                Logger.getLogger(PaperPluginManager.class.getName()).info("Removing broken command '" + entry.getValue().getName() + "'!");
-                            entry.getValue().unregister(commandMap);
-                            modifiedKnownCommands.remove(entry.getKey());
-                        }
-                    }
-                }
-
-                this.setKnownCommands(modifiedKnownCommands);
-            }
+            if (commandMap != null)
+                this.unregisterCommands(plugin, commandMap, commands);
+            timer.phase("commands");
 
             if (plugins != null)
                 plugins.remove(plugin);
 
             if (names != null)
                 names.remove(name);
+            timer.phase("lookup");
         }
 
+        this.sweep(plugin, timer);
+
         // Attempt to close the classloader to unlock any handles on the plugin's jar file.
         this.closeClassLoader(plugin);
+        timer.phase("classloader");
 
         try {
-            Class paper = Class.forName("io.papermc.paper.plugin.manager.PaperPluginManagerImpl");
-            Object paperPluginManagerImpl = paper.getMethod("getInstance").invoke(null);
-
-            Field instanceManagerField = paperPluginManagerImpl.getClass().getDeclaredField("instanceManager");
-            instanceManagerField.setAccessible(true);
-            Object instanceManager = instanceManagerField.get(paperPluginManagerImpl);
+            ServerInternals internals = ServerInternals.get();
+            Object instanceManager = internals.getPaperInstanceManager();
 
-            Field lookupNamesField = instanceManager.getClass().getDeclaredField("lookupNames");
-            lookupNamesField.setAccessible(true);
-            Map<String, Object> lookupNames = (Map<String, Object>) lookupNamesField.get(instanceManager);
+            Map<String, Object> lookupNames = internals.getPaperLookupNames(instanceManager);
 
-            Method disableMethod = instanceManager.getClass().getMethod("disablePlugin", Plugin.class);
-            disableMethod.setAccessible(true);
-            disableMethod.invoke(instanceManager, plugin);
+            internals.paperDisablePlugin(instanceManager, plugin);
 
             lookupNames.remove(plugin.getName().toLowerCase());
 
-            Field pluginListField = instanceManager.getClass().getDeclaredField("plugins");
-            pluginListField.setAccessible(true);
-            List<Plugin> pluginList = (List<Plugin>) pluginListField.get(instanceManager);
+            List<Plugin> pluginList = internals.getPaperPlugins(instanceManager);
             pluginList.remove(plugin);
 
         } catch (Exception ignore) {
         } // Paper most likely not loaded
+        timer.phase("paper-lookup");
 
-        // Will not work on processes started with the -XX:+DisableExplicitGC flag, but lets try it anyway.
-        // This tries to get around the issue where Windows refuses to unlock jar files that were previously loaded into the JVM.
-        System.gc();
+        this.releaseClassLoader(name, plugin.getClass().getClassLoader());
+        timer.phase("release").finish();
 
         return PlugMan.getInstance().getMessageFormatter().format("unload.unloaded", name);
     }
@@ -621,14 +624,8 @@ public class PaperPluginManager implements PluginManager {
         if (!(classLoader instanceof URLClassLoader)) return;
 
         try {
-            Field pluginField = classLoader.getClass().getDeclaredField("plugin");
-            pluginField.setAccessible(true);
-            pluginField.set(classLoader, null);
-
-            Field pluginInitField = classLoader.getClass().getDeclaredField("pluginInit");
-            pluginInitField.setAccessible(true);
-            pluginInitField.set(classLoader, null);
-        } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException ex) {
+            ServerInternals.get().clearClassLoader(classLoader);
+        } catch (IllegalStateException ex) {
             Logger.getLogger(PaperPluginManager.class.getName()).log(Level.SEVERE, null, ex);
         }
 
@@ -3,8 +3,10 @@ package com.rylinaux.plugman.pluginmanager;
 import org.bukkit.command.Command;
 import org.bukkit.plugin.Plugin;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface PluginManager {
 
@@ -136,6 +138,14 @@ public interface PluginManager {
      */
     String load(String name);
 
+    /**
+     * Loads and enables several plugins in dependency order, the jars are read in parallel off the main thread.
+     *
+     * @param names the file or plugin names, {@code *} and {@code ?} match any characters
+     * @return the status messages, completed on the main thread
+     */
+    CompletableFuture<List<String>> loadAll(Collection<String> names);
+
     Map<String, Command> getKnownCommands();
 
     /**
@@ -158,6 +168,13 @@ public interface PluginManager {
      */
     void reloadAll();
 
+    /**
+     * Get the plugins bulk operations act on, so they can be processed one plugin at a time.
+     *
+     * @return groups of plugins that do not depend on each other, each in dependency order
+     */
+    List<List<Plugin>> getBulkTargets();
+
     /**
      * Unload a plugin.
      *
@@ -0,0 +1,229 @@
+package com.rylinaux.plugman.pluginmanager;
+
+import com.rylinaux.plugman.stats.OperationTimer;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.messaging.Messenger;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Removes what a plugin left behind after it was disabled, so it neither keeps running nor keeps its class loader alive.
+ * <p>
+ * Disabling normally cancels the tasks and unregisters the services and channels of a plugin, but not if the plugin
+ * registered new ones in onDisable, disabling failed or the plugin unloaded itself gently. Threads are never stopped
+ * by the server: threads of the plugin are interrupted, and checked off the main thread a moment later. A thread is
+ * the plugin's if its class or its {@link Runnable} is one of the plugin's classes, or if it is a plain {@link Thread},
+ * as started directly or by an executor, that is running code of the plugin. Other threads that merely have the
+ * plugin's class loader as their context class loader, e.g. idle pool threads of the server or a library, are not
+ * interrupted but get the parent class loader as their context class loader instead.
+ */
+final class ResourceSweeper {
+
+    /**
+     * Reads the {@link Runnable} a thread was started with, null if the JDK does not open {@code Thread#target}.
+     */
+    private static final MethodHandle THREAD_TARGET = ResourceSweeper.findThreadTarget();
+
+    private final Plugin plugin;
+    private final ClassLoader classLoader;
+
+    /**
+     * Whether a class is one of the plugin's, by name, only filled while the class loader is open.
+     */
+    private final Map<String, Boolean> pluginClasses = new HashMap<>();
+
+    private int tasks = 0;
+    private int services = 0;
+    private int channels = 0;
+    private int threadsInterrupted = 0;
+    private int contextLoadersReset = 0;
+
+    /**
+     * Construct the sweeper.
+     *
+     * @param plugin the disabled plugin
+     */
+    ResourceSweeper(Plugin plugin) {
+        this.plugin = plugin;
+        this.classLoader = plugin.getClass().getClassLoader();
+    }
+
+    /**
+     * Removes everything the plugin left behind and logs what was found. Must be called on the main thread.
+     *
+     * @param threadWaitMillis how long interrupted threads are given to end before they are reported, in milliseconds
+     * @param timer            the timer of the unload, each step is a phase
+     */
+    void sweep(long threadWaitMillis, OperationTimer timer) {
+        this.sweepTasks();
+        timer.phase("cleanup-tasks");
+        this.sweepServices();
+        timer.phase("cleanup-services");
+        this.sweepChannels();
+        timer.phase("cleanup-channels");
+        this.sweepThreads(threadWaitMillis);
+        timer.phase("cleanup-threads");
+
+        Logger logger = Logger.getLogger(ResourceSweeper.class.getName());
+        String summary = "Cleanup after unloading " + this.plugin.getName() + ": " + this.tasks + " scheduler task(s) cancelled, "
+                         + this.services + " service(s) and " + this.channels + " plugin channel(s) unregistered, "
+                         + this.threadsInterrupted + " thread(s) interrupted, " + this.contextLoadersReset + " context class loader(s) reset";
+
+        if (this.tasks + this.services + this.channels + this.threadsInterrupted + this.contextLoadersReset > 0) logger.info(summary);
+        else logger.fine(summary);
+    }
+
+    private void sweepTasks() {
+        try {
+            for (BukkitTask task : Bukkit.getScheduler().getPendingTasks())
+                if (task.getOwner() == this.plugin) this.tasks++;
+
+            Bukkit.getScheduler().cancelTasks(this.plugin);
+        } catch (UnsupportedOperationException ignored) {
+            // Folia has no global scheduler, its region schedulers cancel the tasks of disabled plugins themselves.
+        }
+    }
+
+    private void sweepServices() {
+        List<RegisteredServiceProvider<?>> registrations = new ArrayList<>();
+        for (Class<?> service : Bukkit.getServicesManager().getKnownServices())
+            registrations.addAll(Bukkit.getServicesManager().getRegistrations(service));
+
+        for (RegisteredServiceProvider<?> registration : registrations) {
+            Object provider = registration.getProvider();
+
+            if (registration.getPlugin() == this.plugin) {
+                Bukkit.getServicesManager().unregister(registration.getService(), provider);
+                this.services++;
+            } else if (provider != null && provider.getClass().getClassLoader() == this.classLoader) {
+                // Registered in the name of another plugin, but implemented by this one.
+                Bukkit.getServicesManager().unregister(provider);
+                this.services++;
+            }
+        }
+    }
+
+    private void sweepChannels() {
+        Messenger messenger = Bukkit.getMessenger();
+        this.channels += messenger.getOutgoingChannels(this.plugin).size();
+        this.channels += messenger.getIncomingChannelRegistrations(this.plugin).size();
+
+        messenger.unregisterOutgoingPluginChannel(this.plugin);
+        messenger.unregisterIncomingPluginChannel(this.plugin);
+    }
+
+    private void sweepThreads(long waitMillis) {
+        Logger logger = Logger.getLogger(ResourceSweeper.class.getName());
+        List<Thread> threads = new ArrayList<>();
+
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            Thread thread = entry.getKey();
+            if (thread == Thread.currentThread() || !thread.isAlive()) continue;
+
+            // Only plain threads are interrupted for running the plugin's code, never e.g. the server's network threads.
+            if (this.isOwned(thread) || thread.getClass() == Thread.class && this.isRunningPluginCode(entry.getValue())) {
+                thread.interrupt();
+                threads.add(thread);
+                this.threadsInterrupted++;
+            } else if (thread.getContextClassLoader() == this.classLoader) {
+                // Not the plugin's thread, interrupting it could break whoever owns it.
+                thread.setContextClassLoader(this.classLoader.getParent());
+                this.contextLoadersReset++;
+                logger.warning("Thread '" + thread.getName() + "' had the class loader of " + this.plugin.getName() + " as its context class loader, reset it");
+            }
+        }
+
+        if (threads.isEmpty()) return;
+
+        // The main thread does not wait, the threads are checked once they had their time.
+        String pluginName = this.plugin.getName();
+        Thread watcher = new Thread(() -> {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, waitMillis));
+            try {
+                for (Thread thread : threads) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    // Threads that only ran the plugin's code, e.g. of a pool, may live on once they left it.
+                    if (remaining > 0 && this.isOwned(thread)) thread.join(remaining);
+                }
+
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0 && threads.stream().anyMatch(Thread::isAlive)) Thread.sleep(remaining);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            for (Thread thread : threads)
+                if (thread.isAlive() && (this.isOwned(thread) || this.isRunningPluginCode(thread.getStackTrace())))
+                    logger.warning("Thread '" + thread.getName() + "' of " + pluginName + " did not stop after it was interrupted, its class loader cannot be collected");
+        }, "PlugManX Thread Sweep");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Whether the class of a thread, or the runnable it was started with, is one of the plugin's classes.
+     */
+    private boolean isOwned(Thread thread) {
+        if (thread.getClass().getClassLoader() == this.classLoader) return true;
+        if (ResourceSweeper.THREAD_TARGET == null) return false;
+
+        try {
+            Object target = (Object) ResourceSweeper.THREAD_TARGET.invokeExact(thread);
+            return target != null && target.getClass().getClassLoader() == this.classLoader;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether a stack contains a frame of one of the plugin's classes.
+     */
+    private boolean isRunningPluginCode(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack)
+            if (this.isPluginClass(frame.getClassName())) return true;
+        return false;
+    }
+
+    /**
+     * Whether a class is in the plugin's jar. Stack frames only name their classes, so the class file is looked up in
+     * the plugin's class loader itself, which only works until it is closed. Classes that were not looked up before
+     * are not the plugin's afterwards.
+     */
+    private boolean isPluginClass(String className) {
+        synchronized (this.pluginClasses) {
+            Boolean known = this.pluginClasses.get(className);
+            if (known != null) return known;
+
+            // JDK classes never come from a plugin.
+            boolean plugin = !className.startsWith("java.") && !className.startsWith("jdk.") && !className.startsWith("sun.")
+                             && this.classLoader instanceof URLClassLoader
+                             && ((URLClassLoader) this.classLoader).findResource(className.replace('.', '/') + ".class") != null;
+            this.pluginClasses.put(className, plugin);
+            return plugin;
+        }
+    }
+
+    private static MethodHandle findThreadTarget() {
+        try {
+            Field target = Thread.class.getDeclaredField("target");
+            target.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(target).asType(MethodType.methodType(Object.class, Thread.class));
+        } catch (Exception e) {
+            // Java 16 and newer do not open java.lang, the stack frames still tell.
+            return null;
+        }
+    }
+}
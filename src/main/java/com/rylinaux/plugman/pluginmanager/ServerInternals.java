@@ -0,0 +1,389 @@
+package com.rylinaux.plugman.pluginmanager;
+
+import com.rylinaux.plugman.util.HandleResolver;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Cached accessors for the server internals PlugManX has to modify to load and unload plugins.
+ * <p>
+ * Everything is resolved once, the first time the registry is used, so loading and unloading plugins does not do
+ * any reflective lookups. What could not be resolved is logged by {@link #logReport(Logger)} at startup.
+ */
+public final class ServerInternals {
+
+    private static ServerInternals instance = null;
+
+    private final HandleResolver resolver = new HandleResolver();
+
+    private final MethodHandle plugins;
+    private final MethodHandle lookupNames;
+    private final MethodHandle pluginManagerCommandMap;
+    private final MethodHandle serverCommandMap;
+    private final MethodHandle knownCommands;
+    private final MethodHandle setKnownCommands;
+
+    private final Class<?> pluginClassLoader;
+    private final MethodHandle classLoaderPlugin;
+    private final MethodHandle setClassLoaderPlugin;
+    private final MethodHandle setClassLoaderPluginInit;
+
+    /**
+     * Whether the server has Paper's plugin system.
+     */
+    private final boolean paper;
+    private final MethodHandle paperInstanceManager;
+    private final MethodHandle paperLookupNames;
+    private final MethodHandle paperPlugins;
+    private final MethodHandle paperLoadPlugin;
+    private final MethodHandle paperEnablePlugin;
+    private final MethodHandle paperDisablePlugin;
+
+    private final MethodHandle paperProviderStorage;
+    private final MethodHandle paperRegisteredProviders;
+    private final MethodHandle paperProviderMeta;
+    private final Class<?> paperServerPluginProvider;
+
+    private ServerInternals() {
+        Class<?> pluginManager = Bukkit.getPluginManager().getClass();
+
+        this.plugins = this.resolver.getter("SimplePluginManager#plugins", pluginManager, "plugins", true);
+        this.lookupNames = this.resolver.getter("SimplePluginManager#lookupNames", pluginManager, "lookupNames", true);
+        this.pluginManagerCommandMap = this.resolver.getter("SimplePluginManager#commandMap", pluginManager, "commandMap", true);
+        this.serverCommandMap = this.resolver.getter("CraftServer#commandMap", Bukkit.getServer().getClass(), "commandMap", true);
+        this.knownCommands = this.resolver.getter("SimpleCommandMap#knownCommands", SimpleCommandMap.class, "knownCommands", true);
+        this.setKnownCommands = this.resolver.setter("SimpleCommandMap#knownCommands (write)", SimpleCommandMap.class, "knownCommands", true);
+
+        this.pluginClassLoader = HandleResolver.findClass("org.bukkit.plugin.java.PluginClassLoader");
+        this.classLoaderPlugin = this.resolver.getter("PluginClassLoader#plugin", this.pluginClassLoader, "plugin", true);
+        this.setClassLoaderPlugin = this.resolver.setter("PluginClassLoader#plugin (write)", this.pluginClassLoader, "plugin", false);
+        this.setClassLoaderPluginInit = this.resolver.setter("PluginClassLoader#pluginInit (write)", this.pluginClassLoader, "pluginInit", false);
+
+        Class<?> paperPluginManager = HandleResolver.findClass("io.papermc.paper.plugin.manager.PaperPluginManagerImpl");
+        this.paper = paperPluginManager != null;
+
+        MethodHandle instanceManager = null;
+        Class<?> instanceManagerClass = null;
+        if (this.paper) try {
+            MethodHandle getInstance = MethodHandles.lookup().unreflect(paperPluginManager.getMethod("getInstance"));
+            MethodHandle field = this.resolver.getter("PaperPluginManagerImpl#instanceManager", paperPluginManager, "instanceManager", true);
+
+            if (field != null) {
+                instanceManager = MethodHandles.filterReturnValue(getInstance.asType(MethodType.methodType(Object.class)), field);
+                // The runtime class, the declared type of the field is not always the implementation.
+                instanceManagerClass = ((Object) instanceManager.invokeExact()).getClass();
+            }
+        } catch (Throwable throwable) {
+            this.resolver.failed("PaperPluginManagerImpl#getInstance", true, throwable);
+            instanceManager = null;
+        }
+        this.paperInstanceManager = instanceManager;
+
+        this.paperLookupNames = this.paper ? this.resolver.getter("PaperPluginInstanceManager#lookupNames", instanceManagerClass, "lookupNames", true) : null;
+        this.paperPlugins = this.paper ? this.resolver.getter("PaperPluginInstanceManager#plugins", instanceManagerClass, "plugins", true) : null;
+        this.paperLoadPlugin = this.paper ? this.resolver.method("PaperPluginInstanceManager#loadPlugin", instanceManagerClass, "loadPlugin", false, Path.class) : null;
+        this.paperEnablePlugin = this.paper ? this.resolver.method("PaperPluginInstanceManager#enablePlugin", instanceManagerClass, "enablePlugin", false, Plugin.class) : null;
+        this.paperDisablePlugin = this.paper ? this.resolver.method("PaperPluginInstanceManager#disablePlugin", instanceManagerClass, "disablePlugin", true, Plugin.class) : null;
+
+        this.paperProviderStorage = this.paper ? this.resolveProviderStorage() : null;
+        this.paperRegisteredProviders = this.paper ? this.resolver.method("ProviderStorage#getRegisteredProviders", HandleResolver.findClass("io.papermc.paper.plugin.storage.ProviderStorage"), "getRegisteredProviders", false) : null;
+        this.paperProviderMeta = this.paper ? this.resolver.method("PluginProvider#getMeta", HandleResolver.findClass("io.papermc.paper.plugin.provider.PluginProvider"), "getMeta", false) : null;
+        this.paperServerPluginProvider = HandleResolver.findClass("io.papermc.paper.plugin.provider.type.paper.PaperPluginParent$PaperServerPluginProvider");
+    }
+
+    /**
+     * Get the registry, resolving it on first use.
+     *
+     * @return the registry
+     */
+    public static synchronized ServerInternals get() {
+        if (ServerInternals.instance == null) ServerInternals.instance = new ServerInternals();
+        return ServerInternals.instance;
+    }
+
+    /**
+     * Forgets the resolved handles, they are resolved again on next use.
+     */
+    public static synchronized void reset() {
+        ServerInternals.instance = null;
+    }
+
+    /**
+     * The provider storage of the plugin entrypoint, bound to its constant arguments.
+     *
+     * @return a {@code ()Object} handle, or null if it cannot be resolved
+     */
+    private MethodHandle resolveProviderStorage() {
+        try {
+            Class<?> handler = Class.forName("io.papermc.paper.plugin.entrypoint.LaunchEntryPointHandler");
+            Object instance = handler.getField("INSTANCE").get(null);
+            Object entrypoint = Class.forName("io.papermc.paper.plugin.entrypoint.Entrypoint").getDeclaredField("PLUGIN").get(null);
+
+            Method get = Arrays.stream(handler.getDeclaredMethods())
+                               .filter(method -> method.getName().equals("get"))
+                               .findFirst()
+                               .orElseThrow(() -> new NoSuchMethodException("LaunchEntryPointHandler#get"));
+            get.setAccessible(true);
+
+            MethodHandle handle = MethodHandles.insertArguments(MethodHandles.lookup().unreflect(get), 0, instance, entrypoint);
+            return this.resolver.resolved("LaunchEntryPointHandler#get", false, handle.asType(MethodType.methodType(Object.class)));
+        } catch (Exception e) {
+            return this.resolver.failed("LaunchEntryPointHandler#get", false, e);
+        }
+    }
+
+    /**
+     * Logs which internals could not be resolved.
+     *
+     * @param logger the logger
+     */
+    public void logReport(Logger logger) {
+        this.resolver.logReport(logger, Bukkit.getName() + " " + Bukkit.getBukkitVersion());
+    }
+
+    /**
+     * Whether every internal needed to unload plugins was resolved.
+     *
+     * @return whether unloading is supported
+     */
+    public boolean isSupported() {
+        return this.resolver.isComplete();
+    }
+
+    /**
+     * Get the plugin list of the plugin manager.
+     *
+     * @param pluginManager the plugin manager
+     * @return the live list
+     */
+    public List<Plugin> getPlugins(org.bukkit.plugin.PluginManager pluginManager) {
+        return (List<Plugin>) HandleResolver.get(this.plugins, "plugins", pluginManager);
+    }
+
+    /**
+     * Get the plugins of the plugin manager by name.
+     *
+     * @param pluginManager the plugin manager
+     * @return the live map
+     */
+    public Map<String, Plugin> getLookupNames(org.bukkit.plugin.PluginManager pluginManager) {
+        return (Map<String, Plugin>) HandleResolver.get(this.lookupNames, "lookupNames", pluginManager);
+    }
+
+    /**
+     * Get the command map of the plugin manager.
+     *
+     * @param pluginManager the plugin manager
+     * @return the command map
+     */
+    public SimpleCommandMap getCommandMap(org.bukkit.plugin.PluginManager pluginManager) {
+        return (SimpleCommandMap) HandleResolver.get(this.pluginManagerCommandMap, "commandMap", pluginManager);
+    }
+
+    /**
+     * Get the command map of the server.
+     *
+     * @return the command map
+     */
+    public SimpleCommandMap getServerCommandMap() {
+        return (SimpleCommandMap) HandleResolver.get(this.serverCommandMap, "commandMap", Bukkit.getServer());
+    }
+
+    /**
+     * Get the commands of a command map.
+     *
+     * @param commandMap the command map
+     * @return the live map
+     */
+    public Map<String, Command> getKnownCommands(SimpleCommandMap commandMap) {
+        return (Map<String, Command>) HandleResolver.get(this.knownCommands, "knownCommands", commandMap);
+    }
+
+    /**
+     * Replaces the commands of a command map.
+     *
+     * @param commandMap    the command map
+     * @param knownCommands the new commands
+     */
+    public void setKnownCommands(SimpleCommandMap commandMap, Map<String, Command> knownCommands) {
+        HandleResolver.set(this.setKnownCommands, "knownCommands", commandMap, knownCommands);
+    }
+
+    /**
+     * Checks whether a class loader is a plugin class loader.
+     *
+     * @param classLoader the class loader
+     * @return whether it belongs to a plugin
+     */
+    public boolean isPluginClassLoader(ClassLoader classLoader) {
+        return this.pluginClassLoader != null && this.pluginClassLoader.isInstance(classLoader);
+    }
+
+    /**
+     * Get the plugin of a plugin class loader.
+     *
+     * @param classLoader the class loader
+     * @return the plugin, or null if the class loader does not belong to a plugin
+     */
+    public Plugin getClassLoaderPlugin(ClassLoader classLoader) {
+        if (!this.isPluginClassLoader(classLoader)) return null;
+        return (Plugin) HandleResolver.get(this.classLoaderPlugin, "plugin", classLoader);
+    }
+
+    /**
+     * Drops the references a plugin class loader holds to its plugin.
+     *
+     * @param classLoader the class loader
+     */
+    public void clearClassLoader(ClassLoader classLoader) {
+        if (!this.isPluginClassLoader(classLoader)) return;
+        if (this.setClassLoaderPlugin != null) HandleResolver.set(this.setClassLoaderPlugin, "plugin", classLoader, null);
+        if (this.setClassLoaderPluginInit != null) HandleResolver.set(this.setClassLoaderPluginInit, "pluginInit", classLoader, null);
+    }
+
+    /**
+     * Whether the server has Paper's plugin system.
+     *
+     * @return whether the server is a Paper server
+     */
+    public boolean isPaper() {
+        return this.paper;
+    }
+
+    /**
+     * Get Paper's plugin instance manager.
+     *
+     * @return the instance manager
+     */
+    public Object getPaperInstanceManager() {
+        if (this.paperInstanceManager == null) throw new IllegalStateException("instanceManager is not available on this server");
+
+        try {
+            return (Object) this.paperInstanceManager.invokeExact();
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not read instanceManager", throwable);
+        }
+    }
+
+    /**
+     * Get the plugins of Paper's instance manager by lower-cased name.
+     *
+     * @param instanceManager the instance manager
+     * @return the live map
+     */
+    public Map<String, Object> getPaperLookupNames(Object instanceManager) {
+        return (Map<String, Object>) HandleResolver.get(this.paperLookupNames, "lookupNames", instanceManager);
+    }
+
+    /**
+     * Get the plugin list of Paper's instance manager.
+     *
+     * @param instanceManager the instance manager
+     * @return the live list
+     */
+    public List<Plugin> getPaperPlugins(Object instanceManager) {
+        return (List<Plugin>) HandleResolver.get(this.paperPlugins, "plugins", instanceManager);
+    }
+
+    /**
+     * Loads a plugin through Paper's instance manager.
+     *
+     * @param instanceManager the instance manager
+     * @param path            the jar
+     * @return the plugin
+     */
+    public Plugin paperLoadPlugin(Object instanceManager, Path path) {
+        if (this.paperLoadPlugin == null) throw new IllegalStateException("loadPlugin is not available on this server");
+
+        try {
+            return (Plugin) (Object) this.paperLoadPlugin.invokeExact(instanceManager, (Object) path);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not load " + path, throwable);
+        }
+    }
+
+    /**
+     * Enables a plugin through Paper's instance manager.
+     *
+     * @param instanceManager the instance manager
+     * @param plugin          the plugin
+     */
+    public void paperEnablePlugin(Object instanceManager, Plugin plugin) {
+        this.invoke(this.paperEnablePlugin, "enablePlugin", instanceManager, plugin);
+    }
+
+    /**
+     * Disables a plugin through Paper's instance manager.
+     *
+     * @param instanceManager the instance manager
+     * @param plugin          the plugin
+     */
+    public void paperDisablePlugin(Object instanceManager, Plugin plugin) {
+        this.invoke(this.paperDisablePlugin, "disablePlugin", instanceManager, plugin);
+    }
+
+    /**
+     * Get the providers registered at Paper's plugin entrypoint.
+     *
+     * @return the providers, or null if they are not available
+     */
+    public Iterable<?> getPaperPluginProviders() {
+        if (this.paperProviderStorage == null || this.paperRegisteredProviders == null) return null;
+
+        try {
+            Object storage = (Object) this.paperProviderStorage.invokeExact();
+            if (storage == null) return null;
+            return (Iterable<?>) (Object) this.paperRegisteredProviders.invokeExact(storage);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not read the plugin providers", throwable);
+        }
+    }
+
+    /**
+     * Get the meta of a plugin provider.
+     *
+     * @param provider the provider
+     * @return the meta
+     */
+    public Object getPaperProviderMeta(Object provider) {
+        if (this.paperProviderMeta == null) throw new IllegalStateException("getMeta is not available on this server");
+
+        try {
+            return (Object) this.paperProviderMeta.invokeExact(provider);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not read the plugin meta", throwable);
+        }
+    }
+
+    /**
+     * Checks whether a provider provides a paper-plugin.
+     *
+     * @param provider the provider
+     * @return whether it is a paper-plugin provider
+     */
+    public boolean isPaperServerPluginProvider(Object provider) {
+        return this.paperServerPluginProvider != null && this.paperServerPluginProvider.isInstance(provider);
+    }
+
+    private void invoke(MethodHandle handle, String name, Object target, Object argument) {
+        if (handle == null) throw new IllegalStateException(name + " is not available on this server");
+
+        try {
+            Object ignored = (Object) handle.invokeExact(target, argument);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not invoke " + name, throwable);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.rylinaux.plugman.stats;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.api.PluginOperationEvent;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * The timings of the last plugin operations.
+ * <p>
+ * Every recorded operation is kept in memory for {@code /plugman stats}, appended to timings.log and announced with a
+ * {@link PluginOperationEvent}. The log is rolled over to timings.log.old once it is larger than
+ * {@code stats.history-max-kb}.
+ */
+public class OperationStats {
+
+    /**
+     * How many operations are kept in memory.
+     */
+    private static final int MAX_RECENT = 200;
+
+    private static final OperationStats INSTANCE = new OperationStats();
+
+    /**
+     * The last operations, oldest first.
+     */
+    private final Deque<OperationTiming> recent = new ArrayDeque<>();
+
+    private OperationStats() {
+    }
+
+    /**
+     * Get the stats.
+     *
+     * @return the instance
+     */
+    public static OperationStats get() {
+        return OperationStats.INSTANCE;
+    }
+
+    /**
+     * Records an operation.
+     *
+     * @param timing the timing of the operation
+     */
+    public void record(OperationTiming timing) {
+        synchronized (this) {
+            this.recent.addLast(timing);
+            while (this.recent.size() > OperationStats.MAX_RECENT) this.recent.removeFirst();
+        }
+
+        PlugMan plugman = PlugMan.getInstance();
+        if (plugman == null) return;
+
+        // Async events must not be called on the main thread, sync events only on it.
+        // Once PlugMan itself is disabled, e.g. while it unloads itself, neither events nor tasks are possible.
+        if (plugman.isEnabled())
+            Bukkit.getPluginManager().callEvent(new PluginOperationEvent(timing, !Bukkit.isPrimaryThread()));
+
+        if (!plugman.getConfig().getBoolean("stats.history-file", true)) return;
+
+        long maxBytes = plugman.getConfig().getLong("stats.history-max-kb", 512) * 1024;
+        File file = new File(plugman.getDataFolder(), "timings.log");
+        if (plugman.isEnabled()) Bukkit.getScheduler().runTaskAsynchronously(plugman, () -> this.append(file, maxBytes, timing));
+        else this.append(file, maxBytes, timing);
+    }
+
+    /**
+     * Get the last operations.
+     *
+     * @return the operations, newest first
+     */
+    public synchronized List<OperationTiming> getRecent() {
+        List<OperationTiming> timings = new ArrayList<>(this.recent);
+        Collections.reverse(timings);
+        return timings;
+    }
+
+    /**
+     * Forgets all operations, the history file is kept.
+     */
+    public synchronized void clear() {
+        this.recent.clear();
+    }
+
+    private synchronized void append(File file, long maxBytes, OperationTiming timing) {
+        try {
+            if (file.length() > maxBytes)
+                Files.move(file.toPath(), new File(file.getParentFile(), file.getName() + ".old").toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(timing.getTimestamp())));
+                writer.write(' ');
+                writer.write(timing.getOperation());
+                writer.write(' ');
+                writer.write(timing.getPlugin());
+                writer.write(" total=" + OperationTiming.toMillis(timing.getTotalNanos()));
+                for (Map.Entry<String, Long> phase : timing.getPhases().entrySet())
+                    writer.write(' ' + phase.getKey() + '=' + OperationTiming.toMillis(phase.getValue()));
+                for (Map.Entry<String, Integer> count : timing.getCounts().entrySet())
+                    writer.write(' ' + count.getKey() + ".count=" + count.getValue());
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.WARNING, "[PlugManX] Could not write " + file.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rylinaux.plugman.stats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures the phases of an operation on a plugin. Every call to {@link #phase(String)} ends the current phase,
+ * {@link #count(String, int)} records how many things a phase handled and {@link #finish()} records the operation with
+ * {@link OperationStats}.
+ */
+public class OperationTimer {
+
+    private final String operation;
+    private final String plugin;
+    private final long start;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private long last;
+
+    private OperationTimer(String operation, String plugin) {
+        this.operation = operation;
+        this.plugin = plugin;
+        this.start = System.nanoTime();
+        this.last = this.start;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @param operation the operation, e.g. "unload"
+     * @param plugin    the name of the plugin
+     * @return the timer
+     */
+    public static OperationTimer start(String operation, String plugin) {
+        return new OperationTimer(operation, plugin);
+    }
+
+    /**
+     * Ends the current phase. A phase that runs more than once is added up.
+     *
+     * @param name the name of the phase that just ended
+     * @return this timer
+     */
+    public OperationTimer phase(String name) {
+        long now = System.nanoTime();
+        this.phases.merge(name, now - this.last, Long::sum);
+        this.last = now;
+        return this;
+    }
+
+    /**
+     * Records how many things a phase handled, e.g. the number of listeners removed. Counts of the same phase are added
+     * up.
+     *
+     * @param name  the name of the phase
+     * @param count the number of things
+     * @return this timer
+     */
+    public OperationTimer count(String name, int count) {
+        this.counts.merge(name, count, Integer::sum);
+        return this;
+    }
+
+    /**
+     * Ends the operation and records it.
+     *
+     * @return the timing
+     */
+    public OperationTiming finish() {
+        OperationTiming timing = new OperationTiming(this.operation, this.plugin, System.currentTimeMillis(), System.nanoTime() - this.start, this.phases, this.counts);
+        OperationStats.get().record(timing);
+        return timing;
+    }
+}
@@ -0,0 +1,155 @@
+package com.rylinaux.plugman.stats;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long a single operation on a plugin took, split into its phases.
+ */
+public class OperationTiming {
+
+    /**
+     * The operation, e.g. "unload".
+     */
+    private final String operation;
+
+    /**
+     * The name of the plugin.
+     */
+    private final String plugin;
+
+    /**
+     * When the operation finished, in milliseconds since the epoch.
+     */
+    private final long timestamp;
+
+    /**
+     * The whole duration in nanoseconds.
+     */
+    private final long totalNanos;
+
+    /**
+     * The duration of every phase in nanoseconds, in the order they ran.
+     */
+    private final Map<String, Long> phases;
+
+    /**
+     * How many things some of the phases handled, e.g. the number of listeners removed.
+     */
+    private final Map<String, Integer> counts;
+
+    /**
+     * Construct the timing.
+     *
+     * @param operation  the operation
+     * @param plugin     the name of the plugin
+     * @param timestamp  when the operation finished, in milliseconds since the epoch
+     * @param totalNanos the whole duration in nanoseconds
+     * @param phases     the duration of every phase in nanoseconds, in the order they ran
+     */
+    public OperationTiming(String operation, String plugin, long timestamp, long totalNanos, Map<String, Long> phases) {
+        this(operation, plugin, timestamp, totalNanos, phases, Collections.emptyMap());
+    }
+
+    /**
+     * Construct the timing.
+     *
+     * @param operation  the operation
+     * @param plugin     the name of the plugin
+     * @param timestamp  when the operation finished, in milliseconds since the epoch
+     * @param totalNanos the whole duration in nanoseconds
+     * @param phases     the duration of every phase in nanoseconds, in the order they ran
+     * @param counts     how many things some of the phases handled
+     */
+    public OperationTiming(String operation, String plugin, long timestamp, long totalNanos, Map<String, Long> phases, Map<String, Integer> counts) {
+        this.operation = operation;
+        this.plugin = plugin;
+        this.timestamp = timestamp;
+        this.totalNanos = totalNanos;
+        this.phases = Collections.unmodifiableMap(phases);
+        this.counts = Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Get the operation.
+     *
+     * @return the operation, e.g. "unload"
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Get the name of the plugin.
+     *
+     * @return the plugin name
+     */
+    public String getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get when the operation finished.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Get the whole duration.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * Get the phases.
+     *
+     * @return the duration of every phase in nanoseconds, in the order they ran
+     */
+    public Map<String, Long> getPhases() {
+        return this.phases;
+    }
+
+    /**
+     * Get the counts.
+     *
+     * @return how many things some of the phases handled, by phase
+     */
+    public Map<String, Integer> getCounts() {
+        return this.counts;
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds with one decimal.
+     *
+     * @param nanos the nanoseconds
+     * @return e.g. "12.3"
+     */
+    public static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Lists the phases with their counts, e.g. "disable 12.3ms, listeners 0.4ms (12)".
+     *
+     * @return the phases
+     */
+    public String formatPhases() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> phase : this.phases.entrySet()) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(phase.getKey()).append(' ').append(OperationTiming.toMillis(phase.getValue())).append("ms");
+
+            Integer count = this.counts.get(phase.getKey());
+            if (count != null) builder.append(" (").append(count).append(')');
+        }
+        return builder.toString();
+    }
+}
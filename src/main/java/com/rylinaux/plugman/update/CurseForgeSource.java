@@ -0,0 +1,45 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.util.CurseForgeUtil;
+import com.rylinaux.plugman.util.UpdateUtil;
+import org.json.simple.JSONObject;
+
+import java.util.Map;
+
+/**
+ * CurseForge projects, found by resourcemaps.yml, the learned mappings or by searching.
+ */
+public class CurseForgeSource implements UpdateSource {
+
+    @Override
+    public String getName() {
+        return "curseforge";
+    }
+
+    @Override
+    public boolean handles(String pluginName) {
+        Map.Entry<Long, Boolean> mapping = UpdateUtil.getMapping(pluginName);
+        return mapping == null || !mapping.getValue();
+    }
+
+    @Override
+    public Release getLatestRelease(String pluginName) {
+        Map.Entry<Long, Boolean> mapping = UpdateUtil.getMapping(pluginName);
+
+        long id;
+        if (mapping != null) {
+            id = mapping.getKey();
+        } else {
+            id = CurseForgeUtil.getPluginId(pluginName);
+            if (id < 0) return null;
+            PlugMan.getInstance().getLearnedMappings().learn(pluginName, id, false);
+        }
+
+        JSONObject latest = CurseForgeUtil.getLatestVersion(id);
+        if (latest == null || !(latest.get("name") instanceof String)) return null;
+
+        Object downloadUrl = latest.get("downloadUrl");
+        return new Release(this, (String) latest.get("name"), downloadUrl instanceof String ? (String) downloadUrl : null, null);
+    }
+}
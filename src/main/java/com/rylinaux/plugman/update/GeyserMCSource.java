@@ -0,0 +1,47 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.util.GeyserMCUtil;
+import com.rylinaux.plugman.util.Version;
+import org.json.simple.JSONObject;
+
+/**
+ * Geyser and Floodgate builds from the GeyserMC download API, pinned to a build with its published checksum.
+ */
+public class GeyserMCSource implements UpdateSource {
+
+    @Override
+    public String getName() {
+        return "geysermc";
+    }
+
+    @Override
+    public boolean handles(String pluginName) {
+        return GeyserMCUtil.getProjectName(pluginName) != null;
+    }
+
+    @Override
+    public Release getLatestRelease(String pluginName) {
+        String projectName = GeyserMCUtil.getProjectName(pluginName);
+
+        JSONObject build = GeyserMCUtil.getLatestBuild(projectName);
+        if (build != null && build.get("version") instanceof String)
+            return new Release(this, (String) build.get("version"), GeyserMCUtil.getDownloadURL(projectName, build), GeyserMCUtil.getSha256(build));
+
+        String latestVersion = GeyserMCUtil.getLatestVersion(projectName);
+        if (latestVersion == null) return null;
+
+        return new Release(this, latestVersion, GeyserMCUtil.getDownloadURL(projectName), null);
+    }
+
+    /**
+     * Geyser builds are always -SNAPSHOT with build info appended, only the release numbers are comparable.
+     *
+     * @param current the installed version
+     * @param latest  the latest version
+     * @return whether the installed release is at least the latest release
+     */
+    @Override
+    public boolean isUpToDate(String current, String latest) {
+        return Version.parse(current).compareRelease(Version.parse(latest)) >= 0;
+    }
+}
@@ -0,0 +1,127 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.util.HttpCache;
+import com.rylinaux.plugman.util.HttpUtil;
+import org.bukkit.configuration.ConfigurationSection;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plugins with their own JSON release endpoint, e.g. the latest GitHub release or a Maven/CI build API.
+ * <p>
+ * Every plugin is configured under {@code update-sources.endpoints} with the URL and the paths of the version, the
+ * download URL and optionally the SHA-256 in the response. A path is a dot separated list of keys and array indices,
+ * e.g. {@code assets.0.browser_download_url}.
+ */
+public class JsonEndpointSource implements UpdateSource {
+
+    /**
+     * The endpoints by plugin name, ignoring case.
+     */
+    private final Map<String, Endpoint> endpoints = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Construct the source.
+     *
+     * @param config the endpoints section of the config, may be null
+     */
+    public JsonEndpointSource(ConfigurationSection config) {
+        if (config == null) return;
+
+        for (String name : config.getKeys(false)) {
+            String url = config.getString(name + ".url");
+            if (url == null || url.isEmpty()) {
+                PlugMan.getInstance().getLogger().warning("Update endpoint of " + name + " has no url, ignoring it");
+                continue;
+            }
+
+            this.endpoints.put(name, new Endpoint(url, config.getString(name + ".version", "version"), config.getString(name + ".download", ""), config.getString(name + ".sha256", "")));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "json";
+    }
+
+    @Override
+    public boolean handles(String pluginName) {
+        return this.endpoints.containsKey(pluginName);
+    }
+
+    @Override
+    public Release getLatestRelease(String pluginName) {
+        Endpoint endpoint = this.endpoints.get(pluginName);
+        if (endpoint == null) return null;
+
+        Object json;
+        try {
+            json = JSONValue.parse(HttpUtil.getCachedString(endpoint.url, HttpCache.Kind.VERSIONS));
+        } catch (IOException e) {
+            PlugMan.getInstance().getLogger().warning("Failed to fetch the update endpoint of " + pluginName + ": " + e.getMessage());
+            return null;
+        }
+
+        String version = JsonEndpointSource.resolve(json, endpoint.version);
+        if (version == null) {
+            PlugMan.getInstance().getLogger().warning("Update endpoint of " + pluginName + " has no '" + endpoint.version + "'");
+            return null;
+        }
+
+        return new Release(this, version, JsonEndpointSource.resolve(json, endpoint.download), JsonEndpointSource.resolve(json, endpoint.sha256));
+    }
+
+    /**
+     * Follows a path through a JSON value.
+     *
+     * @param json the JSON value
+     * @param path the dot separated keys and array indices
+     * @return the value as a string, or null if the path is empty or does not exist
+     */
+    static String resolve(Object json, String path) {
+        if (path == null || path.isEmpty()) return null;
+
+        Object current = json;
+        for (String key : path.split("\\.")) {
+            if (current instanceof JSONObject) {
+                current = ((JSONObject) current).get(key);
+            } else if (current instanceof JSONArray) {
+                JSONArray array = (JSONArray) current;
+                try {
+                    int index = Integer.parseInt(key);
+                    if (index < 0) index += array.size();
+                    current = index >= 0 && index < array.size() ? array.get(index) : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        return current == null ? null : current.toString();
+    }
+
+    /**
+     * A configured endpoint.
+     */
+    private static final class Endpoint {
+        private final String url;
+        private final String version;
+        private final String download;
+        private final String sha256;
+
+        private Endpoint(String url, String version, String download, String sha256) {
+            this.url = url;
+            this.version = version;
+            this.download = download;
+            this.sha256 = sha256;
+        }
+    }
+}
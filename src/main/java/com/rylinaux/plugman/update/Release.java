@@ -0,0 +1,78 @@
+package com.rylinaux.plugman.update;
+
+/**
+ * The latest release of a plugin as found by an {@link UpdateSource}.
+ */
+public class Release {
+
+    /**
+     * The source that found the release.
+     */
+    private final UpdateSource source;
+
+    /**
+     * The version of the release.
+     */
+    private final String version;
+
+    /**
+     * The URL the jar can be downloaded from, or null if the source does not offer downloads.
+     */
+    private final String downloadUrl;
+
+    /**
+     * The SHA-256 of the jar in hex, or null if the source does not publish one.
+     */
+    private final String sha256;
+
+    /**
+     * Construct the release.
+     *
+     * @param source      the source that found the release
+     * @param version     the version of the release
+     * @param downloadUrl the URL the jar can be downloaded from, may be null
+     * @param sha256      the SHA-256 of the jar in hex, may be null
+     */
+    public Release(UpdateSource source, String version, String downloadUrl, String sha256) {
+        this.source = source;
+        this.version = version;
+        this.downloadUrl = downloadUrl;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Get the source that found the release.
+     *
+     * @return the source
+     */
+    public UpdateSource getSource() {
+        return this.source;
+    }
+
+    /**
+     * Get the version of the release.
+     *
+     * @return the version
+     */
+    public String getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Get the URL the jar can be downloaded from.
+     *
+     * @return the URL, or null if the source does not offer downloads
+     */
+    public String getDownloadUrl() {
+        return this.downloadUrl;
+    }
+
+    /**
+     * Get the SHA-256 of the jar.
+     *
+     * @return the checksum in hex, or null if the source does not publish one
+     */
+    public String getSha256() {
+        return this.sha256;
+    }
+}
@@ -0,0 +1,44 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.util.SpiGetUtil;
+import com.rylinaux.plugman.util.UpdateUtil;
+import org.json.simple.JSONObject;
+
+import java.util.Map;
+
+/**
+ * SpigotMC resources through the SpiGet API, found by resourcemaps.yml, the learned mappings or by searching.
+ */
+public class SpiGetSource implements UpdateSource {
+
+    @Override
+    public String getName() {
+        return "spigotmc";
+    }
+
+    @Override
+    public boolean handles(String pluginName) {
+        Map.Entry<Long, Boolean> mapping = UpdateUtil.getMapping(pluginName);
+        return mapping == null || mapping.getValue();
+    }
+
+    @Override
+    public Release getLatestRelease(String pluginName) {
+        Map.Entry<Long, Boolean> mapping = UpdateUtil.getMapping(pluginName);
+
+        long id;
+        if (mapping != null) {
+            id = mapping.getKey();
+        } else {
+            id = SpiGetUtil.getPluginId(pluginName);
+            if (id < 0) return null;
+            PlugMan.getInstance().getLearnedMappings().learn(pluginName, id, true);
+        }
+
+        JSONObject latest = SpiGetUtil.getLatestVersion(id);
+        if (latest == null || !(latest.get("name") instanceof String)) return null;
+
+        return new Release(this, (String) latest.get("name"), SpiGetUtil.getDownloadURL(id), null);
+    }
+}
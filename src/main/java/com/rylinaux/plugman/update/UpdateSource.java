@@ -0,0 +1,46 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.util.Version;
+
+/**
+ * A place plugin updates can be found, e.g. SpigotMC or a project's own build server.
+ * <p>
+ * Sources are asked in the order of {@link UpdateSources}, the first one that finds a release of a plugin answers for it.
+ * Sources are called from update check threads, never from the main thread.
+ */
+public interface UpdateSource {
+
+    /**
+     * Get the name of the source.
+     *
+     * @return the name, e.g. "spigotmc"
+     */
+    String getName();
+
+    /**
+     * Whether this source may know the plugin, checked before {@link #getLatestRelease(String)}.
+     *
+     * @param pluginName the plugin name
+     * @return whether the source should be asked
+     */
+    boolean handles(String pluginName);
+
+    /**
+     * Get the latest release of a plugin, blocking.
+     *
+     * @param pluginName the plugin name
+     * @return the release, or null if the source does not know the plugin or could not be reached
+     */
+    Release getLatestRelease(String pluginName);
+
+    /**
+     * Whether the installed version is at least the latest version, see {@link Version} for how versions are ordered.
+     *
+     * @param current the installed version
+     * @param latest  the latest version
+     * @return whether the installed version is up-to-date
+     */
+    default boolean isUpToDate(String current, String latest) {
+        return current.equalsIgnoreCase(latest) || Version.parse(current).compareTo(Version.parse(latest)) >= 0;
+    }
+}
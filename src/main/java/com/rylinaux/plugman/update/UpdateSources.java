@@ -0,0 +1,136 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.UpdateResult;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+/**
+ * The registry of update sources.
+ * <p>
+ * Sources registered later are asked first, so other plugins can put their own source in front of the built-in ones.
+ * The built-in order is GeyserMC, the JSON endpoints from the config, SpigotMC and CurseForge, the last two search by
+ * name and answer for any plugin they find.
+ */
+public class UpdateSources {
+
+    /**
+     * The sources, in the order they are asked.
+     */
+    private final List<UpdateSource> sources = new CopyOnWriteArrayList<>();
+
+    /**
+     * Construct the registry with the built-in sources.
+     *
+     * @param config the update-sources section of the config, may be null
+     */
+    public UpdateSources(ConfigurationSection config) {
+        this.register(new CurseForgeSource());
+        this.register(new SpiGetSource());
+        this.register(new JsonEndpointSource(config == null ? null : config.getConfigurationSection("endpoints")));
+        this.register(new GeyserMCSource());
+    }
+
+    /**
+     * Registers a source, it is asked before all sources registered so far.
+     *
+     * @param source the source
+     */
+    public void register(UpdateSource source) {
+        this.sources.add(0, source);
+    }
+
+    /**
+     * Removes a source.
+     *
+     * @param name the name of the source
+     * @return whether a source was removed
+     */
+    public boolean unregister(String name) {
+        return this.sources.removeIf(source -> source.getName().equalsIgnoreCase(name));
+    }
+
+    /**
+     * Get a source by name.
+     *
+     * @param name the name of the source
+     * @return the source, or null if there is none
+     */
+    public UpdateSource get(String name) {
+        for (UpdateSource source : this.sources)
+            if (source.getName().equalsIgnoreCase(name)) return source;
+        return null;
+    }
+
+    /**
+     * Get all sources.
+     *
+     * @return a copy of the sources, in the order they are asked
+     */
+    public List<UpdateSource> getSources() {
+        return new ArrayList<>(this.sources);
+    }
+
+    /**
+     * Finds the latest release of a plugin, blocking.
+     *
+     * @param pluginName the plugin name
+     * @return the release of the first source that knows the plugin, or null if none does
+     */
+    public Release find(String pluginName) {
+        for (UpdateSource source : this.sources) {
+            if (!source.handles(pluginName)) continue;
+
+            try {
+                Release release = source.getLatestRelease(pluginName);
+                if (release != null && release.getVersion() != null) return release;
+            } catch (RuntimeException e) {
+                PlugMan.getInstance().getLogger().log(Level.WARNING, "Update source " + source.getName() + " failed for " + pluginName, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if the installed plugin version is up-to-date, blocking.
+     *
+     * @param pluginName the plugin name
+     * @return the reflective UpdateResult
+     */
+    public UpdateResult check(String pluginName) {
+        return this.check(pluginName, this.find(pluginName));
+    }
+
+    /**
+     * Compares the installed plugin version to a release.
+     *
+     * @param pluginName the plugin name
+     * @param release    the release, see {@link #find(String)}, may be null
+     * @return the reflective UpdateResult
+     */
+    public UpdateResult check(String pluginName, Release release) {
+        if (release == null) {
+            Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
+            if (plugin == null)
+                return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, pluginName);
+            return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
+        }
+
+        String currentVersion = PlugMan.getInstance().getPluginUtil().getPluginVersion(pluginName);
+        String latestVersion = release.getVersion();
+
+        if (currentVersion == null)
+            return new UpdateResult(UpdateResult.ResultType.NOT_INSTALLED, currentVersion, latestVersion);
+
+        if (release.getSource().isUpToDate(currentVersion, latestVersion))
+            return new UpdateResult(UpdateResult.ResultType.UP_TO_DATE, currentVersion, latestVersion);
+        else
+            return new UpdateResult(UpdateResult.ResultType.OUT_OF_DATE, currentVersion, latestVersion);
+    }
+}
@@ -3,9 +3,11 @@ package com.rylinaux.plugman.util;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.tree.CommandNode;
 import com.mojang.brigadier.tree.RootCommandNode;
+import com.rylinaux.plugman.PlugMan;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -13,6 +15,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
 
 public class BukkitCommandWrap {
     private final boolean nmsVersioning;
@@ -29,6 +35,20 @@ public class BukkitCommandWrap {
     private Method syncCommandsMethod;
     private Constructor bukkitcommandWrapperConstructor;
 
+    /**
+     * Whether the command tree changed since the last sync.
+     */
+    private boolean dirty = false;
+    /**
+     * Players that have not been sent the current command tree yet.
+     */
+    private final Set<UUID> pendingPlayers = new LinkedHashSet<>();
+    /**
+     * The maximum number of players refreshed per tick, 0 for no limit.
+     */
+    private int playersPerTick = 0;
+    private BukkitTask flushTask = null;
+
     public BukkitCommandWrap() {
         String prefix = getCraftBukkitPrefix();
         String[] packageParts = prefix.split("\\.");
@@ -102,7 +122,69 @@ public class BukkitCommandWrap {
         }
     }
 
+    /**
+     * Marks the command tree as changed. The server and the players are synced once on the next tick, no matter how
+     * often this is called until then. If PlugMan is disabled, e.g. while it unloads itself, no task can be scheduled
+     * and everything is synced right away.
+     */
     public void sync() {
+        PlugMan plugman = PlugMan.getInstance();
+        if (plugman == null || !plugman.isEnabled()) {
+            if (this.flushTask != null) this.flushTask.cancel();
+            this.flushTask = null;
+            this.dirty = false;
+            this.pendingPlayers.clear();
+            this.syncNow();
+            return;
+        }
+
+        this.dirty = true;
+
+        if (this.flushTask != null && !this.flushTask.isCancelled()) return;
+
+        this.playersPerTick = plugman.getConfig().getInt("command-sync.players-per-tick", 0);
+        this.flushTask = Bukkit.getScheduler().runTaskTimer(plugman, this::flush, 1L, 1L);
+    }
+
+    /**
+     * Syncs the command tree of the server and every online player right away.
+     */
+    public void syncNow() {
+        this.syncServer();
+        Bukkit.getOnlinePlayers().forEach(Player::updateCommands);
+    }
+
+    /**
+     * Syncs the server if the tree changed and refreshes as many pending players as allowed per tick.
+     */
+    private void flush() {
+        if (this.dirty) {
+            this.dirty = false;
+            this.syncServer();
+
+            for (Player player : Bukkit.getOnlinePlayers())
+                this.pendingPlayers.add(player.getUniqueId());
+        }
+
+        int refreshed = 0;
+        for (Iterator<UUID> it = this.pendingPlayers.iterator(); it.hasNext(); ) {
+            if (this.playersPerTick > 0 && refreshed >= this.playersPerTick) break;
+
+            Player player = Bukkit.getPlayer(it.next());
+            it.remove();
+
+            if (player == null) continue;
+            player.updateCommands();
+            refreshed++;
+        }
+
+        if (this.pendingPlayers.isEmpty() && !this.dirty) {
+            this.flushTask.cancel();
+            this.flushTask = null;
+        }
+    }
+
+    private void syncServer() {
         if (!this.resolveSyncCommandsMethod()) return;
 
         try {
@@ -110,10 +192,6 @@ public class BukkitCommandWrap {
         } catch (IllegalAccessException | InvocationTargetException e) {
             e.printStackTrace();
         }
-
-        if (Bukkit.getOnlinePlayers().isEmpty()) return;
-
-        Bukkit.getOnlinePlayers().forEach(Player::updateCommands);
     }
 
     public void unwrap(String command) {
@@ -0,0 +1,185 @@
+package com.rylinaux.plugman.util;
+
+import com.rylinaux.plugman.leak.LeakTracker;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Releases the class loaders of unloaded plugins and reports whether they were collected.
+ * <p>
+ * An explicit GC stops the whole server, so it is not run after every unload. Depending on the strategy a single GC
+ * runs once a batch of unloads is over, either always or only where a jar stays locked until its class loader is
+ * collected. A while after each unload, a weak reference tells whether the class loader is gone or something still
+ * holds on to it.
+ * Does not depend on the server, so Bukkit and BungeeCord share it.
+ */
+public class ClassLoaderRelease {
+
+    /**
+     * When the class loaders of unloaded plugins are collected.
+     */
+    public enum Strategy {
+        /**
+         * Never request a GC, the JVM collects the class loaders whenever it wants.
+         */
+        NONE,
+        /**
+         * Request a single GC once no plugin was unloaded for the configured delay.
+         */
+        DEFERRED,
+        /**
+         * Like {@link #DEFERRED}, but only on Windows, which keeps jars locked until their class loader is collected.
+         */
+        UNLOCK;
+
+        /**
+         * Get a strategy by its name.
+         *
+         * @param name the name, case is ignored
+         * @param def  the strategy if the name is unknown
+         * @return the strategy
+         */
+        public static Strategy parse(String name, Strategy def) {
+            if (name == null) return def;
+
+            try {
+                return Strategy.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return def;
+            }
+        }
+    }
+
+    private final Logger logger;
+    private final Strategy strategy;
+
+    /**
+     * How long after the last unload the GC and the check run, in milliseconds.
+     */
+    private final long delayMillis;
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The class loaders that were not checked yet.
+     */
+    private final List<Released> pending = new ArrayList<>();
+
+    private ScheduledFuture<?> scheduled = null;
+
+    /**
+     * Construct the release.
+     *
+     * @param logger      the logger results are reported to
+     * @param strategy    when a GC is requested
+     * @param delayMillis how long after the last unload the GC and the check run, in milliseconds
+     */
+    public ClassLoaderRelease(Logger logger, Strategy strategy, long delayMillis) {
+        this.logger = logger;
+        this.strategy = strategy;
+        this.delayMillis = Math.max(0, delayMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PlugManX ClassLoader Release");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the strategy.
+     *
+     * @return when a GC is requested
+     */
+    public Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * Releases the class loader of a plugin that was just unloaded, after it was closed.
+     *
+     * @param pluginName  the name of the plugin
+     * @param classLoader the class loader of the plugin
+     */
+    public void release(String pluginName, ClassLoader classLoader) {
+        boolean collect = this.strategy == Strategy.DEFERRED || this.strategy == Strategy.UNLOCK && ClassLoaderRelease.isWindows();
+
+        synchronized (this) {
+            this.pending.add(new Released(pluginName, new WeakReference<>(classLoader), collect));
+
+            // Every unload pushes the check back, so a batch of unloads ends with a single GC.
+            if (this.scheduled != null) this.scheduled.cancel(false);
+            try {
+                this.scheduled = this.executor.schedule(this::check, this.delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignored) {
+                // Shut down, the server is stopping anyway.
+            }
+        }
+    }
+
+    /**
+     * Stops the check thread, pending checks are dropped.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private void check() {
+        List<Released> released;
+        synchronized (this) {
+            released = new ArrayList<>(this.pending);
+            this.pending.clear();
+            this.scheduled = null;
+        }
+
+        boolean gc = false;
+        for (Released entry : released) gc |= entry.collect;
+
+        // Runs on the check thread once the unload is over, so the caller no longer holds the class loader on its stack.
+        // -XX:+DisableExplicitGC ignores the request and -XX:+ExplicitGCInvokesConcurrent only starts a concurrent
+        // cycle, so a class loader that is still there only means a leak if an old collection actually happened.
+        boolean collected = false;
+        if (gc) {
+            long before = LeakTracker.countOldCollections();
+            long start = System.nanoTime();
+            System.gc();
+            collected = before >= 0 && LeakTracker.countOldCollections() > before;
+            this.logger.fine("GC after unloading " + released.size() + " plugin(s) took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms" + (collected ? "" : ", no old collection ran"));
+        }
+
+        for (Released entry : released)
+            if (entry.classLoader.get() == null)
+                this.logger.info("The class loader of " + entry.pluginName + " was collected");
+            else if (entry.collect && collected)
+                this.logger.log(Level.WARNING, "The class loader of " + entry.pluginName + " was not collected after a GC, something still references the unloaded plugin");
+            else if (entry.collect)
+                this.logger.fine("The class loader of " + entry.pluginName + " was not collected yet, the GC did not run a full collection");
+            else
+                this.logger.fine("The class loader of " + entry.pluginName + " was not collected yet, no GC was requested");
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+    }
+
+    private static final class Released {
+        private final String pluginName;
+        private final WeakReference<ClassLoader> classLoader;
+
+        /**
+         * Whether a GC runs before the check.
+         */
+        private final boolean collect;
+
+        private Released(String pluginName, WeakReference<ClassLoader> classLoader, boolean collect) {
+            this.pluginName = pluginName;
+            this.classLoader = classLoader;
+            this.collect = collect;
+        }
+    }
+}
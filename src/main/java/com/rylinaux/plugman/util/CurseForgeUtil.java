@@ -5,11 +5,7 @@ import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.pojo.UpdateResult;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClients;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -21,8 +17,9 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 public class CurseForgeUtil {
     /**
@@ -36,10 +33,11 @@ public class CurseForgeUtil {
      * @return a map of the plugins and the results.
      */
     public static Map<String, UpdateResult> checkUpToDate() {
-        Map<String, UpdateResult> results = new TreeMap<>();
+        List<String> names = new ArrayList<>();
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            results.put(plugin.getName(), checkUpToDate(plugin.getName()));
-        return results;
+            names.add(plugin.getName());
+        return UpdateChecker.fromConfig().checkAll(names, CurseForgeUtil::checkUpToDate, (name, result) -> {
+        }).join();
     }
 
     /**
@@ -74,9 +72,9 @@ public class CurseForgeUtil {
             return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
         }
 
-        JSONArray versions = CurseForgeUtil.getPluginVersions(pluginId);
+        JSONObject latest = CurseForgeUtil.getLatestVersion(pluginId);
 
-        if (versions == null || versions.size() == 0) {
+        if (latest == null) {
             Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
             if (plugin == null)
                 if (idSpecified)
@@ -86,8 +84,6 @@ public class CurseForgeUtil {
             return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
         }
 
-        JSONObject latest = (JSONObject) versions.get(versions.size() - 1);
-
         String currentVersion = PlugMan.getInstance().getPluginUtil().getPluginVersion(pluginName);
         if (!(Bukkit.getPluginManager().getPlugin(pluginName) instanceof JavaPlugin))
             if (idSpecified)
@@ -140,15 +136,9 @@ public class CurseForgeUtil {
      */
     public static long getPluginId(String name) {
 
-        HttpClient client = HttpClients.createMinimal();
-
-        HttpGet get = new HttpGet(API_BASE_URL + "projects?search=" + name.toLowerCase());
-        get.setHeader("User-Agent", "PlugMan");
-
         try {
 
-            HttpResponse response = client.execute(get);
-            String body = IOUtils.toString(response.getEntity().getContent());
+            String body = HttpUtil.getCachedString(API_BASE_URL + "projects?search=" + name.toLowerCase(), HttpCache.Kind.SEARCH);
 
             Object object = JSONValue.parse(body);
 
@@ -166,7 +156,7 @@ public class CurseForgeUtil {
             }
 
         } catch (IOException e) {
-            e.printStackTrace();
+            if (!HttpUtil.isNotFound(e)) e.printStackTrace();
         }
 
         return -1;
@@ -181,20 +171,38 @@ public class CurseForgeUtil {
      */
     public static JSONArray getPluginVersions(long id) {
 
-        HttpClient client = HttpClients.createMinimal();
-
-        HttpGet get = new HttpGet(API_BASE_URL + "files?projectIds=" + id);
-        get.setHeader("User-Agent", "PlugMan");
-
         try {
 
-            HttpResponse response = client.execute(get);
-            String body = IOUtils.toString(response.getEntity().getContent());
+            String body = HttpUtil.getCachedString(API_BASE_URL + "files?projectIds=" + id, HttpCache.Kind.VERSIONS);
 
             return (JSONArray) JSONValue.parse(body);
 
         } catch (IOException e) {
-            e.printStackTrace();
+            if (!HttpUtil.isNotFound(e)) e.printStackTrace();
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Get the latest file of a given plugin.
+     * The API cannot be asked for a single file, so the list is parsed straight from the response and only the last
+     * file is kept. The list is not cached, as caching would mean buffering it.
+     *
+     * @param id the plugin id.
+     * @return the JSON encoded file, or null if there is none.
+     */
+    public static JSONObject getLatestVersion(long id) {
+
+        try {
+
+            Object latest = HttpUtil.execute(new HttpGet(API_BASE_URL + "files?projectIds=" + id),
+                    response -> JsonStreamUtil.getLastElement(HttpUtil.readStream(response)));
+            return latest instanceof JSONObject ? (JSONObject) latest : null;
+
+        } catch (IOException e) {
+            if (!HttpUtil.isNotFound(e)) e.printStackTrace();
         }
 
         return null;
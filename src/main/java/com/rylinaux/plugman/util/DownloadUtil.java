@@ -0,0 +1,346 @@
+package com.rylinaux.plugman.util;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+import java.util.zip.ZipException;
+
+/**
+ * Downloads plugin jars and swaps them in.
+ * <p>
+ * Downloads are streamed straight into the file channel and resumed with a {@code Range} request if the connection
+ * drops. The ETag or Last-Modified date of the file is kept next to a partial download and sent as {@code If-Range},
+ * so a partial download is only continued if the file did not change in the meantime. A jar is only installed after
+ * its checksum matched and it turned out to be the expected plugin, the installed jar is kept as a {@code .old} backup
+ * and restored if the swap fails.
+ */
+public class DownloadUtil {
+
+    /**
+     * How many bytes are transferred per call, so progress is not lost on a dropped connection.
+     */
+    private static final long CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Downloads a URL into a file, resuming a partial download of an earlier attempt if the server still serves the
+     * same file.
+     *
+     * @param url      the URL
+     * @param file     the file, bytes already in it are only kept if {@code <name>.resume} tells which file they belong to
+     * @param sha256   the expected SHA-256 in hex, or null to skip the check
+     * @param attempts how often the download is tried, resuming each time
+     * @return the size of the file
+     * @throws IOException if every attempt failed or the checksum did not match, the file is deleted then unless it can
+     *                     be resumed later
+     */
+    public static long download(String url, File file, String sha256, int attempts) throws IOException {
+        Path resume = DownloadUtil.getResumeFile(file.toPath());
+        IOException failure = null;
+
+        for (int attempt = 1; attempt <= Math.max(1, attempts); attempt++)
+            try {
+                DownloadUtil.transfer(url, file.toPath(), resume, sha256 != null);
+                failure = null;
+                break;
+            } catch (HttpResponseException e) {
+                // The server answered, trying again will not help.
+                failure = e;
+                break;
+            } catch (IOException e) {
+                failure = e;
+                Logger.getLogger(DownloadUtil.class.getName()).warning("Download of " + file.getName() + " interrupted at " + file.length() / 1024 + " KB (attempt " + attempt + "/" + attempts + "): " + e.getMessage());
+            }
+
+        if (failure != null) {
+            // An interrupted download is kept for the next try, as long as it can be told apart from a newer file.
+            if (failure instanceof HttpResponseException || !Files.exists(resume)) DownloadUtil.discard(file.toPath(), resume);
+            throw failure;
+        }
+
+        Files.deleteIfExists(resume);
+
+        if (sha256 != null) {
+            String actual = DownloadUtil.sha256(file.toPath());
+            if (!actual.equalsIgnoreCase(sha256)) {
+                Files.deleteIfExists(file.toPath());
+                throw new IOException("Checksum mismatch for " + file.getName() + ", expected " + sha256 + " but got " + actual);
+            }
+        }
+
+        return file.length();
+    }
+
+    private static void transfer(String url, Path path, Path resume, boolean checksum) throws IOException {
+        Properties stored = DownloadUtil.readResume(resume);
+
+        // Without a validator the bytes may belong to another version of the file.
+        if (Files.exists(path) && stored.getProperty("validator") == null) DownloadUtil.discard(path, resume);
+        long existing = Files.exists(path) ? Files.size(path) : 0;
+
+        HttpGet get = new HttpGet(url);
+        // Ranges of a compressed response do not line up with the file.
+        get.setHeader("Accept-Encoding", "identity");
+        if (existing > 0) {
+            get.setHeader("Range", "bytes=" + existing + "-");
+            // The server sends the whole file instead if it changed since.
+            get.setHeader("If-Range", stored.getProperty("validator"));
+        }
+
+        HttpUtil.execute(get, response -> {
+            int status = response.getStatusLine().getStatusCode();
+
+            if (status == 416 && existing > 0) {
+                // The range starts behind the end of the file, which only means the download is complete if the length
+                // confirms it, or the checksum is verified afterwards.
+                long length = DownloadUtil.getTotalLength(response, DownloadUtil.parseLong(stored.getProperty("length")));
+                if (length == existing || checksum) return null;
+
+                DownloadUtil.discard(path, resume);
+                throw new IOException("The partial download of " + path.getFileName() + " does not match the file on the server");
+            }
+            if (status != 200 && status != 206)
+                throw new HttpResponseException(status, response.getStatusLine().getReasonPhrase());
+
+            HttpEntity entity = response.getEntity();
+            if (entity == null) throw new IOException("Empty response from " + url);
+
+            long position = 0;
+            if (status == 206) {
+                if (!DownloadUtil.matches(response, existing, stored)) {
+                    DownloadUtil.discard(path, resume);
+                    throw new IOException("The server sent a different part or version of " + path.getFileName());
+                }
+                position = existing;
+            } else {
+                // The server ignored the range or the file changed, everything is sent again.
+                DownloadUtil.writeResume(resume, response, entity.getContentLength());
+            }
+
+            try (InputStream in = entity.getContent();
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel target = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                target.truncate(position);
+
+                long transferred;
+                while ((transferred = target.transferFrom(source, position, DownloadUtil.CHUNK_SIZE)) > 0)
+                    position += transferred;
+
+                target.force(false);
+            }
+
+            long expected = entity.getContentLength();
+            if (expected >= 0 && position - (status == 206 ? existing : 0) < expected)
+                throw new IOException("Connection closed after " + position + " bytes");
+            return null;
+        });
+    }
+
+    /**
+     * Whether a partial response continues the partial file, i.e. starts where it ends and is of the same file.
+     */
+    private static boolean matches(HttpResponse response, long existing, Properties stored) {
+        Header range = response.getFirstHeader("Content-Range");
+        if (range == null || !range.getValue().trim().startsWith("bytes " + existing + "-")) return false;
+
+        long length = DownloadUtil.parseLong(stored.getProperty("length"));
+        long total = DownloadUtil.getTotalLength(response, -1);
+        if (length >= 0 && total >= 0 && length != total) return false;
+
+        String validator = stored.getProperty("validator");
+        Header actual = response.getFirstHeader(validator.startsWith("\"") ? "ETag" : "Last-Modified");
+        return actual == null || actual.getValue().equals(validator);
+    }
+
+    /**
+     * Get the length of the whole file from the {@code Content-Range} of a response.
+     */
+    private static long getTotalLength(HttpResponse response, long def) {
+        Header range = response.getFirstHeader("Content-Range");
+        if (range == null) return def;
+
+        String value = range.getValue();
+        long total = DownloadUtil.parseLong(value.substring(value.lastIndexOf('/') + 1).trim());
+        return total < 0 ? def : total;
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return -1;
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Path getResumeFile(Path path) {
+        return path.resolveSibling(path.getFileName() + ".resume");
+    }
+
+    private static Properties readResume(Path resume) {
+        Properties properties = new Properties();
+        if (!Files.exists(resume)) return properties;
+
+        try (InputStream in = Files.newInputStream(resume)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            properties.clear();
+        }
+        return properties;
+    }
+
+    /**
+     * Remembers which file a download belongs to, by its strong ETag or else its Last-Modified date. Weak ETags cannot
+     * be used with {@code If-Range}. Without either, the download cannot be resumed later.
+     */
+    private static void writeResume(Path resume, HttpResponse response, long length) throws IOException {
+        Header etag = response.getFirstHeader("ETag");
+        Header lastModified = response.getFirstHeader("Last-Modified");
+
+        String validator = null;
+        if (etag != null && etag.getValue().startsWith("\"")) validator = etag.getValue();
+        else if (lastModified != null) validator = lastModified.getValue();
+
+        if (validator == null) {
+            Files.deleteIfExists(resume);
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("validator", validator);
+        if (length >= 0) properties.setProperty("length", Long.toString(length));
+
+        try (OutputStream out = Files.newOutputStream(resume)) {
+            properties.store(out, null);
+        }
+    }
+
+    private static void discard(Path path, Path resume) throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(resume);
+    }
+
+    /**
+     * Computes the SHA-256 of a file.
+     *
+     * @param path the file
+     * @return the checksum in lower-case hex
+     * @throws IOException if the file cannot be read
+     */
+    public static String sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    /**
+     * Checks that a downloaded file is a jar of the expected plugin. Not every source publishes a checksum, and an error
+     * page or the jar of another resource would otherwise replace the installed plugin.
+     *
+     * @param jar        the downloaded jar
+     * @param pluginName the name the plugin.yml or paper-plugin.yml has to declare, case is ignored
+     * @throws IOException if the file is no jar, has no plugin description or declares another name
+     */
+    public static void verifyPlugin(File jar, String pluginName) throws IOException {
+        try (JarFile jarFile = new JarFile(jar)) {
+            JarEntry entry = jarFile.getJarEntry("plugin.yml");
+            if (entry == null) entry = jarFile.getJarEntry("paper-plugin.yml");
+            if (entry == null) throw new IOException(jar.getName() + " has no plugin.yml");
+
+            String name;
+            try (Reader reader = new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+                name = YamlConfiguration.loadConfiguration(reader).getString("name");
+            }
+
+            if (!pluginName.equalsIgnoreCase(name))
+                throw new IOException(jar.getName() + " is the plugin '" + name + "', not " + pluginName);
+        } catch (ZipException e) {
+            throw new IOException(jar.getName() + " is no jar: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces an installed jar with a downloaded one, keeping the installed jar as {@code <name>.old}.
+     * The downloaded jar is verified first, see {@link #verifyPlugin(File, String)}. If the new jar cannot be moved in
+     * place, the backup is moved back.
+     *
+     * @param downloaded the downloaded jar
+     * @param installed  the installed jar
+     * @param pluginName the name of the plugin
+     * @return the backup
+     * @throws IOException if the downloaded jar is not the plugin or the jar could not be replaced, the installed jar
+     *                     is kept or restored then
+     */
+    public static File install(File downloaded, File installed, String pluginName) throws IOException {
+        DownloadUtil.verifyPlugin(downloaded, pluginName);
+
+        Path backup = new File(installed.getParentFile(), installed.getName() + ".old").toPath();
+        Path target = installed.toPath();
+
+        Files.deleteIfExists(backup);
+        DownloadUtil.move(target, backup);
+
+        try {
+            DownloadUtil.move(downloaded.toPath(), target);
+        } catch (IOException e) {
+            try {
+                DownloadUtil.move(backup, target);
+            } catch (IOException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e;
+        }
+
+        return backup.toFile();
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -2,18 +2,13 @@ package com.rylinaux.plugman.util;
 
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.pojo.UpdateResult;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.client.HttpResponseException;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Utilities for dealing with the GeyserMC API.
@@ -25,6 +20,20 @@ public class GeyserMCUtil {
      */
     public static final String API_BASE_URL = "https://download.geysermc.org/v2/projects/";
 
+    /**
+     * Get the GeyserMC project of a plugin.
+     *
+     * @param pluginName the plugin name.
+     * @return the project name ("geyser" or "floodgate"), or null if it is not a GeyserMC plugin.
+     */
+    public static String getProjectName(String pluginName) {
+        if (pluginName.equalsIgnoreCase("Geyser-Spigot") || pluginName.equalsIgnoreCase("Geyser"))
+            return "geyser";
+        if (pluginName.equalsIgnoreCase("floodgate"))
+            return "floodgate";
+        return null;
+    }
+
     /**
      * Check if the installed plugin version is up-to-date with the GeyserMC version.
      *
@@ -33,13 +42,8 @@ public class GeyserMCUtil {
      */
     public static UpdateResult checkUpToDate(String pluginName) {
         
-        // Map plugin names to GeyserMC project names
-        String projectName;
-        if (pluginName.equalsIgnoreCase("Geyser-Spigot") || pluginName.equalsIgnoreCase("Geyser")) {
-            projectName = "geyser";
-        } else if (pluginName.equalsIgnoreCase("floodgate")) {
-            projectName = "floodgate";
-        } else {
+        String projectName = GeyserMCUtil.getProjectName(pluginName);
+        if (projectName == null) {
             // Not a GeyserMC plugin
             Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
             if (plugin == null)
@@ -61,13 +65,10 @@ public class GeyserMCUtil {
         if (currentVersion == null)
             return new UpdateResult(UpdateResult.ResultType.NOT_INSTALLED, currentVersion, latestVersion);
 
-        // Strip -SNAPSHOT and build info suffixes for comparison
-        String normalizedCurrent = currentVersion.replaceAll("-SNAPSHOT.*", "").replaceAll(" \\(.*\\)", "").trim();
-        String normalizedLatest = latestVersion.trim();
+        // Geyser builds are always -SNAPSHOT with build info appended, only the release numbers are comparable
+        boolean isActual = Version.parse(currentVersion).compareRelease(Version.parse(latestVersion)) >= 0;
 
-        Boolean isActual = UpdateUtil.isActualVersion(normalizedCurrent, normalizedLatest);
-        
-        if (isActual != null && isActual)
+        if (isActual)
             return new UpdateResult(UpdateResult.ResultType.UP_TO_DATE, currentVersion, latestVersion);
         else
             return new UpdateResult(UpdateResult.ResultType.OUT_OF_DATE, currentVersion, latestVersion);
@@ -81,23 +82,9 @@ public class GeyserMCUtil {
      */
     public static String getLatestVersion(String projectName) {
 
-        // Use createDefault() to automatically follow redirects
-        HttpClient client = HttpClients.createDefault();
-
-        HttpGet get = new HttpGet(API_BASE_URL + projectName + "/versions/latest");
-        get.setHeader("User-Agent", "PlugManX");
-
         try {
 
-            HttpResponse response = client.execute(get);
-            int statusCode = response.getStatusLine().getStatusCode();
-
-            if (statusCode != 200) {
-                PlugMan.getInstance().getLogger().warning("GeyserMC API returned HTTP " + statusCode + " for " + projectName);
-                return null;
-            }
-
-            String body = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
+            String body = HttpUtil.getCachedString(API_BASE_URL + projectName + "/versions/latest", HttpCache.Kind.VERSIONS);
 
             if (body == null || body.trim().isEmpty()) {
                 PlugMan.getInstance().getLogger().warning("GeyserMC API returned empty response for " + projectName);
@@ -112,6 +99,8 @@ public class GeyserMCUtil {
                 PlugMan.getInstance().getLogger().warning("GeyserMC API response missing 'version' field for " + projectName);
             }
 
+        } catch (HttpResponseException e) {
+            PlugMan.getInstance().getLogger().warning("GeyserMC API returned HTTP " + e.getStatusCode() + " for " + projectName);
         } catch (IOException e) {
             PlugMan.getInstance().getLogger().warning("Failed to fetch GeyserMC version for " + projectName + ": " + e.getMessage());
         } catch (Exception e) {
@@ -121,6 +110,54 @@ public class GeyserMCUtil {
         return null;
     }
 
+    /**
+     * Get the latest build of a GeyserMC project.
+     *
+     * @param projectName the project name ("geyser" or "floodgate").
+     * @return the JSON encoded build with its version, build number and downloads, or null if failed.
+     */
+    public static JSONObject getLatestBuild(String projectName) {
+        try {
+            Object json = JSONValue.parse(HttpUtil.getCachedString(API_BASE_URL + projectName + "/versions/latest/builds/latest", HttpCache.Kind.VERSIONS));
+            if (json instanceof JSONObject && ((JSONObject) json).containsKey("build"))
+                return (JSONObject) json;
+
+            PlugMan.getInstance().getLogger().warning("GeyserMC API response missing 'build' field for " + projectName);
+        } catch (IOException e) {
+            PlugMan.getInstance().getLogger().warning("Failed to fetch the latest GeyserMC build for " + projectName + ": " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the download URL of a specific build, so the file matches the checksum of that build.
+     *
+     * @param projectName the project name ("geyser" or "floodgate").
+     * @param build       the build, see {@link #getLatestBuild(String)}.
+     * @return the download URL.
+     */
+    public static String getDownloadURL(String projectName, JSONObject build) {
+        return API_BASE_URL + projectName + "/versions/" + build.get("version") + "/builds/" + build.get("build") + "/downloads/spigot";
+    }
+
+    /**
+     * Get the published SHA-256 of the spigot download of a build.
+     *
+     * @param build the build, see {@link #getLatestBuild(String)}.
+     * @return the checksum in hex, or null if it was not published.
+     */
+    public static String getSha256(JSONObject build) {
+        Object downloads = build.get("downloads");
+        if (!(downloads instanceof JSONObject)) return null;
+
+        Object spigot = ((JSONObject) downloads).get("spigot");
+        if (!(spigot instanceof JSONObject)) return null;
+
+        Object sha256 = ((JSONObject) spigot).get("sha256");
+        return sha256 instanceof String ? (String) sha256 : null;
+    }
+
     /**
      * Get the download URL for a GeyserMC project.
      *
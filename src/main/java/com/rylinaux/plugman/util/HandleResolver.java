@@ -0,0 +1,227 @@
+package com.rylinaux.plugman.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves fields and methods into {@link MethodHandle}s once and keeps track of what could not be resolved.
+ * <p>
+ * All handles are adapted to generic signatures, getters are {@code (Object)Object}, setters {@code (Object,Object)void}
+ * and methods take and return {@code Object}, so they can be called with {@code invokeExact} without knowing the
+ * server classes at compile time. Static members simply ignore the target.
+ */
+public class HandleResolver {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * The problem with every handle by name, null if it was resolved.
+     */
+    private final Map<String, String> problems = new LinkedHashMap<>();
+
+    /**
+     * Whether a handle is required, by name.
+     */
+    private final Map<String, Boolean> required = new LinkedHashMap<>();
+
+    /**
+     * Resolves a field getter.
+     *
+     * @param name     the name to report the handle as
+     * @param owner    the class declaring the field or a subclass of it, may be null if it could not be found
+     * @param field    the field name
+     * @param required whether the server is unsupported without it
+     * @return the getter, or null if it cannot be resolved
+     */
+    public MethodHandle getter(String name, Class<?> owner, String field, boolean required) {
+        try {
+            Field target = HandleResolver.findField(owner, field);
+            MethodHandle handle = HandleResolver.LOOKUP.unreflectGetter(target);
+            if (Modifier.isStatic(target.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return this.resolved(name, required, handle.asType(HandleResolver.GETTER));
+        } catch (Exception e) {
+            return this.failed(name, required, e);
+        }
+    }
+
+    /**
+     * Resolves a field setter.
+     *
+     * @param name     the name to report the handle as
+     * @param owner    the class declaring the field or a subclass of it, may be null if it could not be found
+     * @param field    the field name
+     * @param required whether the server is unsupported without it
+     * @return the setter, or null if it cannot be resolved
+     */
+    public MethodHandle setter(String name, Class<?> owner, String field, boolean required) {
+        try {
+            Field target = HandleResolver.findField(owner, field);
+            MethodHandle handle = HandleResolver.LOOKUP.unreflectSetter(target);
+            if (Modifier.isStatic(target.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return this.resolved(name, required, handle.asType(HandleResolver.SETTER));
+        } catch (Exception e) {
+            return this.failed(name, required, e);
+        }
+    }
+
+    /**
+     * Resolves a public method, the handle takes the target followed by the arguments.
+     *
+     * @param name       the name to report the handle as
+     * @param owner      the class declaring the method or a subclass of it, may be null if it could not be found
+     * @param method     the method name
+     * @param required   whether the server is unsupported without it
+     * @param parameters the parameter types
+     * @return the method, or null if it cannot be resolved
+     */
+    public MethodHandle method(String name, Class<?> owner, String method, boolean required, Class<?>... parameters) {
+        try {
+            if (owner == null) throw new ClassNotFoundException("Owner of " + method + " not found");
+
+            Method target = owner.getMethod(method, parameters);
+            target.setAccessible(true);
+            MethodHandle handle = HandleResolver.LOOKUP.unreflect(target);
+            if (Modifier.isStatic(target.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return this.resolved(name, required, handle.asType(handle.type().generic()));
+        } catch (Exception e) {
+            return this.failed(name, required, e);
+        }
+    }
+
+    /**
+     * Records a handle that was built by the caller.
+     *
+     * @param name     the name to report the handle as
+     * @param required whether the server is unsupported without it
+     * @param handle   the handle
+     * @return the handle
+     */
+    public MethodHandle resolved(String name, boolean required, MethodHandle handle) {
+        this.required.put(name, required);
+        this.problems.put(name, null);
+        return handle;
+    }
+
+    /**
+     * Records a handle that could not be resolved.
+     *
+     * @param name     the name to report the handle as
+     * @param required whether the server is unsupported without it
+     * @param cause    why it could not be resolved
+     * @return always null
+     */
+    public MethodHandle failed(String name, boolean required, Throwable cause) {
+        this.required.put(name, required);
+        this.problems.put(name, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        return null;
+    }
+
+    /**
+     * Whether every required handle was resolved.
+     *
+     * @return whether the server is supported
+     */
+    public boolean isComplete() {
+        for (Map.Entry<String, String> entry : this.problems.entrySet())
+            if (entry.getValue() != null && this.required.get(entry.getKey())) return false;
+        return true;
+    }
+
+    /**
+     * Logs which handles could not be resolved.
+     *
+     * @param logger the logger
+     * @param server the name of the server implementation
+     */
+    public void logReport(Logger logger, String server) {
+        int resolved = 0;
+        for (String problem : this.problems.values())
+            if (problem == null) resolved++;
+
+        logger.info("Resolved " + resolved + "/" + this.problems.size() + " internals of " + server);
+
+        for (Map.Entry<String, String> entry : this.problems.entrySet()) {
+            if (entry.getValue() == null) continue;
+
+            boolean required = this.required.get(entry.getKey());
+            logger.log(required ? Level.SEVERE : Level.WARNING, (required ? "Missing " : "Missing optional ") + entry.getKey() + " (" + entry.getValue() + ")");
+        }
+
+        if (!this.isComplete())
+            logger.severe("This server is not fully supported, loading and unloading plugins will not work!");
+    }
+
+    /**
+     * Reads a field through a getter.
+     *
+     * @param handle the getter, may be null if it was not resolved
+     * @param name   the name of the field, for errors
+     * @param target the object to read from, ignored for static fields
+     * @return the value
+     */
+    public static Object get(MethodHandle handle, String name, Object target) {
+        if (handle == null) throw new IllegalStateException(name + " is not available on this server");
+
+        try {
+            return (Object) handle.invokeExact(target);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not read " + name, throwable);
+        }
+    }
+
+    /**
+     * Writes a field through a setter.
+     *
+     * @param handle the setter, may be null if it was not resolved
+     * @param name   the name of the field, for errors
+     * @param target the object to write to, ignored for static fields
+     * @param value  the new value
+     */
+    public static void set(MethodHandle handle, String name, Object target, Object value) {
+        if (handle == null) throw new IllegalStateException(name + " is not available on this server");
+
+        try {
+            handle.invokeExact(target, value);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not write " + name, throwable);
+        }
+    }
+
+    private static Field findField(Class<?> owner, String name) throws ReflectiveOperationException {
+        if (owner == null) throw new ClassNotFoundException("Owner of " + name + " not found");
+
+        for (Class<?> type = owner; type != null; type = type.getSuperclass())
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException ignored) {
+            }
+
+        throw new NoSuchFieldException(name + " in " + owner.getName());
+    }
+
+    /**
+     * Looks up a class without failing.
+     *
+     * @param name the fully qualified name
+     * @return the class, or null if it does not exist
+     */
+    public static Class<?> findClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+}
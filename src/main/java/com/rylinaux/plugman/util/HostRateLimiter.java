@@ -0,0 +1,57 @@
+package com.rylinaux.plugman.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out requests to the same host, requests to different hosts do not wait for each other.
+ */
+public class HostRateLimiter {
+
+    /**
+     * The minimum time between two requests to the same host, 0 for no limit.
+     */
+    private final long intervalNanos;
+
+    /**
+     * The earliest time the next request may be sent, by host.
+     */
+    private final Map<String, Long> nextSlots = new HashMap<>();
+
+    /**
+     * Construct the limiter.
+     *
+     * @param requestsPerSecond how many requests per second may be sent to the same host, 0 or less for no limit
+     */
+    public HostRateLimiter(double requestsPerSecond) {
+        this.intervalNanos = requestsPerSecond <= 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+
+    /**
+     * Blocks until a request may be sent to a host.
+     *
+     * @param host the host, requests without a host are not limited
+     */
+    public void acquire(String host) {
+        if (this.intervalNanos == 0 || host == null) return;
+
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            Long next = this.nextSlots.get(host);
+            long slot = next == null || next - now < 0 ? now : next;
+
+            this.nextSlots.put(host, slot + this.intervalNanos);
+            wait = slot - now;
+        }
+
+        if (wait <= 0) return;
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
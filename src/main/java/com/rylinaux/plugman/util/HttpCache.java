@@ -0,0 +1,238 @@
+package com.rylinaux.plugman.util;
+
+import org.apache.http.Header;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.bukkit.configuration.ConfigurationSection;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of responses from the update sources.
+ * <p>
+ * Every response is kept in its own file, named after the hash of its URL. A fresh response is used as is. A stale
+ * one is revalidated with {@code If-None-Match}/{@code If-Modified-Since}, so an unchanged resource only costs a 304.
+ * Searches that found nothing are remembered as well, for a shorter time.
+ */
+public class HttpCache {
+
+    /**
+     * What a response is used for, which decides how long it is fresh.
+     */
+    public enum Kind {
+        /**
+         * Searching a resource by name, rarely changes.
+         */
+        SEARCH("search-ttl-minutes", 24 * 60),
+        /**
+         * Versions and files of a resource.
+         */
+        VERSIONS("versions-ttl-minutes", 30);
+
+        private final String key;
+        private final long defaultMinutes;
+
+        Kind(String key, long defaultMinutes) {
+            this.key = key;
+            this.defaultMinutes = defaultMinutes;
+        }
+    }
+
+    /**
+     * The folder the responses are stored in.
+     */
+    private final File folder;
+
+    /**
+     * How long a response is fresh, in milliseconds, by kind.
+     */
+    private final Map<Kind, Long> ttls = new EnumMap<>(Kind.class);
+
+    /**
+     * How long a 404 is remembered, in milliseconds.
+     */
+    private final long notFoundTtl;
+
+    /**
+     * The responses that were read or stored so far, by URL.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Construct the cache.
+     *
+     * @param folder the folder to store the responses in
+     * @param config the cache section of the config, may be null
+     */
+    public HttpCache(File folder, ConfigurationSection config) {
+        this.folder = folder;
+
+        for (Kind kind : Kind.values())
+            this.ttls.put(kind, TimeUnit.MINUTES.toMillis(config == null ? kind.defaultMinutes : config.getLong(kind.key, kind.defaultMinutes)));
+        this.notFoundTtl = TimeUnit.MINUTES.toMillis(config == null ? 6 * 60 : config.getLong("not-found-ttl-minutes", 6 * 60));
+    }
+
+    /**
+     * Gets the body of a URL, from the cache if it is still fresh or did not change.
+     *
+     * @param url  the URL
+     * @param kind what the response is used for
+     * @return the body
+     * @throws IOException if the request failed or the status was not 2xx, including a remembered 404
+     */
+    public String get(String url, Kind kind) throws IOException {
+        Entry cached = this.load(url);
+        long now = System.currentTimeMillis();
+
+        if (cached != null && now - cached.fetched < (cached.notFound ? this.notFoundTtl : this.ttls.get(kind))) {
+            this.hits.incrementAndGet();
+            return cached.getBody();
+        }
+
+        HttpGet get = new HttpGet(url);
+        if (cached != null && !cached.notFound) {
+            if (cached.etag != null) get.setHeader("If-None-Match", cached.etag);
+            if (cached.lastModified != null) get.setHeader("If-Modified-Since", cached.lastModified);
+        }
+
+        Entry entry = HttpUtil.execute(get, response -> {
+            int status = response.getStatusLine().getStatusCode();
+
+            if (status == 304 && cached != null) {
+                this.revalidated.incrementAndGet();
+                return new Entry(url, cached.body, cached.etag, cached.lastModified, now, false);
+            }
+
+            this.misses.incrementAndGet();
+            if (status == 404) return new Entry(url, null, null, null, now, true);
+
+            String body = HttpUtil.readString(response);
+            return new Entry(url, body, HttpCache.getHeader(response.getFirstHeader("ETag")), HttpCache.getHeader(response.getFirstHeader("Last-Modified")), now, false);
+        });
+
+        this.store(entry);
+        return entry.getBody();
+    }
+
+    /**
+     * Get how often the cache was used.
+     *
+     * @return the hits, 304s and full requests
+     */
+    @Override
+    public String toString() {
+        return this.hits.get() + " hits, " + this.revalidated.get() + " not modified, " + this.misses.get() + " misses";
+    }
+
+    private Entry load(String url) {
+        Entry entry = this.entries.get(url);
+        if (entry != null) return entry;
+
+        File file = this.getFile(url);
+        if (!file.isFile()) return null;
+
+        try {
+            Object json = JSONValue.parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            if (!(json instanceof JSONObject)) return null;
+
+            entry = Entry.fromJson((JSONObject) json);
+            if (entry == null || !url.equals(entry.url)) return null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        this.entries.put(url, entry);
+        return entry;
+    }
+
+    private void store(Entry entry) {
+        this.entries.put(entry.url, entry);
+
+        if (!this.folder.isDirectory() && !this.folder.mkdirs()) return;
+
+        File file = this.getFile(entry.url);
+        File temp = new File(this.folder, file.getName() + ".tmp");
+
+        try {
+            Files.write(temp.toPath(), entry.toJson().toJSONString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignored) {
+            // Only kept in memory then.
+            temp.delete();
+        }
+    }
+
+    private File getFile(String url) {
+        try {
+            StringBuilder name = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8)))
+                name.append(String.format("%02x", b));
+            return new File(this.folder, name + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getHeader(Header header) {
+        return header == null ? null : header.getValue();
+    }
+
+    private static final class Entry {
+        private final String url;
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final long fetched;
+        private final boolean notFound;
+
+        private Entry(String url, String body, String etag, String lastModified, long fetched, boolean notFound) {
+            this.url = url;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetched = fetched;
+            this.notFound = notFound;
+        }
+
+        private String getBody() throws HttpResponseException {
+            if (this.notFound) throw new HttpResponseException(404, "Not Found");
+            return this.body;
+        }
+
+        private JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("url", this.url);
+            json.put("body", this.body);
+            json.put("etag", this.etag);
+            json.put("lastModified", this.lastModified);
+            json.put("fetched", this.fetched);
+            json.put("notFound", this.notFound);
+            return json;
+        }
+
+        private static Entry fromJson(JSONObject json) {
+            Object fetched = json.get("fetched");
+            if (!(fetched instanceof Number)) return null;
+
+            return new Entry((String) json.get("url"), (String) json.get("body"), (String) json.get("etag"), (String) json.get("lastModified"),
+                             ((Number) fetched).longValue(), Boolean.TRUE.equals(json.get("notFound")));
+        }
+    }
+}
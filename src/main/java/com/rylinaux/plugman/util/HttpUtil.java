@@ -0,0 +1,242 @@
+package com.rylinaux.plugman.util;
+
+import com.rylinaux.plugman.PlugMan;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The HTTP client shared by all update sources.
+ * <p>
+ * Connections are pooled and kept alive, so checking many plugins against the same site only pays for the TLS
+ * handshake once. Responses are always consumed, requests to the same host are spaced out and every request is
+ * counted and timed per host.
+ */
+public class HttpUtil {
+
+    /**
+     * The user agent sent with every request.
+     */
+    public static final String USER_AGENT = "PlugManX";
+
+    private static CloseableHttpClient client = null;
+    private static HostRateLimiter rateLimiter = null;
+    private static HttpCache cache = null;
+
+    /**
+     * The metrics of every host that was contacted.
+     */
+    private static final Map<String, HostMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /**
+     * Get the shared client, creating it from the config on first use.
+     *
+     * @return the client
+     */
+    public static synchronized CloseableHttpClient getClient() {
+        if (HttpUtil.client != null) return HttpUtil.client;
+
+        // Outside of the server, e.g. in tests, the defaults are used and nothing is cached.
+        PlugMan plugman = PlugMan.getInstance();
+        FileConfiguration config = plugman == null ? new YamlConfiguration() : plugman.getConfig();
+        int timeout = (int) TimeUnit.SECONDS.toMillis(config.getInt("http.timeout-seconds", 10));
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(config.getLong("http.keep-alive-seconds", 60), TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(config.getInt("http.max-connections", 20));
+        connectionManager.setDefaultMaxPerRoute(config.getInt("http.max-connections-per-host", 4));
+
+        HttpUtil.rateLimiter = new HostRateLimiter(config.getDouble("http.requests-per-second", 4));
+
+        if (plugman != null && config.getBoolean("cache.enabled", true))
+            HttpUtil.cache = new HttpCache(new File(plugman.getDataFolder(), "cache"), config.getConfigurationSection("cache"));
+
+        // HttpClientBuilder asks for and decodes gzip and deflate on its own.
+        HttpUtil.client = HttpClients.custom()
+                                     .setConnectionManager(connectionManager)
+                                     .setDefaultRequestConfig(RequestConfig.custom()
+                                                                           .setConnectTimeout(timeout)
+                                                                           .setConnectionRequestTimeout(timeout)
+                                                                           .setSocketTimeout(timeout)
+                                                                           .build())
+                                     .setUserAgent(HttpUtil.USER_AGENT)
+                                     .evictExpiredConnections()
+                                     .evictIdleConnections(config.getLong("http.keep-alive-seconds", 60), TimeUnit.SECONDS)
+                                     .build();
+        return HttpUtil.client;
+    }
+
+    /**
+     * Sends a request, waiting for the rate limit of its host first.
+     *
+     * @param request the request
+     * @param handler reads the response, the response is closed afterwards
+     * @param <T>     the type of the result
+     * @return the result of the handler
+     * @throws IOException if the request failed or the handler threw
+     */
+    public static <T> T execute(HttpUriRequest request, ResponseHandler<? extends T> handler) throws IOException {
+        CloseableHttpClient client;
+        HostRateLimiter rateLimiter;
+        synchronized (HttpUtil.class) {
+            client = HttpUtil.getClient();
+            rateLimiter = HttpUtil.rateLimiter;
+        }
+
+        String host = request.getURI().getHost();
+        rateLimiter.acquire(host);
+
+        HostMetrics metrics = HttpUtil.METRICS.computeIfAbsent(host == null ? "unknown" : host, ignored -> new HostMetrics());
+        long start = System.nanoTime();
+        try {
+            return client.execute(request, handler);
+        } catch (IOException | RuntimeException e) {
+            metrics.failures.incrementAndGet();
+            throw e;
+        } finally {
+            metrics.requests.incrementAndGet();
+            metrics.nanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the body of a URL as a string.
+     *
+     * @param url the URL
+     * @return the body
+     * @throws IOException if the request failed or the status was not 2xx
+     */
+    public static String getString(String url) throws IOException {
+        return HttpUtil.execute(new HttpGet(url), HttpUtil::readString);
+    }
+
+    /**
+     * Gets the body of a URL as a string, using the on-disk cache if it is enabled.
+     *
+     * @param url  the URL
+     * @param kind what the response is used for, decides how long it is cached
+     * @return the body
+     * @throws IOException if the request failed or the status was not 2xx, including a cached 404
+     */
+    public static String getCachedString(String url, HttpCache.Kind kind) throws IOException {
+        HttpCache cache;
+        synchronized (HttpUtil.class) {
+            HttpUtil.getClient();
+            cache = HttpUtil.cache;
+        }
+
+        return cache == null ? HttpUtil.getString(url) : cache.get(url, kind);
+    }
+
+    /**
+     * Reads a response as a UTF-8 string.
+     *
+     * @param response the response
+     * @return the body, empty if there is none
+     * @throws IOException if the status was not 2xx
+     */
+    public static String readString(HttpResponse response) throws IOException {
+        HttpEntity entity = HttpUtil.checkStatus(response);
+        return entity == null ? "" : EntityUtils.toString(entity, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a response as a UTF-8 stream, the body is not buffered.
+     *
+     * @param response the response
+     * @return reads the body, empty if there is none
+     * @throws IOException if the status was not 2xx
+     */
+    public static Reader readStream(HttpResponse response) throws IOException {
+        HttpEntity entity = HttpUtil.checkStatus(response);
+        return entity == null ? new StringReader("") : new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether a request failed because the resource does not exist.
+     *
+     * @param exception the exception the request failed with
+     * @return whether the status was 404
+     */
+    public static boolean isNotFound(IOException exception) {
+        return exception instanceof HttpResponseException && ((HttpResponseException) exception).getStatusCode() == 404;
+    }
+
+    private static HttpEntity checkStatus(HttpResponse response) throws IOException {
+        int status = response.getStatusLine().getStatusCode();
+        if (status < 200 || status >= 300)
+            throw new HttpResponseException(status, response.getStatusLine().getReasonPhrase());
+        return response.getEntity();
+    }
+
+    /**
+     * Get how many requests were sent to every host, how many failed and how long they took on average.
+     *
+     * @return a line per host, sorted by host
+     */
+    public static Map<String, String> getMetrics() {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, HostMetrics> entry : HttpUtil.METRICS.entrySet())
+            result.put(entry.getKey(), entry.getValue().toString());
+        return result;
+    }
+
+    /**
+     * Logs the metrics and closes all connections, the client is created again on next use.
+     *
+     * @param logger the logger
+     */
+    public static synchronized void shutdown(Logger logger) {
+        for (Map.Entry<String, String> entry : HttpUtil.getMetrics().entrySet())
+            logger.info("HTTP " + entry.getKey() + ": " + entry.getValue());
+        HttpUtil.METRICS.clear();
+
+        if (HttpUtil.cache != null) logger.info("HTTP cache: " + HttpUtil.cache);
+
+        if (HttpUtil.client == null) return;
+
+        try {
+            HttpUtil.client.close();
+        } catch (IOException e) {
+            logger.warning("Could not close the HTTP client: " + e.getMessage());
+        }
+
+        HttpUtil.client = null;
+        HttpUtil.rateLimiter = null;
+        HttpUtil.cache = null;
+    }
+
+    private static final class HostMetrics {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public String toString() {
+            long count = this.requests.get();
+            return count + " requests, " + this.failures.get() + " failed, " + (count == 0 ? 0 : this.nanos.get() / count / 1000000) + "ms average";
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.rylinaux.plugman.util;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads single elements of a JSON array without building the whole array.
+ */
+public class JsonStreamUtil {
+
+    /**
+     * Get the first element of a JSON array, parsing stops right after it.
+     *
+     * @param json the JSON array
+     * @return the element, or null if the array is empty or cannot be parsed
+     */
+    public static Object getFirstElement(String json) {
+        return JsonStreamUtil.read(new StringReader(json), true);
+    }
+
+    /**
+     * Get the last element of a JSON array, only the element being read is kept in memory.
+     *
+     * @param json the JSON array
+     * @return the element, or null if the array is empty or cannot be parsed
+     */
+    public static Object getLastElement(String json) {
+        return JsonStreamUtil.read(new StringReader(json), false);
+    }
+
+    /**
+     * Get the last element of a JSON array while it is read, only the element being read is kept in memory.
+     *
+     * @param reader reads the JSON array, it is not closed
+     * @return the element, or null if the array is empty or cannot be parsed
+     */
+    public static Object getLastElement(Reader reader) {
+        return JsonStreamUtil.read(reader, false);
+    }
+
+    private static Object read(Reader reader, boolean first) {
+        ElementHandler handler = new ElementHandler(first);
+        try {
+            new JSONParser().parse(reader, handler);
+        } catch (IOException | ParseException | RuntimeException e) {
+            return null;
+        }
+        return handler.element;
+    }
+
+    /**
+     * Builds the elements of the top-level array one at a time.
+     */
+    private static final class ElementHandler implements ContentHandler {
+        private final boolean stopAfterFirst;
+        private final Deque<Object> values = new ArrayDeque<>();
+        private final Deque<String> keys = new ArrayDeque<>();
+        private int depth = 0;
+        private Object element = null;
+
+        private ElementHandler(boolean stopAfterFirst) {
+            this.stopAfterFirst = stopAfterFirst;
+        }
+
+        @Override
+        public void startJSON() {
+        }
+
+        @Override
+        public void endJSON() {
+        }
+
+        @Override
+        public boolean startObject() {
+            this.depth++;
+            this.values.push(new JSONObject());
+            return true;
+        }
+
+        @Override
+        public boolean endObject() {
+            this.depth--;
+            return this.add(this.values.pop());
+        }
+
+        @Override
+        public boolean startObjectEntry(String key) {
+            this.keys.push(key);
+            return true;
+        }
+
+        @Override
+        public boolean endObjectEntry() {
+            this.keys.pop();
+            return true;
+        }
+
+        @Override
+        public boolean startArray() {
+            // The top-level array itself is never built.
+            if (this.depth++ > 0) this.values.push(new JSONArray());
+            return true;
+        }
+
+        @Override
+        public boolean endArray() {
+            if (--this.depth == 0) return true;
+            return this.add(this.values.pop());
+        }
+
+        @Override
+        public boolean primitive(Object value) {
+            return this.add(value);
+        }
+
+        private boolean add(Object value) {
+            if (this.values.isEmpty()) {
+                this.element = value;
+                return !this.stopAfterFirst;
+            }
+
+            Object parent = this.values.peek();
+            if (parent instanceof JSONObject) ((JSONObject) parent).put(this.keys.peek(), value);
+            else ((JSONArray) parent).add(value);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.rylinaux.plugman.util;
+
+import com.rylinaux.plugman.PlugMan;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Resource IDs that were found by searching for a plugin's exact name.
+ * <p>
+ * They are stored in learnedmappings.yml, in the same format as resourcemaps.yml, and used before any search is
+ * made. Entries can be reviewed and moved to resourcemaps.yml with {@code /plugman mappings}.
+ */
+public class LearnedMappings {
+
+    /**
+     * The file the mappings are stored in.
+     */
+    private final File file;
+
+    /**
+     * The mappings by plugin name, ignoring case.
+     */
+    private final Map<String, Mapping> mappings = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Construct the store and load the mappings.
+     *
+     * @param file the file the mappings are stored in
+     */
+    public LearnedMappings(File file) {
+        this.file = file;
+
+        ConfigurationSection resources = YamlConfiguration.loadConfiguration(file).getConfigurationSection("Resources");
+        if (resources == null) return;
+
+        for (String name : resources.getKeys(false))
+            this.mappings.put(name, new Mapping(name, resources.getLong(name + ".ID"), resources.getBoolean(name + ".spigotmc"), resources.getLong(name + ".learned")));
+    }
+
+    /**
+     * Get the learned mapping of a plugin.
+     *
+     * @param name the plugin name
+     * @return the mapping, or null if none was learned
+     */
+    public synchronized Mapping get(String name) {
+        return this.mappings.get(name);
+    }
+
+    /**
+     * Get all learned mappings.
+     *
+     * @return a copy of the mappings, sorted by name
+     */
+    public synchronized List<Mapping> getAll() {
+        return new ArrayList<>(this.mappings.values());
+    }
+
+    /**
+     * Remembers the resource of a plugin, found by an exact name match.
+     *
+     * @param name     the plugin name
+     * @param id       the resource id
+     * @param spigotmc whether the resource is on SpigotMC, otherwise it is on CurseForge
+     */
+    public synchronized void learn(String name, long id, boolean spigotmc) {
+        Mapping previous = this.mappings.get(name);
+        if (previous != null && previous.id == id && previous.spigotmc == spigotmc) return;
+
+        this.mappings.put(name, new Mapping(name, id, spigotmc, System.currentTimeMillis()));
+        this.save();
+    }
+
+    /**
+     * Forgets the mapping of a plugin.
+     *
+     * @param name the plugin name
+     * @return whether there was a mapping
+     */
+    public synchronized boolean forget(String name) {
+        if (this.mappings.remove(name) == null) return false;
+
+        this.save();
+        return true;
+    }
+
+    /**
+     * Moves mappings to resourcemaps.yml, where they are used by every future lookup.
+     *
+     * @param names the plugin names
+     * @return the mappings that were moved
+     */
+    public synchronized List<Mapping> promote(Collection<String> names) {
+        List<Mapping> promoted = new ArrayList<>();
+        for (String name : names) {
+            Mapping mapping = this.mappings.remove(name);
+            if (mapping != null) promoted.add(mapping);
+        }
+
+        if (promoted.isEmpty()) return promoted;
+
+        File resourceMapFile = new File(PlugMan.getInstance().getDataFolder(), "resourcemaps.yml");
+        FileConfiguration resourceMap = YamlConfiguration.loadConfiguration(resourceMapFile);
+
+        for (Mapping mapping : promoted) {
+            resourceMap.set("Resources." + mapping.name + ".ID", mapping.id);
+            resourceMap.set("Resources." + mapping.name + ".spigotmc", mapping.spigotmc);
+            PlugMan.getInstance().getResourceMap().put(mapping.name.toLowerCase(Locale.ROOT), mapping.toEntry());
+        }
+
+        try {
+            resourceMap.save(resourceMapFile);
+        } catch (IOException e) {
+            PlugMan.getInstance().getLogger().severe("Could not save resourcemaps.yml: " + e.getMessage());
+        }
+
+        this.save();
+        return promoted;
+    }
+
+    private void save() {
+        FileConfiguration config = new YamlConfiguration();
+        for (Mapping mapping : this.mappings.values()) {
+            config.set("Resources." + mapping.name + ".ID", mapping.id);
+            config.set("Resources." + mapping.name + ".spigotmc", mapping.spigotmc);
+            config.set("Resources." + mapping.name + ".learned", mapping.learned);
+        }
+
+        try {
+            config.save(this.file);
+        } catch (IOException e) {
+            PlugMan.getInstance().getLogger().warning("Could not save " + this.file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A learned resource of a plugin.
+     */
+    public static final class Mapping {
+        private final String name;
+        private final long id;
+        private final boolean spigotmc;
+        private final long learned;
+
+        private Mapping(String name, long id, boolean spigotmc, long learned) {
+            this.name = name;
+            this.id = id;
+            this.spigotmc = spigotmc;
+            this.learned = learned;
+        }
+
+        /**
+         * Get the plugin name.
+         *
+         * @return the plugin name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Get when the mapping was learned.
+         *
+         * @return the time in milliseconds since the epoch
+         */
+        public long getLearned() {
+            return this.learned;
+        }
+
+        /**
+         * Get the resource id.
+         *
+         * @return the resource id
+         */
+        public long getId() {
+            return this.id;
+        }
+
+        /**
+         * Get whether the resource is on SpigotMC, otherwise it is on CurseForge.
+         *
+         * @return whether the resource is on SpigotMC
+         */
+        public boolean isSpigotMc() {
+            return this.spigotmc;
+        }
+
+        /**
+         * Get the mapping in the format of resourcemaps.yml.
+         *
+         * @return the resource id and whether it is on SpigotMC
+         */
+        public Map.Entry<Long, Boolean> toEntry() {
+            return new AbstractMap.SimpleImmutableEntry<>(this.id, this.spigotmc);
+        }
+    }
+}
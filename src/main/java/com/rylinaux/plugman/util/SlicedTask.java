@@ -0,0 +1,212 @@
+package com.rylinaux.plugman.util;
+
+import com.rylinaux.plugman.PlugMan;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Runs the steps of a bulk operation on the main thread, spread over as many ticks as needed.
+ * <p>
+ * Every tick runs steps until {@code bulk-operations.tick-budget-ms} is used up, at least one step per tick, so a
+ * server with many plugins keeps ticking while all of them are reloaded. Only one operation runs at a time, it reports
+ * its progress to the sender about once a second and can be stopped between two steps with {@code /plugman cancel}.
+ * Steps that restore what earlier steps did, e.g. loading the plugins a reload unloaded, still run once the operation
+ * is cancelled, so cancelling never leaves a plugin unloaded or disabled half-way through.
+ */
+public class SlicedTask extends BukkitRunnable {
+
+    /**
+     * How often progress is reported, in ticks.
+     */
+    private static final int PROGRESS_TICKS = 20;
+
+    /**
+     * The operation that is running, only accessed on the main thread.
+     */
+    private static SlicedTask current = null;
+
+    /**
+     * The name of the operation, shown in progress messages.
+     */
+    private final String name;
+
+    /**
+     * Who started the operation.
+     */
+    private final CommandSender sender;
+
+    /**
+     * Called on the main thread after the last step.
+     */
+    private final Runnable onDone;
+
+    private final List<String> labels = new ArrayList<>();
+    private final List<Runnable> steps = new ArrayList<>();
+
+    /**
+     * Whether a step still runs once the operation is cancelled, by step.
+     */
+    private final List<Boolean> restoring = new ArrayList<>();
+
+    private long budgetNanos;
+    private int index = 0;
+    private int ticks = 0;
+    private long started = 0;
+
+    /**
+     * Who cancelled the operation, null while it was not cancelled.
+     */
+    private CommandSender cancelledBy = null;
+
+    /**
+     * How many steps ran before the operation was cancelled.
+     */
+    private int cancelledAt = 0;
+
+    /**
+     * Construct the operation.
+     *
+     * @param name   the name of the operation, shown in progress messages
+     * @param sender who started the operation
+     * @param onDone called on the main thread after the last step
+     */
+    public SlicedTask(String name, CommandSender sender, Runnable onDone) {
+        this.name = name;
+        this.sender = sender;
+        this.onDone = onDone;
+    }
+
+    /**
+     * Get the operation that is running.
+     *
+     * @return the operation, or null if none is running
+     */
+    public static SlicedTask getCurrent() {
+        return SlicedTask.current;
+    }
+
+    /**
+     * Adds a step.
+     *
+     * @param label what the step acts on, e.g. the plugin name
+     * @param step  the step
+     * @return this operation
+     */
+    public SlicedTask add(String label, Runnable step) {
+        return this.add(label, step, false);
+    }
+
+    /**
+     * Adds a step that restores what earlier steps did and therefore still runs once the operation is cancelled.
+     *
+     * @param label what the step acts on, e.g. the plugin name
+     * @param step  the step, must do nothing if there is nothing to restore
+     * @return this operation
+     */
+    public SlicedTask addRestoring(String label, Runnable step) {
+        return this.add(label, step, true);
+    }
+
+    private SlicedTask add(String label, Runnable step, boolean restoring) {
+        this.labels.add(label);
+        this.steps.add(step);
+        this.restoring.add(restoring);
+        return this;
+    }
+
+    /**
+     * Starts the operation on the next tick, unless another one is running. Must be called on the main thread.
+     *
+     * @return whether the operation was started, otherwise the sender was told why not
+     */
+    public boolean start() {
+        if (SlicedTask.current != null) {
+            this.sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("bulk.busy", SlicedTask.current.name));
+            return false;
+        }
+
+        if (this.steps.isEmpty()) {
+            this.onDone.run();
+            return true;
+        }
+
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, PlugMan.getInstance().getConfig().getLong("bulk-operations.tick-budget-ms", 20)));
+        this.started = System.nanoTime();
+        SlicedTask.current = this;
+        this.runTaskTimer(PlugMan.getInstance(), 1L, 1L);
+        return true;
+    }
+
+    /**
+     * Stops the operation before its next step. The steps that already ran are not undone, but the remaining restoring
+     * steps still run before the operation stops.
+     *
+     * @param sender who cancelled the operation
+     */
+    public void abort(CommandSender sender) {
+        if (this.cancelledBy != null) return;
+
+        this.cancelledBy = sender;
+        this.cancelledAt = this.index;
+
+        if (!this.restoring.subList(this.index, this.steps.size()).contains(true)) {
+            this.stop();
+            this.sendCancelled();
+            return;
+        }
+
+        String message = PlugMan.getInstance().getMessageFormatter().format("bulk.cancelling", this.name);
+        sender.sendMessage(message);
+        if (sender != this.sender) this.sender.sendMessage(message);
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + this.budgetNanos;
+        this.ticks++;
+
+        do {
+            int step = this.index++;
+            if (this.cancelledBy != null && !this.restoring.get(step)) continue;
+
+            try {
+                this.steps.get(step).run();
+            } catch (RuntimeException | LinkageError e) {
+                PlugMan.getInstance().getLogger().log(Level.WARNING, this.name + " failed for " + this.labels.get(step), e);
+            }
+        } while (this.index < this.steps.size() && System.nanoTime() < deadline);
+
+        if (this.index >= this.steps.size() && this.cancelledBy != null) {
+            this.stop();
+            this.sendCancelled();
+            return;
+        }
+
+        if (this.index >= this.steps.size()) {
+            this.stop();
+            PlugMan.getInstance().getLogger().info(this.name + " finished " + this.steps.size() + " steps in " + this.ticks + " ticks, "
+                                                   + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.started) + "ms");
+            this.onDone.run();
+            return;
+        }
+
+        if (this.ticks % SlicedTask.PROGRESS_TICKS == 0)
+            this.sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("bulk.progress", this.name, this.index, this.steps.size(), this.labels.get(this.index)));
+    }
+
+    private void sendCancelled() {
+        String message = PlugMan.getInstance().getMessageFormatter().format("bulk.cancelled", this.name, this.cancelledAt, this.steps.size());
+        this.cancelledBy.sendMessage(message);
+        if (this.cancelledBy != this.sender) this.sender.sendMessage(message);
+    }
+
+    private void stop() {
+        if (SlicedTask.current == this) SlicedTask.current = null;
+        this.cancel();
+    }
+}
@@ -28,11 +28,6 @@ package com.rylinaux.plugman.util;
 
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.pojo.UpdateResult;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClients;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.json.simple.JSONArray;
@@ -40,8 +35,9 @@ import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Utilities for dealing with the SpiGet API.
@@ -61,10 +57,11 @@ public class SpiGetUtil {
      * @return a map of the plugins and the results.
      */
     public static Map<String, UpdateResult> checkUpToDate() {
-        Map<String, UpdateResult> results = new TreeMap<>();
+        List<String> names = new ArrayList<>();
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            results.put(plugin.getName(), checkUpToDate(plugin.getName()));
-        return results;
+            names.add(plugin.getName());
+        return UpdateChecker.fromConfig().checkAll(names, SpiGetUtil::checkUpToDate, (name, result) -> {
+        }).join();
     }
 
     /**
@@ -99,9 +96,9 @@ public class SpiGetUtil {
             return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
         }
 
-        JSONArray versions = SpiGetUtil.getPluginVersions(pluginId);
+        JSONObject latest = SpiGetUtil.getLatestVersion(pluginId);
 
-        if (versions == null || versions.size() == 0) {
+        if (latest == null) {
             Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
             if (plugin == null)
                 if (idSpecified)
@@ -111,8 +108,6 @@ public class SpiGetUtil {
             return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
         }
 
-        JSONObject latest = (JSONObject) versions.get(0);
-
         String currentVersion = PlugMan.getInstance().getPluginUtil().getPluginVersion(pluginName);
         String latestVersion = (String) latest.get("name");
 
@@ -137,15 +132,9 @@ public class SpiGetUtil {
      */
     public static long getPluginId(String name) {
 
-        HttpClient client = HttpClients.createMinimal();
-
-        HttpGet get = new HttpGet(API_BASE_URL + "search/resources/" + name + "?field=name&fields=id%2Cname");
-        get.setHeader("User-Agent", "PlugMan");
-
         try {
 
-            HttpResponse response = client.execute(get);
-            String body = IOUtils.toString(response.getEntity().getContent());
+            String body = HttpUtil.getCachedString(API_BASE_URL + "search/resources/" + name + "?field=name&fields=id%2Cname", HttpCache.Kind.SEARCH);
 
             Object object = JSONValue.parse(body);
 
@@ -163,7 +152,7 @@ public class SpiGetUtil {
             }
 
         } catch (IOException e) {
-            e.printStackTrace();
+            if (!HttpUtil.isNotFound(e)) e.printStackTrace();
         }
 
         return -1;
@@ -178,24 +167,51 @@ public class SpiGetUtil {
      */
     public static JSONArray getPluginVersions(long id) {
 
-        HttpClient client = HttpClients.createMinimal();
+        try {
+
+            String body = HttpUtil.getCachedString(API_BASE_URL + "/resources/" + id + "/versions?sort=-releaseDate", HttpCache.Kind.VERSIONS);
+
+            return (JSONArray) JSONValue.parse(body);
 
-        HttpGet get = new HttpGet(API_BASE_URL + "/resources/" + id + "/versions?sort=-releaseDate");
-        get.setHeader("User-Agent", "PlugMan");
+        } catch (IOException e) {
+            if (!HttpUtil.isNotFound(e)) e.printStackTrace();
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Get the latest version of a given plugin, only the newest version is requested.
+     *
+     * @param id the plugin id.
+     * @return the JSON encoded version, or null if there is none.
+     */
+    public static JSONObject getLatestVersion(long id) {
 
         try {
 
-            HttpResponse response = client.execute(get);
-            String body = IOUtils.toString(response.getEntity().getContent());
+            String body = HttpUtil.getCachedString(API_BASE_URL + "resources/" + id + "/versions?size=1&sort=-releaseDate&fields=name", HttpCache.Kind.VERSIONS);
 
-            return (JSONArray) JSONValue.parse(body);
+            Object latest = JsonStreamUtil.getFirstElement(body);
+            return latest instanceof JSONObject ? (JSONObject) latest : null;
 
         } catch (IOException e) {
-            e.printStackTrace();
+            if (!HttpUtil.isNotFound(e)) e.printStackTrace();
         }
 
         return null;
 
     }
 
+    /**
+     * Get the download URL of the latest version of a given plugin, SpiGet redirects to external downloads.
+     *
+     * @param id the plugin id.
+     * @return the download URL.
+     */
+    public static String getDownloadURL(long id) {
+        return API_BASE_URL + "resources/" + id + "/download";
+    }
+
 }
@@ -0,0 +1,126 @@
+package com.rylinaux.plugman.util;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.UpdateResult;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Checks plugins for updates in parallel.
+ * <p>
+ * At most {@code update-check.concurrency} plugins are checked at once and a plugin is reported as unknown if its
+ * check takes longer than {@code update-check.timeout-seconds} once it started. Requests are limited by {@link HttpUtil}.
+ */
+public class UpdateChecker {
+
+    /**
+     * How many plugins are checked at once.
+     */
+    private final int concurrency;
+
+    /**
+     * How long a single plugin may take, in milliseconds.
+     */
+    private final long timeoutMillis;
+
+    /**
+     * Construct the checker.
+     *
+     * @param concurrency   how many plugins are checked at once
+     * @param timeoutMillis how long a single plugin may take, in milliseconds
+     */
+    public UpdateChecker(int concurrency, long timeoutMillis) {
+        this.concurrency = Math.max(1, concurrency);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Construct a checker with the settings from the config.
+     *
+     * @return the checker
+     */
+    public static UpdateChecker fromConfig() {
+        FileConfiguration config = PlugMan.getInstance().getConfig();
+        return new UpdateChecker(config.getInt("update-check.concurrency", 8), TimeUnit.SECONDS.toMillis(config.getLong("update-check.timeout-seconds", 30)));
+    }
+
+    /**
+     * Checks plugins for updates.
+     *
+     * @param pluginNames the names of the plugins
+     * @param listener    called with every result as soon as it is known, from the checking thread
+     * @return the results by plugin name, sorted by name
+     */
+    public CompletableFuture<Map<String, UpdateResult>> checkAll(Collection<String> pluginNames, BiConsumer<String, UpdateResult> listener) {
+        return this.checkAll(pluginNames, UpdateUtil::checkUpToDate, listener);
+    }
+
+    /**
+     * Checks plugins for updates with a specific check.
+     *
+     * @param pluginNames the names of the plugins
+     * @param check       checks a single plugin, blocking
+     * @param listener    called with every result as soon as it is known, from the checking thread
+     * @return the results by plugin name, sorted by name
+     */
+    public CompletableFuture<Map<String, UpdateResult>> checkAll(Collection<String> pluginNames, Function<String, UpdateResult> check, BiConsumer<String, UpdateResult> listener) {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.concurrency, Math.max(1, pluginNames.size())), runnable -> {
+            Thread thread = new Thread(runnable, "PlugManX Update Check #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PlugManX Update Check Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, UpdateResult> results = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        for (String name : pluginNames) {
+            CompletableFuture<UpdateResult> future = new CompletableFuture<>();
+            executor.execute(() -> {
+                // The time only starts once the check does, plugins waiting for a free thread cannot time out. A check
+                // that timed out keeps its thread until the timeouts of the HTTP client end it.
+                ScheduledFuture<?> timeout = timer.schedule(() -> {
+                    if (future.complete(UpdateChecker.unknown(name)))
+                        PlugMan.getInstance().getLogger().warning("Update check of " + name + " timed out after " + this.timeoutMillis + "ms");
+                }, this.timeoutMillis, TimeUnit.MILLISECONDS);
+
+                try {
+                    future.complete(check.apply(name));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    timeout.cancel(false);
+                }
+            });
+
+            futures.add(future.exceptionally(throwable -> {
+                PlugMan.getInstance().getLogger().log(Level.WARNING, "Could not check " + name + " for updates", throwable);
+                return UpdateChecker.unknown(name);
+            }).thenAccept(result -> {
+                results.put(name, result);
+                listener.accept(name, result);
+            }));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((ignored, throwable) -> {
+            executor.shutdownNow();
+            timer.shutdownNow();
+            return new TreeMap<>(results);
+        });
+    }
+
+    private static UpdateResult unknown(String pluginName) {
+        return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, PlugMan.getInstance().getPluginUtil().getPluginVersion(pluginName));
+    }
+}
@@ -7,8 +7,6 @@ import org.bukkit.plugin.Plugin;
 import org.json.simple.JSONArray;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class UpdateUtil {
     /**
@@ -17,47 +15,22 @@ public class UpdateUtil {
      * @return a map of the plugins and the results.
      */
     public static Map<String, UpdateResult> checkUpToDate() {
-        Map<String, UpdateResult> results = new TreeMap<>();
+        List<String> names = new ArrayList<>();
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
-            results.put(plugin.getName(), checkUpToDate(plugin.getName()));
-        return results;
+            names.add(plugin.getName());
+        return UpdateChecker.fromConfig().checkAll(names, UpdateUtil::checkUpToDate, (name, result) -> {
+        }).join();
     }
 
     /**
-     * Check if the installed plugin version is up-to-date (checks GeyserMC, Spigot, and CurseForge).
+     * Check if the installed plugin version is up-to-date, asking the registered update sources in order.
      *
      * @param pluginName the plugin name.
      * @return the reflective UpdateResult.
+     * @see com.rylinaux.plugman.update.UpdateSources
      */
     public static UpdateResult checkUpToDate(String pluginName) {
-        // Check if it's a GeyserMC plugin first
-        if (pluginName.equalsIgnoreCase("Geyser-Spigot") || 
-            pluginName.equalsIgnoreCase("Geyser") || 
-            pluginName.equalsIgnoreCase("floodgate")) {
-            return GeyserMCUtil.checkUpToDate(pluginName);
-        }
-        
-        if (PlugMan.getInstance().getResourceMap().containsKey(pluginName.toLowerCase(Locale.ROOT))) {
-            Map.Entry<Long, Boolean> entry = PlugMan.getInstance().getResourceMap().get(pluginName.toLowerCase(Locale.ROOT));
-
-            if (entry.getValue())
-                return SpiGetUtil.checkUpToDate(pluginName, entry.getKey());
-            else
-                return CurseForgeUtil.checkUpToDate(pluginName, entry.getKey());
-        }
-
-        long id = SpiGetUtil.getPluginId(pluginName);
-        if (id < 0) {
-            id = CurseForgeUtil.getPluginId(pluginName);
-            if (id < 0) {
-                Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
-                if (plugin == null)
-                    return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, pluginName);
-                return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
-            }
-            return CurseForgeUtil.checkUpToDate(pluginName);
-        }
-        return SpiGetUtil.checkUpToDate(pluginName);
+        return PlugMan.getInstance().getUpdateSources().check(pluginName);
     }
 
     /**
@@ -67,22 +40,38 @@ public class UpdateUtil {
      * @return the id of the plugin.
      */
     public static long getPluginId(String name) {
-        if (PlugMan.getInstance().getResourceMap().containsKey(name.toLowerCase(Locale.ROOT))) {
-            Map.Entry<Long, Boolean> entry = PlugMan.getInstance().getResourceMap().get(name.toLowerCase(Locale.ROOT));
+        Map.Entry<Long, Boolean> entry = UpdateUtil.getMapping(name);
+        if (entry != null)
+            return entry.getKey();
 
-            if (entry.getValue())
-                return SpiGetUtil.getPluginId(name);
-            else
-                return CurseForgeUtil.getPluginId(name);
+        long id = SpiGetUtil.getPluginId(name);
+        if (id >= 0) {
+            PlugMan.getInstance().getLearnedMappings().learn(name, id, true);
+            return id;
         }
 
-        long id = SpiGetUtil.getPluginId(name);
-        if (id < 0)
-            id = CurseForgeUtil.getPluginId(name);
+        id = CurseForgeUtil.getPluginId(name);
+        if (id >= 0)
+            PlugMan.getInstance().getLearnedMappings().learn(name, id, false);
         return id;
 
     }
 
+    /**
+     * Get the resource of a plugin from resourcemaps.yml or the learned mappings, without searching.
+     *
+     * @param name the name of the plugin.
+     * @return the id and whether it is a SpigotMC resource, or null if it is not known.
+     */
+    public static Map.Entry<Long, Boolean> getMapping(String name) {
+        Map.Entry<Long, Boolean> entry = PlugMan.getInstance().getResourceMap().get(name.toLowerCase(Locale.ROOT));
+        if (entry != null)
+            return entry;
+
+        LearnedMappings.Mapping mapping = PlugMan.getInstance().getLearnedMappings().get(name);
+        return mapping == null ? null : mapping.toEntry();
+    }
+
     /**
      * Get the versions for a given plugin.
      *
@@ -90,7 +79,11 @@ public class UpdateUtil {
      * @return the JSON encoded data.
      */
     public static JSONArray getPluginVersions(long id) {
-        for (Map.Entry<Long, Boolean> entry : PlugMan.getInstance().getResourceMap().values())
+        List<Map.Entry<Long, Boolean>> mappings = new ArrayList<>(PlugMan.getInstance().getResourceMap().values());
+        for (LearnedMappings.Mapping mapping : PlugMan.getInstance().getLearnedMappings().getAll())
+            mappings.add(mapping.toEntry());
+
+        for (Map.Entry<Long, Boolean> entry : mappings)
             if (entry.getKey() == id)
                 if (entry.getValue())
                     return SpiGetUtil.getPluginVersions(id);
@@ -103,47 +96,16 @@ public class UpdateUtil {
         return jsonArray;
     }
 
-    private static final Pattern VERSION_FAMILY_NUMBERS_PATTERN = Pattern.compile("\\d+(\\.\\d+)*");
-
+    /**
+     * Check if the current version is at least the latest version, see {@link Version} for how versions are ordered.
+     *
+     * @param current the installed version.
+     * @param latest  the latest version.
+     * @return whether the installed version is up-to-date.
+     */
     protected static Boolean isActualVersion(String current, String latest) {
         if (current.equalsIgnoreCase(latest)) return true; // Strings are fully equals
 
-        List<List<Integer>> currentNumbers;
-        List<List<Integer>> latestNumbers;
-
-        try {
-            currentNumbers = parseNumbers(VERSION_FAMILY_NUMBERS_PATTERN.matcher(current));
-            latestNumbers = parseNumbers(VERSION_FAMILY_NUMBERS_PATTERN.matcher(latest));
-        } catch (NumberFormatException ex) {
-            return null; // Unable to parse numbers to int
-        }
-
-        for (int familyIndex = 0; familyIndex < CollectionUtil.maxCollectionsSize(currentNumbers, latestNumbers); familyIndex++) {
-            List<Integer> currentFamily = CollectionUtil.getElementOrDefault(currentNumbers, familyIndex, ArrayList::new);
-            List<Integer> latestFamily = CollectionUtil.getElementOrDefault(latestNumbers, familyIndex, ArrayList::new);
-
-            for (int numberIndex = 0; numberIndex < CollectionUtil.maxCollectionsSize(currentFamily, latestFamily); numberIndex++) {
-                int currentValue = CollectionUtil.getElementOrDefault(currentFamily, numberIndex, () -> 0);
-                int latestValue = CollectionUtil.getElementOrDefault(latestFamily, numberIndex, () -> 0);
-
-                if (latestValue > currentValue)
-                    return false;
-                else if (latestValue < currentValue)
-                    return true;
-            }
-        }
-        return true; // Numbers amount equals, numbers values too
-    }
-
-    private static List<List<Integer>> parseNumbers(Matcher matcher) {
-        List<List<Integer>> result = new ArrayList<>();
-        while (matcher.find()) {
-            String familyString = matcher.group();
-            List<Integer> family = new ArrayList<>();
-            for (String number : familyString.split("\\."))
-                family.add(Integer.parseInt(number));
-            result.add(family);
-        }
-        return result;
+        return Version.parse(current).compareTo(Version.parse(latest)) >= 0;
     }
 }
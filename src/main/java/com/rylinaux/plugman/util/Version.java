@@ -0,0 +1,203 @@
+package com.rylinaux.plugman.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A parsed plugin version.
+ * <p>
+ * A version is read as its release numbers, e.g. {@code 1.20.4}, followed by a qualifier. Pre-release words in the
+ * qualifier ({@code dev}/{@code snapshot} &lt; {@code alpha} &lt; {@code beta} &lt; {@code m} &lt; {@code rc}/{@code pre})
+ * order a version before the release, numbers in it (build numbers, the 2 of {@code rc2}) are compared after that.
+ * Everything before the first digit is ignored. Parsed versions are cached, so comparing the same versions again
+ * does not allocate.
+ */
+public final class Version implements Comparable<Version> {
+
+    /**
+     * The rank of a version without pre-release words.
+     */
+    private static final int RELEASE = 5;
+
+    /**
+     * How many parsed versions are kept before the cache is cleared.
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, Version> CACHE = new ConcurrentHashMap<>();
+
+    private static final int[] NO_RELEASE = new int[0];
+    private static final long[] NO_QUALIFIER = new long[0];
+
+    /**
+     * The release numbers.
+     */
+    private final int[] release;
+
+    /**
+     * The lowest pre-release rank found in the qualifier, {@link #RELEASE} if there is none.
+     */
+    private final int rank;
+
+    /**
+     * The numbers in the qualifier.
+     */
+    private final long[] qualifier;
+
+    private Version(int[] release, int rank, long[] qualifier) {
+        this.release = release;
+        this.rank = rank;
+        this.qualifier = qualifier;
+    }
+
+    /**
+     * Parses a version, or gets it from the cache.
+     *
+     * @param text the version
+     * @return the parsed version
+     */
+    public static Version parse(String text) {
+        Version version = Version.CACHE.get(text);
+        if (version != null) return version;
+
+        version = Version.tokenize(text);
+        if (Version.CACHE.size() >= Version.CACHE_SIZE) Version.CACHE.clear();
+        Version.CACHE.put(text, version);
+        return version;
+    }
+
+    private static Version tokenize(String text) {
+        int length = text.length();
+        int index = 0;
+
+        while (index < length && !Version.isDigit(text.charAt(index))) index++;
+
+        int[] release = Version.NO_RELEASE;
+        int releaseCount = 0;
+        while (index < length && Version.isDigit(text.charAt(index))) {
+            long number = 0;
+            while (index < length && Version.isDigit(text.charAt(index)))
+                number = Math.min(Integer.MAX_VALUE, number * 10 + text.charAt(index++) - '0');
+
+            if (releaseCount == release.length) release = Arrays.copyOf(release, Math.max(4, releaseCount * 2));
+            release[releaseCount++] = (int) number;
+
+            // Only a dot followed by a digit continues the release.
+            if (index + 1 < length && text.charAt(index) == '.' && Version.isDigit(text.charAt(index + 1))) index++;
+            else break;
+        }
+
+        int rank = Version.RELEASE;
+        long[] qualifier = Version.NO_QUALIFIER;
+        int qualifierCount = 0;
+        while (index < length) {
+            char c = text.charAt(index);
+
+            if (Version.isDigit(c)) {
+                long number = 0;
+                // Stops growing once it is that large, so it cannot overflow.
+                for (; index < length && Version.isDigit(text.charAt(index)); index++)
+                    if (number < Long.MAX_VALUE / 10) number = number * 10 + text.charAt(index) - '0';
+
+                if (qualifierCount == qualifier.length) qualifier = Arrays.copyOf(qualifier, Math.max(4, qualifierCount * 2));
+                qualifier[qualifierCount++] = number;
+            } else if (Character.isLetter(c)) {
+                int start = index;
+                while (index < length && Character.isLetter(text.charAt(index))) index++;
+                rank = Math.min(rank, Version.getRank(text, start, index));
+            } else index++;
+        }
+
+        return new Version(releaseCount == release.length ? release : Arrays.copyOf(release, releaseCount), rank,
+                           qualifierCount == qualifier.length ? qualifier : Arrays.copyOf(qualifier, qualifierCount));
+    }
+
+    private static int getRank(String text, int start, int end) {
+        switch (text.substring(start, end).toLowerCase(Locale.ROOT)) {
+            case "dev":
+            case "snapshot":
+            case "nightly":
+                return 0;
+            case "alpha":
+                return 1;
+            case "beta":
+                return 2;
+            case "m":
+            case "milestone":
+                return 3;
+            case "rc":
+            case "pre":
+            case "preview":
+                return 4;
+            default:
+                return Version.RELEASE;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Whether the qualifier marks this version as a pre-release.
+     *
+     * @return whether this is a pre-release
+     */
+    public boolean isPreRelease() {
+        return this.rank < Version.RELEASE;
+    }
+
+    /**
+     * Compares only the release numbers, ignoring the qualifier.
+     *
+     * @param other the other version
+     * @return negative, zero or positive if this release is older, the same or newer
+     */
+    public int compareRelease(Version other) {
+        int length = Math.max(this.release.length, other.release.length);
+        for (int i = 0; i < length; i++) {
+            int compared = Integer.compare(i < this.release.length ? this.release[i] : 0, i < other.release.length ? other.release[i] : 0);
+            if (compared != 0) return compared;
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the versions, first by release, then pre-releases before releases, then by the qualifier numbers.
+     *
+     * @param other the other version
+     * @return negative, zero or positive if this version is older, the same or newer
+     */
+    @Override
+    public int compareTo(Version other) {
+        int compared = this.compareRelease(other);
+        if (compared != 0) return compared;
+
+        compared = Integer.compare(this.rank, other.rank);
+        if (compared != 0) return compared;
+
+        int length = Math.max(this.qualifier.length, other.qualifier.length);
+        for (int i = 0; i < length; i++) {
+            compared = Long.compare(i < this.qualifier.length ? this.qualifier[i] : 0, i < other.qualifier.length ? other.qualifier[i] : 0);
+            if (compared != 0) return compared;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Version && this.compareTo((Version) object) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int length = this.release.length;
+        while (length > 0 && this.release[length - 1] == 0) length--;
+
+        int hash = this.rank;
+        for (int i = 0; i < length; i++) hash = hash * 31 + this.release[i];
+        return hash;
+    }
+}
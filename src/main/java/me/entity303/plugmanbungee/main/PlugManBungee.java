@@ -1,7 +1,9 @@
 package me.entity303.plugmanbungee.main;
 
+import com.rylinaux.plugman.util.ClassLoaderRelease;
 import me.entity303.plugmanbungee.commands.PlugManBungeeCommand;
 import me.entity303.plugmanbungee.commands.PluginsCommand;
+import me.entity303.plugmanbungee.util.BungeeInternals;
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.api.plugin.Plugin;
@@ -9,19 +11,33 @@ import net.md_5.bungee.api.plugin.Plugin;
 public final class PlugManBungee extends Plugin implements Listener {
     private static PlugManBungee instance;
 
+    /**
+     * Releases the class loaders of unloaded plugins, BungeeCord has no config so the defaults are used.
+     */
+    private ClassLoaderRelease classLoaderRelease;
+
     @Override
     public void onEnable() {
         instance = this;
 
+        this.classLoaderRelease = new ClassLoaderRelease(this.getLogger(), ClassLoaderRelease.Strategy.parse(System.getProperty("plugman.release-strategy"), ClassLoaderRelease.Strategy.DEFERRED), 2000);
+
+        BungeeInternals.get().logReport(this.getLogger());
+
         ProxyServer.getInstance().getPluginManager().registerCommand(this, new PluginsCommand());
         ProxyServer.getInstance().getPluginManager().registerCommand(this, new PlugManBungeeCommand());
     }
 
     @Override
     public void onDisable() {
+        if (this.classLoaderRelease != null) this.classLoaderRelease.shutdown();
     }
 
     public static PlugManBungee getInstance() {
         return instance;
     }
+
+    public ClassLoaderRelease getClassLoaderRelease() {
+        return this.classLoaderRelease;
+    }
 }
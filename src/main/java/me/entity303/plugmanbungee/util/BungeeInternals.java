@@ -0,0 +1,193 @@
+package me.entity303.plugmanbungee.util;
+
+import net.md_5.bungee.api.plugin.PluginDescription;
+import net.md_5.bungee.api.plugin.PluginManager;
+import org.yaml.snakeyaml.Yaml;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Cached accessors for the proxy internals needed to load and unload plugins.
+ * <p>
+ * Everything is resolved once, the first time the registry is used, so loading and unloading plugins does not do
+ * any reflective lookups.
+ */
+public final class BungeeInternals {
+
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static BungeeInternals instance = null;
+
+    /**
+     * The fields that could not be resolved and why.
+     */
+    private final Map<String, String> problems = new LinkedHashMap<>();
+
+    private final MethodHandle plugins;
+    private final MethodHandle yaml;
+    private final MethodHandle toLoad;
+    private final MethodHandle setToLoad;
+
+    private final Class<?> pluginClassLoader;
+    private final MethodHandle setClassLoaderPlugin;
+    private final MethodHandle setClassLoaderDescription;
+    private final MethodHandle allLoaders;
+
+    private BungeeInternals() {
+        this.plugins = this.getter(PluginManager.class, "plugins");
+        this.yaml = this.getter(PluginManager.class, "yaml");
+        this.toLoad = this.getter(PluginManager.class, "toLoad");
+        this.setToLoad = this.setter(PluginManager.class, "toLoad");
+
+        Class<?> pluginClassLoader;
+        try {
+            pluginClassLoader = Class.forName("net.md_5.bungee.api.plugin.PluginClassloader");
+        } catch (ClassNotFoundException e) {
+            this.problems.put("PluginClassloader", e.toString());
+            pluginClassLoader = null;
+        }
+        this.pluginClassLoader = pluginClassLoader;
+
+        this.setClassLoaderPlugin = this.setter(pluginClassLoader, "plugin");
+        this.setClassLoaderDescription = this.setter(pluginClassLoader, "desc");
+        this.allLoaders = this.getter(pluginClassLoader, "allLoaders");
+    }
+
+    /**
+     * Get the registry, resolving it on first use.
+     *
+     * @return the registry
+     */
+    public static synchronized BungeeInternals get() {
+        if (BungeeInternals.instance == null) BungeeInternals.instance = new BungeeInternals();
+        return BungeeInternals.instance;
+    }
+
+    /**
+     * Logs which internals could not be resolved.
+     *
+     * @param logger the logger
+     */
+    public void logReport(Logger logger) {
+        if (this.problems.isEmpty()) {
+            logger.info("Resolved all proxy internals");
+            return;
+        }
+
+        for (Map.Entry<String, String> entry : this.problems.entrySet())
+            logger.severe("Missing " + entry.getKey() + " (" + entry.getValue() + ")");
+        logger.severe("This proxy is not fully supported, loading and unloading plugins will not work!");
+    }
+
+    /**
+     * Get the plugins of the plugin manager by name.
+     *
+     * @param pluginManager the plugin manager
+     * @return the live map
+     */
+    public Map<String, net.md_5.bungee.api.plugin.Plugin> getPlugins(PluginManager pluginManager) {
+        return (Map<String, net.md_5.bungee.api.plugin.Plugin>) BungeeInternals.get(this.plugins, "plugins", pluginManager);
+    }
+
+    /**
+     * Get the yaml instance descriptions are parsed with.
+     *
+     * @param pluginManager the plugin manager
+     * @return the yaml instance
+     */
+    public Yaml getYaml(PluginManager pluginManager) {
+        return (Yaml) BungeeInternals.get(this.yaml, "yaml", pluginManager);
+    }
+
+    /**
+     * Get the descriptions of the plugins waiting to be loaded.
+     *
+     * @param pluginManager the plugin manager
+     * @return the live map, may be null after startup
+     */
+    public HashMap<String, PluginDescription> getToLoad(PluginManager pluginManager) {
+        return (HashMap<String, PluginDescription>) BungeeInternals.get(this.toLoad, "toLoad", pluginManager);
+    }
+
+    /**
+     * Replaces the descriptions of the plugins waiting to be loaded.
+     *
+     * @param pluginManager the plugin manager
+     * @param toLoad        the new descriptions
+     */
+    public void setToLoad(PluginManager pluginManager, HashMap<String, PluginDescription> toLoad) {
+        BungeeInternals.set(this.setToLoad, "toLoad", pluginManager, toLoad);
+    }
+
+    /**
+     * Drops the references a plugin class loader holds to its plugin and unregisters it.
+     *
+     * @param classLoader the class loader
+     */
+    public void clearClassLoader(ClassLoader classLoader) {
+        if (this.pluginClassLoader == null || !this.pluginClassLoader.isInstance(classLoader)) return;
+
+        BungeeInternals.set(this.setClassLoaderPlugin, "plugin", classLoader, null);
+        BungeeInternals.set(this.setClassLoaderDescription, "desc", classLoader, null);
+        ((Set<?>) BungeeInternals.get(this.allLoaders, "allLoaders", classLoader)).remove(classLoader);
+    }
+
+    private MethodHandle getter(Class<?> owner, String name) {
+        try {
+            Field field = BungeeInternals.findField(owner, name);
+            MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return handle.asType(BungeeInternals.GETTER);
+        } catch (Exception e) {
+            this.problems.put(name, e.toString());
+            return null;
+        }
+    }
+
+    private MethodHandle setter(Class<?> owner, String name) {
+        try {
+            Field field = BungeeInternals.findField(owner, name);
+            MethodHandle handle = MethodHandles.lookup().unreflectSetter(field);
+            if (Modifier.isStatic(field.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return handle.asType(BungeeInternals.SETTER);
+        } catch (Exception e) {
+            this.problems.put(name + " (write)", e.toString());
+            return null;
+        }
+    }
+
+    private static Field findField(Class<?> owner, String name) throws ReflectiveOperationException {
+        if (owner == null) throw new ClassNotFoundException("Owner of " + name + " not found");
+
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    private static Object get(MethodHandle handle, String name, Object target) {
+        if (handle == null) throw new IllegalStateException("Could not find field '" + name + "'");
+
+        try {
+            return (Object) handle.invokeExact(target);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not get field '" + name + "'", throwable);
+        }
+    }
+
+    private static void set(MethodHandle handle, String name, Object target, Object value) {
+        if (handle == null) throw new IllegalStateException("Could not find field '" + name + "'");
+
+        try {
+            handle.invokeExact(target, value);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException("Could not set field '" + name + "'", throwable);
+        }
+    }
+}
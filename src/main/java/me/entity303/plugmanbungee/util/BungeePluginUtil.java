@@ -10,11 +10,9 @@ import org.yaml.snakeyaml.Yaml;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
 import java.net.URLClassLoader;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Handler;
@@ -69,22 +67,13 @@ public class BungeePluginUtil {
 
         plugin.getExecutorService().shutdownNow();
 
-        Field pluginsField = null;
-        try {
-            pluginsField = PluginManager.class.getDeclaredField("plugins");
-            pluginsField.setAccessible(true);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-            return new PluginResult("§cError while trying to unload plugin: §4Could not load field 'plugins'§c, see console for more info!", false);
-        }
-
         Map<String, Plugin> plugins;
 
         try {
-            plugins = (Map<String, Plugin>) pluginsField.get(pluginManager);
-        } catch (IllegalAccessException e) {
+            plugins = BungeeInternals.get().getPlugins(pluginManager);
+        } catch (IllegalStateException e) {
             e.printStackTrace();
-            return new PluginResult("§cError while trying to unload plugin: §4Could not get field 'plugins'§c, see console for more info!", false);
+            return new PluginResult("§cError while trying to unload plugin: §4" + e.getMessage() + "§c, see console for more info!", false);
         }
 
         plugins.remove(plugin.getDescription().getName());
@@ -94,21 +83,8 @@ public class BungeePluginUtil {
         if (cl instanceof URLClassLoader) {
 
             try {
-
-                Field pluginField = cl.getClass().getDeclaredField("plugin");
-                pluginField.setAccessible(true);
-                pluginField.set(cl, null);
-
-                Field pluginInitField = cl.getClass().getDeclaredField("desc");
-                pluginInitField.setAccessible(true);
-                pluginInitField.set(cl, null);
-
-                Field allLoadersField = cl.getClass().getDeclaredField("allLoaders");
-                allLoadersField.setAccessible(true);
-                Set allLoaders = (Set) allLoadersField.get(cl);
-                allLoaders.remove(cl);
-
-            } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException ex) {
+                BungeeInternals.get().clearClassLoader(cl);
+            } catch (IllegalStateException ex) {
                 PlugManBungee.getInstance().getLogger().log(Level.SEVERE, null, ex);
 
                 return new PluginResult("§cError while trying to unload plugin: §4Could not unload ClassLoader§c, see console for more info!", false);
@@ -124,9 +100,8 @@ public class BungeePluginUtil {
 
         }
 
-        // Will not work on processes started with the -XX:+DisableExplicitGC flag, but lets try it anyway.
-        // This tries to get around the issue where Windows refuses to unlock jar files that were previously loaded into the JVM.
-        System.gc();
+        PlugManBungee.getInstance().getClassLoaderRelease().release(plugin.getDescription().getName(), cl);
+
         if (exception) {
             return new PluginResult("§cAn unknown error occured while unloading, see console for more info!", false);
         } else {
@@ -137,38 +112,16 @@ public class BungeePluginUtil {
     public static PluginResult loadPlugin(File file) {
         PluginManager pluginManager = ProxyServer.getInstance().getPluginManager();
 
-        Field yamlField = null;
-        try {
-            yamlField = PluginManager.class.getDeclaredField("yaml");
-            yamlField.setAccessible(true);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-            return new PluginResult("§cError while trying to load plugin: §4Could not load field 'yaml'§c, see console for more info!", false);
-        }
-
-        Yaml yaml = null;
-        try {
-            yaml = (Yaml) yamlField.get(pluginManager);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-            return new PluginResult("§cError while trying to load plugin: §4Could not get field 'yaml'§c, see console for more info!", false);
-        }
-
-        Field toLoadField = null;
-        try {
-            toLoadField = PluginManager.class.getDeclaredField("toLoad");
-            toLoadField.setAccessible(true);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-            return new PluginResult("§cError while trying to load plugin: §4Could not load field 'toLoad'§c, see console for more info!", false);
-        }
+        BungeeInternals internals = BungeeInternals.get();
 
-        HashMap<String, PluginDescription> toLoad = null;
+        Yaml yaml;
+        HashMap<String, PluginDescription> toLoad;
         try {
-            toLoad = (HashMap<String, PluginDescription>) toLoadField.get(pluginManager);
-        } catch (IllegalAccessException e) {
+            yaml = internals.getYaml(pluginManager);
+            toLoad = internals.getToLoad(pluginManager);
+        } catch (IllegalStateException e) {
             e.printStackTrace();
-            return new PluginResult("§cError while trying to load plugin: §4Could not get field 'toLoad'§c, see console for more info!", false);
+            return new PluginResult("§cError while trying to load plugin: §4" + e.getMessage() + "§c, see console for more info!", false);
         }
 
         if (toLoad == null) {
@@ -210,7 +163,7 @@ public class BungeePluginUtil {
                     toLoad.put(desc.getName(), desc);
                 }
 
-                toLoadField.set(pluginManager, toLoad);
+                internals.setToLoad(pluginManager, toLoad);
 
                 pluginManager.loadPlugins();
 
@@ -0,0 +1,146 @@
+package com.rylinaux.plugman;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A local stand-in for the update sites, serving fixed bodies with an ETag and support for {@code Range}/{@code If-Range}.
+ */
+public class HttpFixture implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * The {@code Range} and {@code If-Range} headers of every request, "-" if a header was missing.
+     */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * Start the fixture on a free local port.
+     *
+     * @throws IOException if the server could not be started
+     */
+    public HttpFixture() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Serves a body under a path.
+     *
+     * @param path the path, starting with a slash
+     * @param body the body
+     * @param etag the strong ETag, including the quotes
+     */
+    public void serve(String path, byte[] body, String etag) {
+        this.resources.put(path, new Resource(body, etag));
+    }
+
+    /**
+     * Serves a UTF-8 string under a path.
+     *
+     * @param path the path, starting with a slash
+     * @param body the body
+     */
+    public void serve(String path, String body) {
+        this.serve(path, body.getBytes(StandardCharsets.UTF_8), "\"" + body.hashCode() + "\"");
+    }
+
+    /**
+     * Closes the connection of the next response to a path after a number of bytes of the body.
+     *
+     * @param path  the path
+     * @param bytes how many bytes are sent
+     */
+    public void cutOff(String path, int bytes) {
+        this.resources.get(path).cutOff = bytes;
+    }
+
+    /**
+     * Get the URL of a path.
+     *
+     * @param path the path, starting with a slash
+     * @return the URL
+     */
+    public String url(String path) {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Get the {@code Range} and {@code If-Range} headers of every request so far.
+     *
+     * @return "range if-range" per request, "-" if a header was missing
+     */
+    public List<String> getRequests() {
+        return this.requests;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        this.requests.add((range == null ? "-" : range) + " " + (ifRange == null ? "-" : ifRange));
+
+        Resource resource = this.resources.get(exchange.getRequestURI().getPath());
+        if (resource == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = resource.body;
+        exchange.getResponseHeaders().add("ETag", resource.etag);
+
+        int start = 0;
+        if (range != null && range.startsWith("bytes=") && range.endsWith("-") && (ifRange == null || ifRange.equals(resource.etag))) {
+            start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+            if (start >= body.length) {
+                exchange.getResponseHeaders().add("Content-Range", "bytes */" + body.length);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + (body.length - 1) + "/" + body.length);
+            exchange.sendResponseHeaders(206, body.length - start);
+        } else {
+            exchange.sendResponseHeaders(200, body.length);
+        }
+
+        int end = resource.cutOff >= 0 ? Math.min(body.length, resource.cutOff) : body.length;
+        resource.cutOff = -1;
+
+        // Closing the exchange without closing the body first drops the connection, so a short body ends right away.
+        OutputStream out = exchange.getResponseBody();
+        if (end > start) out.write(body, start, end - start);
+        out.flush();
+        exchange.close();
+    }
+
+    private static final class Resource {
+        private final byte[] body;
+        private final String etag;
+        private volatile int cutOff = -1;
+
+        private Resource(byte[] body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+}
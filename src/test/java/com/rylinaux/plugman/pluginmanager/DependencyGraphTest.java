@@ -0,0 +1,127 @@
+package com.rylinaux.plugman.pluginmanager;
+
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class DependencyGraphTest {
+
+    private final Map<String, PluginDescriptionFile> plugins = new LinkedHashMap<>();
+
+    private void plugin(String name, String extra) throws InvalidDescriptionException {
+        String yml = "name: " + name + "\nversion: 1.0\nmain: com.example." + name + "\n" + extra;
+        this.plugins.put(name, new PluginDescriptionFile(new StringReader(yml)));
+    }
+
+    private DependencyGraph<String> graph() {
+        return DependencyGraph.of(this.plugins.keySet(), this.plugins::get);
+    }
+
+    @Test
+    public void keepsTheOriginalOrderWithoutDependencies() throws InvalidDescriptionException {
+        this.plugin("A", "");
+        this.plugin("B", "");
+        this.plugin("C", "");
+
+        assertEquals(Arrays.asList("A", "B", "C"), this.graph().getLoadOrder());
+        assertEquals(Arrays.asList("C", "B", "A"), this.graph().getUnloadOrder());
+    }
+
+    @Test
+    public void loadsDependenciesFirst() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [B]\n");
+        this.plugin("B", "depend: [C]\n");
+        this.plugin("C", "");
+
+        assertEquals(Arrays.asList("C", "B", "A"), this.graph().getLoadOrder());
+        assertEquals(Arrays.asList("A", "B", "C"), this.graph().getUnloadOrder());
+    }
+
+    @Test
+    public void loadsSoftDependenciesFirstAndIgnoresMissingOnes() throws InvalidDescriptionException {
+        this.plugin("A", "softdepend: [Missing, B]\n");
+        this.plugin("B", "depend: [Vault]\n");
+
+        assertEquals(Arrays.asList("B", "A"), this.graph().getLoadOrder());
+    }
+
+    @Test
+    public void loadsPluginsAfterTheOnesThatLoadBeforeThem() throws InvalidDescriptionException {
+        this.plugin("A", "");
+        this.plugin("B", "loadbefore: [A]\n");
+
+        assertEquals(Arrays.asList("B", "A"), this.graph().getLoadOrder());
+    }
+
+    @Test
+    public void resolvesDependenciesByProvidedNames() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [Economy]\n");
+        this.plugin("B", "softdepend: [Permissions]\n");
+        this.plugin("C", "loadbefore: [Chat]\n");
+        this.plugin("D", "provides: [Economy, Permissions, Chat]\n");
+
+        assertEquals(Arrays.asList("C", "D", "A", "B"), this.graph().getLoadOrder());
+    }
+
+    @Test
+    public void prefersRealNamesOverProvidedOnes() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [Lib]\n");
+        this.plugin("B", "depend: [A]\nprovides: [Lib]\n");
+        this.plugin("Lib", "");
+
+        assertEquals(Arrays.asList("Lib", "A", "B"), this.graph().getLoadOrder());
+    }
+
+    @Test
+    public void breaksCyclesInTheOriginalOrder() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [B, C]\n");
+        this.plugin("B", "depend: [A]\n");
+        this.plugin("C", "");
+        this.plugin("D", "depend: [B]\n");
+
+        assertEquals(Arrays.asList("C", "A", "B", "D"), this.graph().getLoadOrder());
+    }
+
+    @Test
+    public void ignoresDependenciesOnItself() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [A]\nloadbefore: [A]\n");
+        this.plugin("B", "");
+
+        assertEquals(Arrays.asList("A", "B"), this.graph().getLoadOrder());
+        assertEquals(Arrays.asList(Arrays.asList("A"), Arrays.asList("B")), this.graph().getComponents());
+    }
+
+    @Test
+    public void splitsIndependentPluginsIntoComponents() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [B]\n");
+        this.plugin("B", "");
+        this.plugin("C", "");
+        this.plugin("D", "loadbefore: [C]\n");
+        this.plugin("E", "softdepend: [Missing]\n");
+        this.plugin("F", "provides: [Service]\n");
+        this.plugin("G", "softdepend: [Service]\n");
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("B", "A"),
+                Arrays.asList("D", "C"),
+                Arrays.asList("E"),
+                Arrays.asList("F", "G")
+        ), this.graph().getComponents());
+    }
+
+    @Test
+    public void keepsCyclesInOneComponent() throws InvalidDescriptionException {
+        this.plugin("A", "depend: [C]\n");
+        this.plugin("B", "");
+        this.plugin("C", "softdepend: [A]\n");
+
+        assertEquals(Arrays.asList(Arrays.asList("A", "C"), Arrays.asList("B")), this.graph().getComponents());
+    }
+}
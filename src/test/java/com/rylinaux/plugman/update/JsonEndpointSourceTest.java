@@ -0,0 +1,101 @@
+package com.rylinaux.plugman.update;
+
+import com.rylinaux.plugman.HttpFixture;
+import com.rylinaux.plugman.util.HttpUtil;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.json.simple.JSONValue;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonEndpointSourceTest {
+
+    private static final String GITHUB_RELEASE = "{\"tag_name\": \"v2.1.0\", \"name\": \"Example 2.1.0\", \"assets\": ["
+                                                 + "{\"name\": \"Example-2.1.0-sources.jar\", \"browser_download_url\": \"https://example.com/sources.jar\"},"
+                                                 + "{\"name\": \"Example-2.1.0.jar\", \"browser_download_url\": \"https://example.com/Example-2.1.0.jar\","
+                                                 + " \"sha256\": \"abc123\"}]}";
+
+    private HttpFixture fixture;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = new HttpFixture();
+        this.fixture.serve("/repos/example/example/releases/latest", JsonEndpointSourceTest.GITHUB_RELEASE);
+    }
+
+    @After
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    @AfterClass
+    public static void closeClient() {
+        HttpUtil.shutdown(Logger.getLogger(JsonEndpointSourceTest.class.getName()));
+    }
+
+    private JsonEndpointSource createSource() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("Example.url", this.fixture.url("/repos/example/example/releases/latest"));
+        config.set("Example.version", "tag_name");
+        config.set("Example.download", "assets.-1.browser_download_url");
+        config.set("Example.sha256", "assets.-1.sha256");
+        return new JsonEndpointSource(config);
+    }
+
+    @Test
+    public void handlesConfiguredPluginsOnly() {
+        JsonEndpointSource source = this.createSource();
+
+        assertTrue(source.handles("Example"));
+        assertTrue(source.handles("example"));
+        assertFalse(source.handles("Other"));
+        assertNull(source.getLatestRelease("Other"));
+    }
+
+    @Test
+    public void readsTheReleaseFromTheEndpoint() {
+        JsonEndpointSource source = this.createSource();
+
+        Release release = source.getLatestRelease("Example");
+
+        assertSame(source, release.getSource());
+        assertEquals("v2.1.0", release.getVersion());
+        assertEquals("https://example.com/Example-2.1.0.jar", release.getDownloadUrl());
+        assertEquals("abc123", release.getSha256());
+        assertEquals(1, this.fixture.getRequests().size());
+    }
+
+    @Test
+    public void comparesTheVersionsOfTheRelease() {
+        JsonEndpointSource source = this.createSource();
+
+        assertTrue(source.isUpToDate("2.1.0", "v2.1.0"));
+        assertTrue(source.isUpToDate("2.2.0-SNAPSHOT", "v2.1.0"));
+        assertFalse(source.isUpToDate("2.1.0-beta", "v2.1.0"));
+        assertFalse(source.isUpToDate("2.0.9", "v2.1.0"));
+    }
+
+    @Test
+    public void resolvesPaths() {
+        Object json = JSONValue.parse(JsonEndpointSourceTest.GITHUB_RELEASE);
+
+        assertEquals("v2.1.0", JsonEndpointSource.resolve(json, "tag_name"));
+        assertEquals("Example-2.1.0-sources.jar", JsonEndpointSource.resolve(json, "assets.0.name"));
+        assertEquals("Example-2.1.0.jar", JsonEndpointSource.resolve(json, "assets.-1.name"));
+        assertNull(JsonEndpointSource.resolve(json, "assets.2.name"));
+        assertNull(JsonEndpointSource.resolve(json, "assets.first.name"));
+        assertNull(JsonEndpointSource.resolve(json, "tag_name.major"));
+        assertNull(JsonEndpointSource.resolve(json, ""));
+        assertNull(JsonEndpointSource.resolve(json, null));
+    }
+}
@@ -0,0 +1,237 @@
+package com.rylinaux.plugman.util;
+
+import com.rylinaux.plugman.HttpFixture;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DownloadUtilTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpFixture fixture;
+    private byte[] body;
+
+    @Before
+    public void setUp() throws IOException {
+        this.fixture = new HttpFixture();
+        this.body = new byte[300 * 1024];
+        new Random(42).nextBytes(this.body);
+        this.fixture.serve("/plugin.jar", this.body, "\"v1\"");
+    }
+
+    @After
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    @AfterClass
+    public static void closeClient() {
+        HttpUtil.shutdown(Logger.getLogger(DownloadUtilTest.class.getName()));
+    }
+
+    private static File writeJar(File file, String pluginYml) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(file.toPath()))) {
+            if (pluginYml != null) {
+                out.putNextEntry(new JarEntry("plugin.yml"));
+                out.write(pluginYml.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+            out.putNextEntry(new JarEntry("com/example/Example.class"));
+            out.write(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    @Test
+    public void downloadsTheWholeFile() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+
+        assertEquals(this.body.length, DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 1));
+        assertArrayEquals(this.body, Files.readAllBytes(file.toPath()));
+        assertFalse(new File(file.getPath() + ".resume").exists());
+    }
+
+    @Test
+    public void resumesWithTheValidatorAfterTheConnectionDropped() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+        this.fixture.cutOff("/plugin.jar", 100 * 1024);
+
+        DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 2);
+
+        assertArrayEquals(this.body, Files.readAllBytes(file.toPath()));
+        assertEquals(Arrays.asList("- -", "bytes=" + 100 * 1024 + "- \"v1\""), this.fixture.getRequests());
+    }
+
+    @Test
+    public void keepsAnInterruptedDownloadForTheNextTry() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+        this.fixture.cutOff("/plugin.jar", 100 * 1024);
+
+        try {
+            DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 1);
+            fail("The download was cut off");
+        } catch (IOException expected) {
+        }
+
+        assertEquals(100 * 1024, file.length());
+        assertTrue(new File(file.getPath() + ".resume").exists());
+
+        DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 1);
+        assertArrayEquals(this.body, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void startsOverIfTheFileChanged() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+        this.fixture.cutOff("/plugin.jar", 100 * 1024);
+
+        try {
+            DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 1);
+            fail("The download was cut off");
+        } catch (IOException expected) {
+        }
+
+        byte[] newer = Arrays.copyOf(this.body, this.body.length + 1024);
+        this.fixture.serve("/plugin.jar", newer, "\"v2\"");
+
+        DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 1);
+        assertArrayEquals(newer, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void dropsAPartialDownloadWithoutValidator() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+        Files.write(file.toPath(), new byte[50 * 1024]);
+
+        DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 1);
+
+        assertArrayEquals(this.body, Files.readAllBytes(file.toPath()));
+        assertEquals(Arrays.asList("- -"), this.fixture.getRequests());
+    }
+
+    @Test
+    public void doesNotTakeAnUnconfirmedRangeErrorAsComplete() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+        Files.write(file.toPath(), new byte[this.body.length + 1]);
+        Files.write(new File(file.getPath() + ".resume").toPath(), "validator=\"v1\"\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        DownloadUtil.download(this.fixture.url("/plugin.jar"), file, null, 2);
+
+        assertArrayEquals(this.body, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void deletesTheFileIfTheChecksumDoesNotMatch() throws IOException {
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+
+        try {
+            DownloadUtil.download(this.fixture.url("/plugin.jar"), file, "00", 1);
+            fail("The checksum did not match");
+        } catch (IOException expected) {
+        }
+
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void keepsTheFileIfTheChecksumMatches() throws IOException {
+        File expected = this.folder.newFile("expected.jar");
+        Files.write(expected.toPath(), this.body);
+        File file = new File(this.folder.getRoot(), "plugin.jar.tmp");
+
+        DownloadUtil.download(this.fixture.url("/plugin.jar"), file, DownloadUtil.sha256(expected.toPath()).toUpperCase(), 1);
+
+        assertArrayEquals(this.body, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void acceptsTheJarOfThePlugin() throws IOException {
+        File jar = DownloadUtilTest.writeJar(this.folder.newFile("Example.jar"), "name: Example\nmain: com.example.Example\nversion: 1.0\n");
+
+        DownloadUtil.verifyPlugin(jar, "Example");
+        DownloadUtil.verifyPlugin(jar, "example");
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesTheJarOfAnotherPlugin() throws IOException {
+        File jar = DownloadUtilTest.writeJar(this.folder.newFile("Other.jar"), "name: Other\nmain: com.example.Other\nversion: 1.0\n");
+
+        DownloadUtil.verifyPlugin(jar, "Example");
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesAJarWithoutPluginYml() throws IOException {
+        File jar = DownloadUtilTest.writeJar(this.folder.newFile("Library.jar"), null);
+
+        DownloadUtil.verifyPlugin(jar, "Example");
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesAnErrorPage() throws IOException {
+        this.fixture.serve("/error.jar", "<html><body>Cloudflare says no</body></html>");
+        File file = new File(this.folder.getRoot(), "error.jar.tmp");
+        DownloadUtil.download(this.fixture.url("/error.jar"), file, null, 1);
+
+        DownloadUtil.verifyPlugin(file, "Example");
+    }
+
+    @Test
+    public void installKeepsTheInstalledJarIfTheDownloadIsNotThePlugin() throws IOException {
+        byte[] installed = "installed".getBytes(StandardCharsets.UTF_8);
+        File target = this.folder.newFile("Example.jar");
+        Files.write(target.toPath(), installed);
+
+        File downloaded = this.folder.newFile("Example-UPDATE.jar.tmp");
+        try (OutputStream out = Files.newOutputStream(downloaded.toPath())) {
+            out.write("<html></html>".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try {
+            DownloadUtil.install(downloaded, target, "Example");
+            fail("The download is no jar");
+        } catch (IOException expected) {
+        }
+
+        assertArrayEquals(installed, Files.readAllBytes(target.toPath()));
+        assertFalse(new File(this.folder.getRoot(), "Example.jar.old").exists());
+    }
+
+    @Test
+    public void installReplacesTheJarAndKeepsABackup() throws IOException {
+        byte[] installed = "installed".getBytes(StandardCharsets.UTF_8);
+        File target = this.folder.newFile("Example.jar");
+        Files.write(target.toPath(), installed);
+
+        File downloaded = DownloadUtilTest.writeJar(this.folder.newFile("Example-UPDATE.jar.tmp"), "name: Example\nmain: com.example.Example\nversion: 2.0\n");
+        byte[] update = Files.readAllBytes(downloaded.toPath());
+
+        File backup = DownloadUtil.install(downloaded, target, "Example");
+
+        assertArrayEquals(update, Files.readAllBytes(target.toPath()));
+        assertArrayEquals(installed, Files.readAllBytes(backup.toPath()));
+        assertFalse(downloaded.exists());
+    }
+}
@@ -0,0 +1,67 @@
+package com.rylinaux.plugman.util;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStreamUtilTest {
+
+    private static final String FILES = "[{\"id\": 1, \"fileName\": \"Example-1.0.jar\", \"gameVersion\": [\"1.19\", \"1.20\"]},"
+                                        + "{\"id\": 2, \"fileName\": \"Example-1.1.jar\", \"dependencies\": {\"required\": []}},"
+                                        + "{\"id\": 3, \"fileName\": \"Example-2.0.jar\", \"gameVersion\": [\"1.20\", [\"nested\"]]}]";
+
+    @Test
+    public void readsTheFirstElement() {
+        JSONObject first = (JSONObject) JsonStreamUtil.getFirstElement(JsonStreamUtilTest.FILES);
+
+        assertEquals(1L, first.get("id"));
+        assertEquals("Example-1.0.jar", first.get("fileName"));
+        assertEquals(2, ((JSONArray) first.get("gameVersion")).size());
+    }
+
+    @Test
+    public void stopsParsingAfterTheFirstElement() {
+        JSONObject first = (JSONObject) JsonStreamUtil.getFirstElement("[{\"name\": \"2.0\"}, this is not JSON");
+
+        assertEquals("2.0", first.get("name"));
+    }
+
+    @Test
+    public void readsTheLastElement() {
+        JSONObject last = (JSONObject) JsonStreamUtil.getLastElement(JsonStreamUtilTest.FILES);
+
+        assertEquals(3L, last.get("id"));
+        assertEquals("Example-2.0.jar", last.get("fileName"));
+        JSONArray gameVersions = (JSONArray) last.get("gameVersion");
+        assertEquals("1.20", gameVersions.get(0));
+        assertTrue(gameVersions.get(1) instanceof JSONArray);
+        assertEquals(3, last.size());
+    }
+
+    @Test
+    public void readsTheLastElementFromAReader() {
+        JSONObject last = (JSONObject) JsonStreamUtil.getLastElement(new StringReader(JsonStreamUtilTest.FILES));
+
+        assertEquals(3L, last.get("id"));
+    }
+
+    @Test
+    public void readsPrimitiveElements() {
+        assertEquals(1L, JsonStreamUtil.getFirstElement("[1, 2, 3]"));
+        assertEquals("c", JsonStreamUtil.getLastElement("[\"a\", \"b\", \"c\"]"));
+    }
+
+    @Test
+    public void returnsNullForEmptyOrBrokenArrays() {
+        assertNull(JsonStreamUtil.getFirstElement("[]"));
+        assertNull(JsonStreamUtil.getLastElement("[]"));
+        assertNull(JsonStreamUtil.getLastElement("[{\"id\": 1}, {\"id\":"));
+        assertNull(JsonStreamUtil.getFirstElement("<html>Too many requests</html>"));
+    }
+}
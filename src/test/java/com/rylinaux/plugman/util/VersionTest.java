@@ -0,0 +1,191 @@
+package com.rylinaux.plugman.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VersionTest {
+
+    private static final String[] QUALIFIERS = {"", "-SNAPSHOT", "-dev", "-alpha", "-alpha.2", "-beta", "-b12", "-M1", "-milestone1",
+                                                "-RC1", "-rc.10", "-pre3", "-release", "-beta-SNAPSHOT", "-build.7", "-99999999999999999999"};
+
+    private static void assertOlder(String older, String newer) {
+        assertTrue(older + " < " + newer, Version.parse(older).compareTo(Version.parse(newer)) < 0);
+        assertTrue(newer + " > " + older, Version.parse(newer).compareTo(Version.parse(older)) > 0);
+    }
+
+    private static void assertSameVersion(String first, String second) {
+        assertEquals(first + " == " + second, 0, Version.parse(first).compareTo(Version.parse(second)));
+        assertEquals(Version.parse(first), Version.parse(second));
+        assertEquals(Version.parse(first).hashCode(), Version.parse(second).hashCode());
+    }
+
+    @Test
+    public void ordersReleasesNumerically() {
+        assertOlder("1.9", "1.10");
+        assertOlder("1.2.3", "1.2.4");
+        assertOlder("1.20.4", "2.0");
+        assertOlder("0.9.99", "1.0");
+    }
+
+    @Test
+    public void treatsMissingReleaseNumbersAsZero() {
+        assertSameVersion("1", "1.0");
+        assertSameVersion("1.0", "1.0.0.0");
+        assertOlder("1.0", "1.0.1");
+    }
+
+    @Test
+    public void ignoresPrefixes() {
+        assertSameVersion("v1.2.3", "1.2.3");
+        assertSameVersion("Version 2.0", "2.0");
+    }
+
+    @Test
+    public void ordersPreReleasesBeforeTheRelease() {
+        assertOlder("1.0-SNAPSHOT", "1.0-alpha");
+        assertOlder("1.0-alpha", "1.0-beta");
+        assertOlder("1.0-beta", "1.0-M1");
+        assertOlder("1.0-M1", "1.0-RC1");
+        assertOlder("1.0-RC1", "1.0");
+        assertOlder("1.0", "1.0.1-SNAPSHOT");
+    }
+
+    @Test
+    public void treatsSynonymsAsTheSameRank() {
+        assertSameVersion("1.0-dev", "1.0-snapshot");
+        assertSameVersion("1.0-nightly", "1.0-SNAPSHOT");
+        assertSameVersion("1.0-m2", "1.0-milestone2");
+        assertSameVersion("1.0-rc3", "1.0-pre3");
+        assertSameVersion("1.0-preview3", "1.0-RC3");
+    }
+
+    @Test
+    public void usesTheLowestRankInTheQualifier() {
+        assertTrue(Version.parse("1.0-beta-SNAPSHOT").isPreRelease());
+        assertSameVersion("1.0-beta-SNAPSHOT", "1.0-SNAPSHOT");
+        assertOlder("1.0-beta-SNAPSHOT", "1.0-beta");
+    }
+
+    @Test
+    public void detectsPreReleases() {
+        assertTrue(Version.parse("2.0-beta").isPreRelease());
+        assertTrue(Version.parse("2.0-rc.1").isPreRelease());
+        assertFalse(Version.parse("2.0").isPreRelease());
+        assertFalse(Version.parse("2.0-b123").isPreRelease());
+        assertFalse(Version.parse("2.0-release").isPreRelease());
+    }
+
+    @Test
+    public void ordersByQualifierNumbers() {
+        assertOlder("1.0-RC1", "1.0-RC2");
+        assertOlder("1.0-RC9", "1.0-RC10");
+        assertOlder("1.0-b99", "1.0-b100");
+        assertOlder("1.0", "1.0-b1");
+    }
+
+    @Test
+    public void comparesReleasesOnly() {
+        assertEquals(0, Version.parse("1.0-SNAPSHOT").compareRelease(Version.parse("1.0")));
+        assertTrue(Version.parse("1.0").compareRelease(Version.parse("1.1-beta")) < 0);
+    }
+
+    @Test
+    public void handlesLongReleasesAndQualifiers() {
+        assertOlder("1.2.3.4.5.6.7.8.9", "1.2.3.4.5.6.7.8.10");
+        assertOlder("1.0-build.1.2.3.4.5.6.7.8", "1.0-build.1.2.3.4.5.6.7.9");
+        assertOlder("1.0-beta-20240101-1234-5678-9012-3456", "1.0-beta-20240101-1234-5678-9012-3457");
+
+        StringBuilder qualifier = new StringBuilder("1.0-");
+        for (int i = 0; i < 100; i++) qualifier.append("rc").append(i).append('.');
+        assertTrue(Version.parse(qualifier.toString()).isPreRelease());
+        assertOlder(qualifier.toString(), "1.0");
+    }
+
+    @Test
+    public void saturatesHugeNumbers() {
+        assertSameVersion("99999999999999999999.0", "2147483647.0");
+        assertOlder("2147483646", "99999999999999999999");
+        assertSameVersion("1.0-b99999999999999999999999", "1.0-b99999999999999999999998");
+    }
+
+    @Test
+    public void parsesVersionsWithoutNumbers() {
+        assertSameVersion("", "0");
+        assertSameVersion("unknown", "");
+        assertOlder("unknown", "0.0.1");
+    }
+
+    @Test
+    public void cachesParsedVersions() {
+        String text = "3.14.15-cache-test";
+        Version version = Version.parse(text);
+        assertSame(version, Version.parse(text));
+        assertSame(version, Version.parse(new String(text.toCharArray())));
+    }
+
+    @Test
+    public void keepsParsingOnceTheCacheIsFull() {
+        Version version = Version.parse("4.0-cache-test");
+        for (int i = 0; i < 2048; i++) Version.parse("4.0." + i);
+
+        Version again = Version.parse("4.0-cache-test");
+        assertNotSame(version, again);
+        assertEquals(version, again);
+        assertSame(again, Version.parse("4.0-cache-test"));
+    }
+
+    /**
+     * Generates a version string from a small alphabet, so equal and nearly equal versions come up often.
+     */
+    private static String randomVersion(Random random) {
+        StringBuilder version = new StringBuilder(random.nextInt(4) == 0 ? "v" : "");
+        int parts = random.nextInt(4) + 1;
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) version.append('.');
+            version.append(random.nextInt(10) == 0 ? "99999999999999999999" : String.valueOf(random.nextInt(4)));
+        }
+        return version.append(VersionTest.QUALIFIERS[random.nextInt(VersionTest.QUALIFIERS.length)]).toString();
+    }
+
+    @Test
+    public void ordersRandomVersionsConsistently() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+
+        List<String> texts = new ArrayList<>();
+        List<Version> versions = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            texts.add(VersionTest.randomVersion(random));
+            versions.add(Version.parse(texts.get(i)));
+        }
+
+        for (int i = 0; i < versions.size(); i++) {
+            Version first = versions.get(i);
+            assertEquals(0, first.compareTo(first));
+
+            for (int j = 0; j < versions.size(); j++) {
+                Version second = versions.get(j);
+                String pair = texts.get(i) + " / " + texts.get(j) + " (seed " + seed + ")";
+                int order = Integer.signum(first.compareTo(second));
+
+                assertEquals("antisymmetric " + pair, -order, Integer.signum(second.compareTo(first)));
+                assertEquals("equals matches compareTo " + pair, order == 0, first.equals(second));
+                if (order == 0) assertEquals("hashCode matches equals " + pair, first.hashCode(), second.hashCode());
+
+                if (order > 0) continue;
+                for (int k = 0; k < versions.size(); k++)
+                    if (second.compareTo(versions.get(k)) <= 0)
+                        assertTrue("transitive " + pair + " / " + texts.get(k), first.compareTo(versions.get(k)) <= 0);
+            }
+        }
+    }
+}